@@ -0,0 +1,70 @@
+package tvsystem.benchmark;
+
+import tvsystem.model.Cliente;
+import tvsystem.model.PlanSector;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Consultas de ClienteRepository segun la cantidad de clientes.
+ * findByRut elige en cada llamada un RUT existente, con o sin formato,
+ * de una secuencia pseudoaleatoria fija.
+ *
+ * @author Maximiliano Rodriguez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClienteRepositoryBenchmark {
+    
+    private static final int CONSULTAS = 4096;
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int clientes;
+    
+    private SistemaPrueba sistema;
+    private String[] consultas;
+    private String[] codigosPlan;
+    private int siguiente;
+    
+    @Setup
+    public void preparar() {
+        sistema = SistemaPrueba.conClientes(clientes);
+        int[] posiciones = FixtureClientes.posiciones(CONSULTAS, clientes);
+        
+        // La mitad de las busquedas llega como la escribiria un usuario: sin puntos
+        consultas = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            String rut = sistema.ruts[posiciones[i]];
+            consultas[i] = (i % 2 == 0) ? rut : rut.replace(".", "");
+        }
+        
+        List<PlanSector> planes = sistema.planService.obtenerTodosLosPlanes();
+        codigosPlan = new String[planes.size()];
+        for (int i = 0; i < codigosPlan.length; i++) {
+            codigosPlan[i] = planes.get(i).getCodigoPlan();
+        }
+    }
+    
+    @Benchmark
+    public Cliente findByRut() {
+        siguiente = (siguiente + 1) & (CONSULTAS - 1);
+        return sistema.clienteRepository.findByRut(consultas[siguiente]);
+    }
+    
+    @Benchmark
+    public List<Cliente> findByPlan() {
+        siguiente = (siguiente + 1) % codigosPlan.length;
+        return sistema.clienteRepository.findByPlan(codigosPlan[siguiente]);
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Cliente> findAll() {
+        return sistema.clienteRepository.findAll();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package tvsystem.benchmark;
+
+import tvsystem.config.AppConstants;
+import tvsystem.model.Cliente;
+import tvsystem.model.PlanSector;
+import tvsystem.model.Suscripcion;
+import tvsystem.util.CsvManager;
+import tvsystem.util.CsvRowEncoder;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compara la escritura historica con printf contra CsvRowEncoder.
+ * Las variantes "memoria" escriben a un Writer nulo para medir solo el formateo;
+ * las variantes "archivo" escriben a un archivo temporal como guardarDatos.
+ *
+ * @author Maximiliano Rodriguez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvEscrituraBenchmark {
+    
+    @Param({"1000", "100000"})
+    public int clientes;
+    
+    private List<Cliente> datos;
+    private File archivo;
+    
+    @Setup
+    public void preparar() throws IOException {
+        datos = FixtureClientes.crearClientes(clientes);
+        archivo = File.createTempFile("benchmark_csv", ".csv");
+        archivo.deleteOnExit();
+    }
+    
+    @TearDown
+    public void limpiar() {
+        archivo.delete();
+    }
+    
+    @Benchmark
+    public int printfMemoria() {
+        return escribirConPrintf(new PrintWriter(Writer.nullWriter()));
+    }
+    
+    @Benchmark
+    public int codificadorMemoria() throws IOException {
+        try (Writer writer = new BufferedWriter(Writer.nullWriter(), AppConstants.TAMANO_BUFFER_ESCRITURA_BYTES)) {
+            return CsvManager.escribirCsv(writer, datos);
+        }
+    }
+    
+    // Implementacion anterior de guardarDatos: printf por fila sobre FileWriter sin buffer adicional
+    @Benchmark
+    public int printfArchivo() throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(archivo))) {
+            return escribirConPrintf(writer);
+        }
+    }
+    
+    @Benchmark
+    public int codificadorArchivo() throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(archivo), AppConstants.TAMANO_BUFFER_ESCRITURA_BYTES)) {
+            return CsvManager.escribirCsv(writer, datos);
+        }
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private int escribirConPrintf(PrintWriter writer) {
+        writer.println(CsvRowEncoder.CABECERA);
+        int filas = 0;
+        for (Cliente cliente : datos) {
+            Suscripcion suscripcion = cliente.getSuscripcion();
+            PlanSector plan = suscripcion.getPlan();
+            writer.printf("%s,%s,%s,%s,%s,%s,%s,%s,%d,%.2f,%d,%s,%s%n",
+                CsvRowEncoder.escapar(plan.getSectorAsociado()),
+                CsvRowEncoder.escapar(cliente.getNombre()),
+                CsvRowEncoder.escapar(cliente.getRut()),
+                CsvRowEncoder.escapar(cliente.getDomicilio()),
+                CsvRowEncoder.escapar(plan.getCodigoPlan()),
+                suscripcion.getFechaInicio(),
+                suscripcion.getFechaTermino() != null ? suscripcion.getFechaTermino() : "",
+                CsvRowEncoder.escapar(suscripcion.getEstado() != null ? suscripcion.getEstado() : "ACTIVA"),
+                plan.getPrecioMensual(),
+                plan.getDescuento(),
+                plan.calcularPrecioFinal(),
+                suscripcion.isPagado() ? "true" : "false",
+                suscripcion.getProximoVencimiento() != null ? suscripcion.getProximoVencimiento() : "");
+            filas++;
+        }
+        writer.flush();
+        return filas;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package tvsystem.benchmark;
+
+import tvsystem.util.BitacoraCambios;
+import tvsystem.util.CsvManager;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Carga y guardado completos a traves de CsvManager, en CSV y en snapshot binario.
+ * Cada carga parte de un sistema vacio, igual que al abrir la aplicacion.
+ *
+ * @author Maximiliano Rodriguez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvManagerBenchmark {
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int clientes;
+    
+    @Param({".csv", ".tvsb"})
+    public String formato;
+    
+    private File archivo;
+    private SistemaPrueba origen;
+    private SistemaPrueba destino;
+    
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        archivo = File.createTempFile("benchmark_datos", formato);
+        origen = SistemaPrueba.conClientes(clientes);
+        CsvManager.setArchivoActual(archivo.getAbsolutePath());
+        CsvManager.setRespaldos(0);
+        CsvManager.exportarDatos(archivo.getAbsolutePath(), origen.sectorService, origen.planService);
+    }
+    
+    @Setup(Level.Invocation)
+    public void sistemaVacio() {
+        CsvManager.cerrarBitacora();
+        destino = SistemaPrueba.vacio();
+    }
+    
+    @TearDown(Level.Trial)
+    public void limpiar() throws IOException {
+        CsvManager.cerrarBitacora();
+        Files.deleteIfExists(BitacoraCambios.rutaPara(archivo.toPath()));
+        archivo.delete();
+    }
+    
+    @Benchmark
+    public boolean cargarDatos() {
+        return CsvManager.cargarDatos(destino.sectorService, destino.clienteService, destino.planService);
+    }
+    
+    @Benchmark
+    public boolean guardarDatos() {
+        return CsvManager.guardarDatos(origen.sectorService, origen.clienteService, origen.planService);
+    }
+}
\ No newline at end of file
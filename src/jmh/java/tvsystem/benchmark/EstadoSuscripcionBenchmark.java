@@ -0,0 +1,39 @@
+package tvsystem.benchmark;
+
+import tvsystem.model.Cliente;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Recalculo del estado de todas las suscripciones con obtenerEstadoActual,
+ * como hace la vista al refrescar la tabla de clientes.
+ *
+ * @author Elias Manriquez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EstadoSuscripcionBenchmark {
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int clientes;
+    
+    private List<Cliente> todos;
+    
+    @Setup
+    public void preparar() {
+        todos = SistemaPrueba.conClientes(clientes).clienteService.obtenerTodosLosClientes();
+    }
+    
+    @Benchmark
+    public void obtenerEstadoActual(Blackhole bh) {
+        for (Cliente cliente : todos) {
+            bh.consume(cliente.getSuscripcion().obtenerEstadoActual());
+        }
+    }
+}
\ No newline at end of file
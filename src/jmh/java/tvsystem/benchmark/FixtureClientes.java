@@ -0,0 +1,81 @@
+package tvsystem.benchmark;
+
+import tvsystem.model.Cliente;
+import tvsystem.model.PlanSector;
+import tvsystem.model.Sector;
+import tvsystem.util.DataInitializer;
+import tvsystem.util.DatosFicticiosGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Datos deterministas para los benchmarks: misma semilla, mismos clientes.
+ *
+ * Todos los clientes salen de DatosFicticiosGenerator con la semilla y la
+ * fecha base fijas, asi que los benchmarks miden los mismos datos (RUT
+ * validos de RutValidator, planes y estados reales) que genera la aplicacion.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public final class FixtureClientes {
+    
+    public static final long SEMILLA = 20251018L;
+    public static final LocalDate FECHA_BASE = LocalDate.of(2026, 1, 1);
+    
+    private FixtureClientes() {}
+    
+    // Generador de los benchmarks sobre los planes indicados; incluye suscripciones canceladas
+    private static DatosFicticiosGenerator generador(List<PlanSector> planes) {
+        DatosFicticiosGenerator generador = new DatosFicticiosGenerator(planes, SEMILLA);
+        generador.setFechaBase(FECHA_BASE);
+        generador.setPesoEstado("CANCELADA", 1.0);
+        return generador;
+    }
+    
+    // Genera n clientes en orden y los entrega al destino
+    public static void generar(List<PlanSector> planes, int n, DatosFicticiosGenerator.DestinoClientes destino) {
+        try {
+            generador(planes).generar(n, destino);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Crea n clientes con suscripcion y plan; los nombres con coma ejercitan el escapado
+    public static List<Cliente> crearClientes(int n) {
+        List<Cliente> clientes = new ArrayList<>(n);
+        generar(crearPlanes(), n, cliente -> {
+            if (clientes.size() % 10 == 0) {
+                cliente.setNombre(cliente.getNombre() + ", hijo");
+            }
+            clientes.add(cliente);
+        });
+        return clientes;
+    }
+    
+    // Planes de todos los sectores, como los crea la aplicacion
+    public static List<PlanSector> crearPlanes() {
+        List<PlanSector> planes = new ArrayList<>();
+        for (Sector sector : DataInitializer.inicializarSectores().values()) {
+            planes.addAll(sector.getPlanesView());
+        }
+        return planes;
+    }
+    
+    // RUT formateados de los primeros n clientes generados
+    public static String[] ruts(int n) {
+        String[] ruts = new String[n];
+        int[] siguiente = new int[1];
+        generar(crearPlanes(), n, cliente -> ruts[siguiente[0]++] = cliente.getRut());
+        return ruts;
+    }
+    
+    // Secuencia fija de n posiciones en [0, limite), para elegir consultas sobre los datos
+    public static int[] posiciones(int n, int limite) {
+        return new SplittableRandom(SEMILLA).ints(n, 0, limite).toArray();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package tvsystem.benchmark;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Generacion del reporte completo hacia un Writer nulo (solo calculo y formateo).
+ *
+ * @author Elias Manriquez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReporteBenchmark {
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int clientes;
+    
+    private SistemaPrueba sistema;
+    
+    @Setup
+    public void preparar() {
+        sistema = SistemaPrueba.conClientes(clientes);
+    }
+    
+    @Benchmark
+    public void generarReporteCompleto() {
+        PrintWriter writer = new PrintWriter(Writer.nullWriter());
+        sistema.reportService.generarReporteCompleto(writer);
+        writer.flush();
+    }
+}
\ No newline at end of file
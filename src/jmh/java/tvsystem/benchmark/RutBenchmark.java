@@ -0,0 +1,137 @@
+package tvsystem.benchmark;
+
+import tvsystem.util.RutValidator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compara la validacion y formateo de RUT anterior (replaceAll, toUpperCase,
+ * substring y matches por llamada) contra el recorrido unico de parsearRut.
+ * Cada invocacion procesa el arreglo completo de RUT de entrada.
+ *
+ * @author Elias Manriquez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RutBenchmark {
+    
+    private static final int CANTIDAD = 1024;
+    
+    // Como llega el RUT: ya formateado, escrito por el usuario sin puntos, o invalido
+    @Param({"FORMATEADO", "SIN_PUNTOS", "INVALIDO"})
+    public String forma;
+    
+    private String[] ruts;
+    
+    @Setup
+    public void preparar() {
+        ruts = FixtureClientes.ruts(CANTIDAD);
+        for (int i = 0; i < CANTIDAD; i++) {
+            String rut = ruts[i];
+            if ("SIN_PUNTOS".equals(forma)) {
+                rut = rut.replace(".", "").toLowerCase();
+            } else if ("INVALIDO".equals(forma)) {
+                rut = rut.substring(0, rut.length() - 1) + (rut.endsWith("0") ? '1' : '0');
+            }
+            ruts[i] = rut;
+        }
+    }
+    
+    @Benchmark
+    public void validarAnterior(Blackhole bh) {
+        for (String rut : ruts) {
+            bh.consume(Anterior.validarRut(rut));
+        }
+    }
+    
+    @Benchmark
+    public void validarParseando(Blackhole bh) {
+        for (String rut : ruts) {
+            bh.consume(RutValidator.parsearRut(rut));
+        }
+    }
+    
+    // Validar y luego formatear, como hacia agregarCliente
+    @Benchmark
+    public void formatearAnterior(Blackhole bh) {
+        for (String rut : ruts) {
+            bh.consume(Anterior.validarRut(rut) ? Anterior.formatearRut(rut) : null);
+        }
+    }
+    
+    @Benchmark
+    public void formatearParseando(Blackhole bh) {
+        for (String rut : ruts) {
+            long rutParseado = RutValidator.parsearRut(rut);
+            bh.consume(rutParseado != RutValidator.RUT_INVALIDO ? RutValidator.formatearRut(rutParseado) : null);
+        }
+    }
+    
+    // --- CLASES DE DATOS PARA COMPARACION ---
+    
+    // Implementacion de RutValidator antes del recorrido unico
+    private static class Anterior {
+        
+        static boolean validarRut(String rut) {
+            if (rut == null || rut.trim().isEmpty()) {
+                return false;
+            }
+            rut = limpiarRut(rut);
+            if (rut.length() < 2) {
+                return false;
+            }
+            String numero = rut.substring(0, rut.length() - 1);
+            char digitoVerificador = rut.charAt(rut.length() - 1);
+            if (!numero.matches("\\d+")) {
+                return false;
+            }
+            return digitoVerificador == calcularDigitoVerificador(numero);
+        }
+        
+        static String limpiarRut(String rut) {
+            return rut.replaceAll("[.\\-\\s]", "").toUpperCase();
+        }
+        
+        static char calcularDigitoVerificador(String numero) {
+            int suma = 0;
+            int multiplicador = 2;
+            for (int i = numero.length() - 1; i >= 0; i--) {
+                suma += Character.getNumericValue(numero.charAt(i)) * multiplicador;
+                multiplicador++;
+                if (multiplicador > 7) {
+                    multiplicador = 2;
+                }
+            }
+            int dv = 11 - (suma % 11);
+            if (dv == 11) {
+                return '0';
+            } else if (dv == 10) {
+                return 'K';
+            } else {
+                return Character.forDigit(dv, 10);
+            }
+        }
+        
+        static String formatearRut(String rut) {
+            if (!validarRut(rut)) {
+                return rut;
+            }
+            rut = limpiarRut(rut);
+            String numero = rut.substring(0, rut.length() - 1);
+            char dv = rut.charAt(rut.length() - 1);
+            StringBuilder numeroFormateado = new StringBuilder();
+            for (int i = 0; i < numero.length(); i++) {
+                if (i > 0 && (numero.length() - i) % 3 == 0) {
+                    numeroFormateado.append('.');
+                }
+                numeroFormateado.append(numero.charAt(i));
+            }
+            return numeroFormateado.toString() + '-' + dv;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package tvsystem.benchmark;
+
+import tvsystem.model.Cliente;
+import tvsystem.repository.ClienteRepository;
+import tvsystem.repository.PlanRepository;
+import tvsystem.repository.SectorRepository;
+import tvsystem.service.ClienteService;
+import tvsystem.service.PlanService;
+import tvsystem.service.ReportService;
+import tvsystem.service.SectorService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sistema completo (repositorios y servicios) armado igual que TvSystemApplication,
+ * con n clientes deterministas de FixtureClientes repartidos entre los sectores y planes reales.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public final class SistemaPrueba {
+    
+    public final SectorRepository sectorRepository;
+    public final ClienteRepository clienteRepository;
+    public final PlanRepository planRepository;
+    public final SectorService sectorService;
+    public final ClienteService clienteService;
+    public final PlanService planService;
+    public final ReportService reportService;
+    
+    // RUT de los clientes en orden de creacion, para elegir busquedas existentes
+    public final String[] ruts;
+    
+    // Constructor
+    private SistemaPrueba(int clientes) {
+        sectorRepository = new SectorRepository();
+        clienteRepository = new ClienteRepository(sectorRepository);
+        planRepository = new PlanRepository(sectorRepository);
+        sectorService = new SectorService(sectorRepository);
+        clienteService = new ClienteService(clienteRepository, sectorRepository, planRepository);
+        planService = new PlanService(planRepository);
+        clienteService.configurarServicios(sectorService, planService);
+        reportService = new ReportService(sectorService, clienteService, planService);
+        sectorService.inicializarSistema();
+        ruts = new String[clientes];
+    }
+    
+    // Sistema sin clientes, para medir cargas sobre repositorios vacios
+    public static SistemaPrueba vacio() {
+        return new SistemaPrueba(0);
+    }
+    
+    // Sistema con n clientes; la misma n produce siempre los mismos datos
+    public static SistemaPrueba conClientes(int n) {
+        SistemaPrueba sistema = new SistemaPrueba(n);
+        sistema.poblar(n);
+        return sistema;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Inserta por lotes de sector con saveAll, como la carga masiva
+    private void poblar(int n) {
+        Map<String, List<Cliente>> porSector = new LinkedHashMap<>();
+        int[] siguiente = new int[1];
+        FixtureClientes.generar(planService.obtenerTodosLosPlanes(), n, cliente -> {
+            ruts[siguiente[0]++] = cliente.getRut();
+            porSector.computeIfAbsent(cliente.getSuscripcion().getPlan().getSectorAsociado(), k -> new ArrayList<>())
+                .add(cliente);
+        });
+        
+        for (Map.Entry<String, List<Cliente>> entry : porSector.entrySet()) {
+            clienteRepository.saveAll(entry.getValue(), entry.getKey());
+        }
+    }
+}
\ No newline at end of file
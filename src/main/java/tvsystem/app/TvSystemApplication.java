@@ -1,5 +1,6 @@
 package tvsystem.app;
 
+import tvsystem.config.AppConstants;
 import tvsystem.service.*;
 import tvsystem.repository.*;
 import tvsystem.util.CsvManager;
@@ -24,6 +25,7 @@ public class TvSystemApplication {
     private ClienteService clienteService;
     private PlanService planService;
     private CaptacionService captacionService;
+    private GuardadoService guardadoService;
     
     public static void main(String[] args) {
         LoggerHelper.system("Iniciando Sistema TV...");
@@ -65,11 +67,15 @@ public class TvSystemApplication {
             
             // Configurar referencias cruzadas para evitar dependencias circulares
             clienteService.configurarServicios(sectorService, planService);
+            guardadoService = new GuardadoService(sectorService, clienteService, planService);
+            clienteService.configurarGuardado(guardadoService);
+            planService.configurarGuardado(guardadoService);
             LoggerHelper.serviceInitialized("Servicios de negocio");
             
             // Inicialización de datos del sistema
             LoggerHelper.info("Cargando datos iniciales...");
             sectorService.inicializarSistema();
+            clienteService.actualizarEstados();
             LoggerHelper.success("Datos iniciales cargados correctamente");
             
             // Verificación final
@@ -104,6 +110,10 @@ public class TvSystemApplication {
         clienteService = null;
         planService = null;
         captacionService = null;
+        if (guardadoService != null) {
+            guardadoService.cerrar();
+        }
+        guardadoService = null;
         
         LoggerHelper.debug("- Referencias limpiadas");
     }
@@ -147,7 +157,8 @@ public class TvSystemApplication {
                         sectorService,
                         clienteService,
                         planService,
-                        captacionService
+                        captacionService,
+                        guardadoService
                     );
                     
                     mainWindow.setVisible(true);
@@ -181,6 +192,13 @@ public class TvSystemApplication {
     // Metodo para cerrar la aplicacion limpiamente
     public void cerrar() {
         LoggerHelper.info("Cerrando Sistema...");
+        if (guardadoService != null) {
+            if (!guardadoService.vaciar(AppConstants.ESPERA_MAXIMA_GUARDADO_MS)) {
+                LoggerHelper.error("No se pudieron guardar los ultimos cambios antes de cerrar");
+            }
+            guardadoService.cerrar();
+        }
+        CsvManager.cerrarBitacora();
         LoggerHelper.info("Sistema cerrado correctamente.");
         System.exit(0);
     }
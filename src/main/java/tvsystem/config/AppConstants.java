@@ -76,6 +76,7 @@ public final class AppConstants {
     public static final String MSG_SIN_ARCHIVO = "No hay archivo seleccionado para guardar";
     public static final String MSG_REPORTE_GENERADO = "Reporte generado exitosamente";
     public static final String MSG_ERROR_REPORTE = "Error al generar el reporte";
+    public static final String MSG_DETALLE_CLIENTES_REPORTE = "¿Incluir un anexo con el detalle de cada cliente?";
     public static final String MSG_OPERACION_CANCELADA = "Operación cancelada por el usuario";
     
     // --- TITULOS DE VENTANAS Y DIALOGOS ---
@@ -96,6 +97,7 @@ public final class AppConstants {
     public static final String[] COLUMNAS_TABLA_CLIENTES = {
         "RUT", "Nombre", "Sector", "Plan", "Estado", "Precio Final"
     };
+    public static final int TAMANO_TRAMO_TABLA = 2_000;                         // Filas por entrega a la tabla de clientes
     
     // --- FILTROS DE BUSQUEDA ---
     public static final String[] OPCIONES_FILTRO = {"Todos", "Sector", "Plan", "Estado"};
@@ -116,9 +118,30 @@ public final class AppConstants {
     // --- VALIDACION ---
     public static final String REGEX_RUT_FORMATO = "^[0-9]+-[0-9Kk]$";
     
+    // --- CARGA DE ARCHIVOS ---
+    public static final long UMBRAL_CARGA_PARALELA_BYTES = 64L * 1024 * 1024;  // 64 MB
+    public static final int TAMANO_BLOQUE_CARGA_BYTES = 8 * 1024 * 1024;        // 8 MB por bloque
+    public static final int TAMANO_BUFFER_ESCRITURA_BYTES = 256 * 1024;         // 256 KB
+    public static final int RESPALDOS_CSV = 3;                                  // Versiones anteriores a conservar
+    public static final int UMBRAL_COMPACTACION_BITACORA = 1000;                // Eventos antes de reescribir el CSV
+    
+    // --- REPORTES ---
+    public static final int UMBRAL_REPORTE_PARALELO_SECTORES = 16;              // Sectores desde los que se cuentan en paralelo
+    
+    // --- EVALUACION DE ESTADOS ---
+    public static final int TAMANO_TRAMO_EVALUACION_ESTADOS = 20_000;           // Suscripciones por tarea del pool
+    
+    // --- GUARDADO EN SEGUNDO PLANO ---
+    public static final long RETARDO_GUARDADO_MS = 500;                         // Espera para juntar solicitudes seguidas
+    public static final long ESPERA_MAXIMA_GUARDADO_MS = 60_000;                // Tope para vaciar al cerrar
+    
     // --- ARCHIVOS Y EXTENSIONES ---
     public static final String EXTENSION_CSV = ".csv";
     public static final String EXTENSION_TXT = ".txt";
+    public static final String EXTENSION_SNAPSHOT = ".tvsb";
+    public static final String EXTENSION_JSON = ".json";
     public static final String DESCRIPCION_CSV = "Archivos CSV (*.csv)";
     public static final String DESCRIPCION_TXT = "Archivos TXT (*.txt)";
+    public static final String DESCRIPCION_SNAPSHOT = "Snapshot binario (*.tvsb)";
+    public static final String DESCRIPCION_JSON = "Archivos JSON (*.json)";
 }
\ No newline at end of file
@@ -1,66 +1,92 @@
 package tvsystem.model;
 
+import tvsystem.util.RutValidator;
+
 /**
  * Clase para cada Cliente individual
+ * Los datos viven en una FotoCliente inmutable que se reemplaza con cada cambio
+ * (del cliente o de su suscripcion); las versiones de solo lectura comparten esa
+ * misma foto en vez de copiar al cliente.
  * 
  * @author Elias Manriquez
  * @author Maximiliano Rodriguez
  */
 public class Cliente {
-    private String nombre;
-    private String rut;
-    private String domicilio;
-    private Suscripcion suscripcion;
+    private volatile FotoCliente foto;
+    private volatile Suscripcion suscripcion;
     
     // Constructor
     public Cliente(){
-        this.nombre = "";
-        this.rut = "";
-        this.domicilio = "";
+        this.foto = new FotoCliente("", "", -1, "", null);
         this.suscripcion = null;
     }
     
     // Constructor Sobrecarga
     public Cliente(String nombre, String rut, String domicilio){
-        this.nombre = nombre;
-        this.rut = rut;
-        this.domicilio = domicilio;
+        this.foto = new FotoCliente(nombre, rut, RutValidator.claveRut(rut), domicilio, null);
         suscripcion = null;
     }
     
     // -- SETTERS --
 
-    public void setNombre(String nombre){
-        this.nombre = nombre;
+    public synchronized void setNombre(String nombre){
+        foto = foto.conNombre(nombre);
     }
     
-    public void setRut(String rut){
-        this.rut = rut;
+    public synchronized void setRut(String rut){
+        foto = foto.conRut(rut, RutValidator.claveRut(rut));
     }
     
-    public void setDomicilio(String domicilio){
-        this.domicilio = domicilio;
+    public synchronized void setDomicilio(String domicilio){
+        foto = foto.conDomicilio(domicilio);
     }
     
-    public void setSuscripcion(Suscripcion suscripcion){
+    public synchronized void setSuscripcion(Suscripcion suscripcion){
         this.suscripcion = suscripcion;
+        foto = foto.conSuscripcion(suscripcion != null ? suscripcion.getFoto() : null);
     }
 
     // -- GETTERS --
     
     public String getNombre(){
-        return nombre;
+        return foto.getNombre();
     }
     
     public String getRut(){
-        return rut;
+        return foto.getRut();
+    }
+    
+    // Cuerpo del RUT usado como clave en los mapas de clientes; -1 si el RUT no es valido
+    public int getClaveRut(){
+        return foto.getClaveRut();
     }
     
     public String getDomicilio(){
-        return domicilio;
+        return foto.getDomicilio();
     }
     
     public Suscripcion getSuscripcion(){
         return suscripcion;
     }
+    
+    // Datos actuales del cliente y su suscripcion; la foto no cambia aunque el cliente si
+    public FotoCliente getFoto(){
+        return foto;
+    }
+    
+    // -- METODOS --
+    
+    // Suscripcion avisa cada cambio suyo para que la foto del cliente lo incluya.
+    // Mientras la suscripcion aun no esta asignada (al construir) no hay nada que hacer:
+    // setSuscripcion toma despues su foto mas reciente
+    void suscripcionCambiada(Suscripcion cambiada){
+        if (suscripcion != cambiada) {
+            return;
+        }
+        synchronized (this) {
+            if (suscripcion == cambiada) {
+                foto = foto.conSuscripcion(cambiada.getFoto());
+            }
+        }
+    }
 }
\ No newline at end of file
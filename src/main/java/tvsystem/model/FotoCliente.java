@@ -0,0 +1,71 @@
+package tvsystem.model;
+
+/**
+ * Valores de un cliente y de su suscripcion en un instante, inmutables.
+ *
+ * Cliente guarda sus datos en una FotoCliente y arma una nueva con cada
+ * cambio (suyo o de su suscripcion). Las versiones de solo lectura
+ * (VersionDatos) guardan la misma FotoCliente que tiene el cliente al
+ * publicarse, asi que no hay una segunda copia de los datos: cada version
+ * comparte las fotos de los clientes que no cambiaron.
+ *
+ * @author Elias Manriquez
+ */
+public final class FotoCliente {
+    private final String nombre;
+    private final String rut;
+    private final int claveRut;
+    private final String domicilio;
+    private final FotoSuscripcion suscripcion;
+    
+    // Constructor
+    FotoCliente(String nombre, String rut, int claveRut, String domicilio, FotoSuscripcion suscripcion) {
+        this.nombre = nombre;
+        this.rut = rut;
+        this.claveRut = claveRut;
+        this.domicilio = domicilio;
+        this.suscripcion = suscripcion;
+    }
+    
+    // -- GETTERS --
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public String getRut() {
+        return rut;
+    }
+    
+    // Cuerpo del RUT usado como clave en los mapas de clientes; -1 si el RUT no es valido
+    public int getClaveRut() {
+        return claveRut;
+    }
+    
+    public String getDomicilio() {
+        return domicilio;
+    }
+    
+    // Suscripcion tal como estaba en esta foto, o null si no tenia
+    public FotoSuscripcion getSuscripcion() {
+        return suscripcion;
+    }
+    
+    // --- Usado por Cliente: cada cambio es una foto nueva ---
+    
+    FotoCliente conNombre(String nombre) {
+        return new FotoCliente(nombre, rut, claveRut, domicilio, suscripcion);
+    }
+    
+    FotoCliente conRut(String rut, int claveRut) {
+        return new FotoCliente(nombre, rut, claveRut, domicilio, suscripcion);
+    }
+    
+    FotoCliente conDomicilio(String domicilio) {
+        return new FotoCliente(nombre, rut, claveRut, domicilio, suscripcion);
+    }
+    
+    FotoCliente conSuscripcion(FotoSuscripcion suscripcion) {
+        return suscripcion == this.suscripcion ? this : new FotoCliente(nombre, rut, claveRut, domicilio, suscripcion);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package tvsystem.model;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Valores de una suscripcion en un instante, inmutables.
+ *
+ * Suscripcion guarda sus datos en una FotoSuscripcion y arma una nueva con
+ * cada cambio, asi que la foto que se lee nunca cambia despues y se puede
+ * compartir tal cual con las versiones de solo lectura (VersionDatos) sin
+ * copiar nada. El plan es el del repositorio de planes; VersionDatos.planDe
+ * entrega el plan congelado de la version.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public final class FotoSuscripcion {
+    private final Date fechaInicio;
+    private final Date fechaTermino;
+    private final String estado;
+    private final PlanSector plan;
+    private final boolean pagado;
+    private final LocalDate ultimaFechaPago;
+    private final LocalDate proximoVencimiento;
+    
+    // Constructor
+    FotoSuscripcion(Date fechaInicio, Date fechaTermino, String estado, PlanSector plan,
+                    boolean pagado, LocalDate ultimaFechaPago, LocalDate proximoVencimiento) {
+        this.fechaInicio = fechaInicio;
+        this.fechaTermino = fechaTermino;
+        this.estado = estado;
+        this.plan = plan;
+        this.pagado = pagado;
+        this.ultimaFechaPago = ultimaFechaPago;
+        this.proximoVencimiento = proximoVencimiento;
+    }
+    
+    // -- GETTERS --
+    
+    public Date getFechaInicio() {
+        return fechaInicio;
+    }
+    
+    public Date getFechaTermino() {
+        return fechaTermino;
+    }
+    
+    public String getEstado() {
+        return estado;
+    }
+    
+    public PlanSector getPlan() {
+        return plan;
+    }
+    
+    public boolean isPagado() {
+        return pagado;
+    }
+    
+    public LocalDate getUltimaFechaPago() {
+        return ultimaFechaPago;
+    }
+    
+    public LocalDate getProximoVencimiento() {
+        return proximoVencimiento;
+    }
+    
+    // -- METODOS --
+    
+    // Estado que corresponde en la fecha indicada segun estos valores (ver Suscripcion.evaluarEstado)
+    public String evaluarEstado(LocalDate fecha) {
+        if ("CANCELADA".equalsIgnoreCase(estado) ||
+            "SUSPENDIDA".equalsIgnoreCase(estado)) {
+            return estado;
+        }
+        
+        if (proximoVencimiento == null) {
+            return "CANCELADA";
+        }
+        
+        // Si esta vencida
+        if (fecha.isAfter(proximoVencimiento)) {
+            return "SUSPENDIDA";
+        }
+        
+        // Si faltan 2 semanas o menos y no esta pagado el próximo mes
+        LocalDate dosSemantasAntes = proximoVencimiento.minusWeeks(2);
+        if (!pagado && !fecha.isBefore(dosSemantasAntes)) {
+            return "PROXIMA_A_VENCER";
+        }
+        
+        // Si todo esta bien, está activa
+        return "ACTIVA";
+    }
+    
+    // --- Usado por Suscripcion: cada cambio es una foto nueva; si el valor no cambia se reutiliza esta ---
+    
+    FotoSuscripcion conFechaInicio(Date fechaInicio) {
+        if (Objects.equals(fechaInicio, this.fechaInicio)) {
+            return this;
+        }
+        return new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
+    }
+    
+    FotoSuscripcion conFechaTermino(Date fechaTermino) {
+        if (Objects.equals(fechaTermino, this.fechaTermino)) {
+            return this;
+        }
+        return new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
+    }
+    
+    FotoSuscripcion conEstado(String estado) {
+        if (Objects.equals(estado, this.estado)) {
+            return this;
+        }
+        return new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
+    }
+    
+    FotoSuscripcion conPlan(PlanSector plan) {
+        if (plan == this.plan) {
+            return this;
+        }
+        return new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
+    }
+    
+    FotoSuscripcion conPagado(boolean pagado) {
+        if (pagado == this.pagado) {
+            return this;
+        }
+        return new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
+    }
+    
+    FotoSuscripcion conUltimaFechaPago(LocalDate ultimaFechaPago) {
+        if (Objects.equals(ultimaFechaPago, this.ultimaFechaPago)) {
+            return this;
+        }
+        return new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
+    }
+    
+    FotoSuscripcion conProximoVencimiento(LocalDate proximoVencimiento) {
+        if (Objects.equals(proximoVencimiento, this.proximoVencimiento)) {
+            return this;
+        }
+        return new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
+    }
+    
+    // Pago registrado: pagado, fecha del pago, nuevo termino y vencimiento, y activa, en una sola foto
+    FotoSuscripcion conPago(LocalDate fechaPago, Date nuevoTermino, LocalDate nuevoVencimiento) {
+        return new FotoSuscripcion(fechaInicio, nuevoTermino, "ACTIVA", plan, true, fechaPago, nuevoVencimiento);
+    }
+}
\ No newline at end of file
@@ -9,9 +9,9 @@ package tvsystem.model;
  */
 public class PlanSector {
     private String nombrePlan;
-    private long precioMensual;
-    private boolean ofertaActiva;
-    private double descuento;
+    private volatile long precioMensual;
+    private volatile boolean ofertaActiva;
+    private volatile double descuento;
     private String codigoPlan;
     private String sectorAsociado;
 
@@ -93,4 +93,19 @@ public class PlanSector {
         this.ofertaActiva = false;
         this.descuento = 0.0;
     }
+    
+    // Copia con los valores actuales, para que una foto de los datos no vea cambios de precio u oferta posteriores
+    public PlanSector copiar() {
+        return new PlanSector(codigoPlan, nombrePlan, precioMensual, ofertaActiva, descuento, sectorAsociado);
+    }
+    
+    // Si la copia sigue teniendo los valores actuales de este plan (ninguna oferta o precio cambio desde copiar)
+    public boolean mismosValores(PlanSector copia) {
+        return precioMensual == copia.precioMensual
+            && ofertaActiva == copia.ofertaActiva
+            && Double.compare(descuento, copia.descuento) == 0
+            && java.util.Objects.equals(codigoPlan, copia.codigoPlan)
+            && java.util.Objects.equals(nombrePlan, copia.nombrePlan)
+            && java.util.Objects.equals(sectorAsociado, copia.sectorAsociado);
+    }
 }
\ No newline at end of file
@@ -1,31 +1,57 @@
 package tvsystem.model;
 
+import tvsystem.util.IntHashMap;
+import tvsystem.util.MapaPersistenteInt;
+import tvsystem.util.RutValidator;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Representa un sector.
  * Cada sector tiene sus propios planes especificos y clientes.
+ * Los clientes se guardan por el cuerpo numerico del RUT (Cliente.getClaveRut),
+ * asi que cualquier formato del RUT encuentra al mismo cliente.
+ *
+ * Cada sector tiene su propio candado de lectura/escritura, por lo que varios
+ * hilos pueden trabajar con sectores distintos sin esperarse. Las vistas de
+ * clientes son fotos inmutables (un MapaPersistenteInt): la primera se arma al
+ * pedirla y desde ahi cada alta o baja arma la siguiente copiando solo el camino
+ * de esa clave, asi que se pueden recorrer desde otro hilo mientras se agregan
+ * o quitan clientes sin volver a copiar el sector completo.
  * 
  * @author Elias Manriquez
  * @author Maximiliano Rodriguez
  */
 public class Sector {
     private String nombre;
-    private Map<String, Cliente> clientes;
+    private IntHashMap<Cliente> clientes;
     private Map<String, PlanSector> planesDisponibles;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Foto de los clientes; null hasta que se pide por primera vez (asi una carga masiva
+    // no la mantiene), despues cada cambio la actualiza con el candado de escritura
+    private volatile MapaPersistenteInt<Cliente> clientesView;
+    
+    // Vistas de solo lectura (se crean una sola vez)
+    private Map<String, Cliente> clientesMapView;
+    private Collection<PlanSector> planesView;
     
     // Constructor
     public Sector(){
         nombre = "";
-        this.clientes = new HashMap<>();
-        this.planesDisponibles = new HashMap<>();
+        this.clientes = new IntHashMap<>();
+        this.planesDisponibles = new ConcurrentHashMap<>();
+        crearVistas();
     }
     
     // Constructor Sobrecarga
     public Sector(String nombre){
         this.nombre = nombre;
-        this.clientes = new HashMap<>();
-        this.planesDisponibles = new HashMap<>();
+        this.clientes = new IntHashMap<>();
+        this.planesDisponibles = new ConcurrentHashMap<>();
+        crearVistas();
     }
 
     // -- SETTERS Y GETTERS --
@@ -35,7 +61,18 @@ public class Sector {
     }
     
     public void setClientes(Map<String, Cliente> clientes){
-        this.clientes = new HashMap<>(clientes);
+        IntHashMap<Cliente> nuevos = new IntHashMap<>(clientes.size());
+        for (Cliente cliente : clientes.values()) {
+            validarRut(cliente);
+            nuevos.put(cliente.getClaveRut(), cliente);
+        }
+        lock.writeLock().lock();
+        try {
+            this.clientes = nuevos;
+            this.clientesView = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     public String getNombre(){
@@ -43,30 +80,106 @@ public class Sector {
     }
     
     public List<Cliente> getClientes(){
-        return new ArrayList<>(clientes.values());
+        return new ArrayList<>(getClientesView());
     }
     
     public Map<String, Cliente> getClientesMap() {
-        return new HashMap<>(clientes);
+        Collection<Cliente> foto = getClientesView();
+        Map<String, Cliente> copia = new HashMap<>(foto.size() * 2);
+        for (Cliente cliente : foto) {
+            copia.put(cliente.getRut(), cliente);
+        }
+        return copia;
     }
     
     public Map<String, PlanSector> getPlanesDisponibles() {
         return new HashMap<>(planesDisponibles);
     }
+    
+    // -- VISTAS SIN COPIA --
+    // No se pueden modificar. La de clientes es una foto del sector al momento de pedirla:
+    // se puede recorrer aunque otro hilo agregue o quite clientes, y no refleja esos cambios.
+    
+    public Collection<Cliente> getClientesView() {
+        MapaPersistenteInt<Cliente> foto = clientesView;
+        if (foto == null) {
+            lock.readLock().lock();
+            try {
+                // Se asigna con el candado de lectura tomado: ninguna escritura puede cambiar el sector a medias
+                foto = clientesView;
+                if (foto == null) {
+                    foto = MapaPersistenteInt.vacio();
+                    for (Cliente cliente : clientes.values()) {
+                        foto = foto.con(cliente.getClaveRut(), cliente);
+                    }
+                    // Un sector vacio no guarda la foto, para que la carga que lo llena no tenga que mantenerla
+                    if (!foto.isEmpty()) {
+                        clientesView = foto;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return new VistaClientes(foto);
+    }
+    
+    public Map<String, Cliente> getClientesMapView() {
+        return clientesMapView;
+    }
+    
+    public Collection<PlanSector> getPlanesView() {
+        return planesView;
+    }
+    
+    public Iterator<Cliente> iteradorClientes() {
+        return getClientesView().iterator();
+    }
 
     // -- METODOS --
     
     // Gestion de clientes
     public void addCliente(Cliente cliente){
-        this.clientes.put(cliente.getRut(), cliente);
+        validarRut(cliente);
+        lock.writeLock().lock();
+        try {
+            this.clientes.put(cliente.getClaveRut(), cliente);
+            MapaPersistenteInt<Cliente> foto = this.clientesView;
+            if (foto != null) {
+                this.clientesView = foto.con(cliente.getClaveRut(), cliente);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     public void removeCliente(String rut) {
-        this.clientes.remove(rut);
+        removeCliente(RutValidator.claveRut(rut));
+    }
+    
+    public void removeCliente(int claveRut) {
+        lock.writeLock().lock();
+        try {
+            MapaPersistenteInt<Cliente> foto = this.clientesView;
+            if (this.clientes.remove(claveRut) != null && foto != null) {
+                this.clientesView = foto.sin(claveRut);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     public Cliente getCliente(String rut) {
-        return this.clientes.get(rut);
+        return getCliente(RutValidator.claveRut(rut));
+    }
+    
+    public Cliente getCliente(int claveRut) {
+        lock.readLock().lock();
+        try {
+            return this.clientes.get(claveRut);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     // Gestion de planes
@@ -84,12 +197,17 @@ public class Sector {
     
     // Metodos de análisis
     public int contarClientes() {
-        return clientes.size();
+        lock.readLock().lock();
+        try {
+            return clientes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     public int contarClientes(String estado) {
         int contador = 0;
-        for (Cliente cliente : clientes.values()) {
+        for (Cliente cliente : getClientesView()) {
             if (cliente.getSuscripcion() != null && 
                 cliente.getSuscripcion().getEstado().equalsIgnoreCase(estado)) {
                 contador++;
@@ -101,4 +219,94 @@ public class Sector {
     public boolean esSectorDebil(int umbralMinimo) {
         return contarClientes() < umbralMinimo;
     }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private static void validarRut(Cliente cliente) {
+        if (cliente.getClaveRut() < 0) {
+            throw new IllegalArgumentException("RUT inválido: " + cliente.getRut());
+        }
+    }
+    
+    private void crearVistas() {
+        this.clientesMapView = new VistaClientesPorRut();
+        this.planesView = Collections.unmodifiableCollection(planesDisponibles.values());
+    }
+    
+    // --- CLASES DE DATOS PARA VISTAS ---
+    
+    // Coleccion de solo lectura sobre una foto de los clientes; la foto no cambia despues
+    private static class VistaClientes extends AbstractCollection<Cliente> {
+        private final MapaPersistenteInt<Cliente> foto;
+        
+        VistaClientes(MapaPersistenteInt<Cliente> foto) {
+            this.foto = foto;
+        }
+        
+        @Override
+        public Iterator<Cliente> iterator() {
+            return foto.iterator();
+        }
+        
+        @Override
+        public void forEach(java.util.function.Consumer<? super Cliente> accion) {
+            foto.forEachValue(accion);
+        }
+        
+        @Override
+        public int size() {
+            return foto.size();
+        }
+        
+        @Override
+        public boolean contains(Object objeto) {
+            return objeto instanceof Cliente && foto.get(((Cliente) objeto).getClaveRut()) == objeto;
+        }
+    }
+    
+    // Vista de solo lectura RUT -> cliente sobre el mapa por clave numerica
+    private class VistaClientesPorRut extends AbstractMap<String, Cliente> {
+        
+        @Override
+        public Cliente get(Object rut) {
+            return rut instanceof String ? getCliente((String) rut) : null;
+        }
+        
+        @Override
+        public boolean containsKey(Object rut) {
+            return get(rut) != null;
+        }
+        
+        @Override
+        public int size() {
+            return contarClientes();
+        }
+        
+        @Override
+        public Set<Map.Entry<String, Cliente>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Cliente>>() {
+                @Override
+                public Iterator<Map.Entry<String, Cliente>> iterator() {
+                    Iterator<Cliente> valores = getClientesView().iterator();
+                    return new Iterator<Map.Entry<String, Cliente>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return valores.hasNext();
+                        }
+                        
+                        @Override
+                        public Map.Entry<String, Cliente> next() {
+                            Cliente cliente = valores.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(cliente.getRut(), cliente);
+                        }
+                    };
+                }
+                
+                @Override
+                public int size() {
+                    return contarClientes();
+                }
+            };
+        }
+    }
 }
\ No newline at end of file
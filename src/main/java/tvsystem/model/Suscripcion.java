@@ -2,69 +2,72 @@ package tvsystem.model;
 
 import java.time.LocalDate;
 import java.util.Date;
+import java.util.function.UnaryOperator;
 
 /**
- * Clase de suscripcion enlazada a un cliente
+ * Clase de suscripcion enlazada a un cliente.
+ * Los valores viven en una FotoSuscripcion inmutable que se reemplaza con cada
+ * cambio, asi que otros hilos leen siempre una foto completa; para que varios
+ * cambios sobre el mismo cliente no se mezclen se hacen con
+ * ClienteRepository.modificar.
  * 
  * @author Maximiliano Rodriguez
  * @author Elias Manriquez
  */
 public class Suscripcion {
-    private Date fechaInicio;
-    private Date fechaTermino;
-    private String estado;
+    private volatile FotoSuscripcion foto;
     private Cliente cliente;
-    private PlanSector plan;
-    private boolean pagado;
-    private LocalDate ultimaFechaPago;
-    private LocalDate proximoVencimiento;
+    private volatile SuscripcionListener listener;
 
     // Constructor
     public Suscripcion(Date fechaInicio, Date fechaTermino, String estado, Cliente cliente, PlanSector plan) {
-        this.fechaInicio = fechaInicio;
-        this.fechaTermino = fechaTermino;
-        this.estado = estado;
         this.cliente = cliente;
-        this.plan = plan;
-        this.pagado = false;
-        this.ultimaFechaPago = null;
         
         // Calcular proximo vencimiento (1 mes desde fecha inicio)
+        LocalDate proximoVencimiento = null;
         if (fechaInicio != null) {
             LocalDate inicio = new java.sql.Date(fechaInicio.getTime()).toLocalDate();
-            this.proximoVencimiento = inicio.plusMonths(1);
+            proximoVencimiento = inicio.plusMonths(1);
         }
+        this.foto = new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, false, null, proximoVencimiento);
+    }
+    
+    // Constructor con todos los valores, para las cargas masivas: arma una sola foto en vez de una por setter
+    public Suscripcion(Date fechaInicio, Date fechaTermino, String estado, Cliente cliente, PlanSector plan,
+                       boolean pagado, LocalDate ultimaFechaPago, LocalDate proximoVencimiento) {
+        this.cliente = cliente;
+        this.foto = new FotoSuscripcion(fechaInicio, fechaTermino, estado, plan, pagado, ultimaFechaPago, proximoVencimiento);
     }
 
     // -- SETTERS Y GETTERS --
 
     public Date getFechaInicio() {
-        return fechaInicio;
+        return foto.getFechaInicio();
     }
 
     public void setFechaInicio(Date fechaInicio) {
-        this.fechaInicio = fechaInicio;
+        cambiar(foto -> foto.conFechaInicio(fechaInicio));
     }
 
     public Date getFechaTermino() {
-        return fechaTermino;
+        return foto.getFechaTermino();
     }
 
     public void setFechaTermino(Date fechaTermino) {
-        this.fechaTermino = fechaTermino;
+        cambiar(foto -> foto.conFechaTermino(fechaTermino));
     }
 
     public String getEstado() {
-        return estado;
+        return foto.getEstado();
     }
 
     public void setEstado(String estado) {
-        this.estado = estado;
+        cambiarEstado(estado);
 
         // Si se marca como CANCELADA, limpiar fecha de vencimiento
         if ("CANCELADA".equalsIgnoreCase(estado)) {
-            this.proximoVencimiento = null;
-            this.pagado = false;
+            cambiarVencimiento(null);
+            cambiar(foto -> foto.conPagado(false));
         }
     }
 
@@ -77,94 +80,144 @@ public class Suscripcion {
     }
 
     public PlanSector getPlan() {
-        return plan;
+        return foto.getPlan();
     }
 
     public void setPlan(PlanSector plan) {
-        this.plan = plan;
+        PlanSector anterior = cambiar(foto -> foto.conPlan(plan)).getPlan();
+        if (listener != null && anterior != plan) {
+            listener.planCambiado(this, anterior, plan);
+        }
     }
     
     public boolean isPagado() {
-        return pagado;
+        return foto.isPagado();
     }
     
     public void setPagado(boolean pagado) {
-        this.pagado = pagado;
+        cambiar(foto -> foto.conPagado(pagado));
     }
     
     public LocalDate getUltimaFechaPago() {
-        return ultimaFechaPago;
+        return foto.getUltimaFechaPago();
     }
     
     public void setUltimaFechaPago(LocalDate ultimaFechaPago) {
-        this.ultimaFechaPago = ultimaFechaPago;
+        cambiar(foto -> foto.conUltimaFechaPago(ultimaFechaPago));
     }
     
     public LocalDate getProximoVencimiento() {
-        return proximoVencimiento;
+        return foto.getProximoVencimiento();
     }
     
     public void setProximoVencimiento(LocalDate proximoVencimiento) {
-        this.proximoVencimiento = proximoVencimiento;
+        cambiarVencimiento(proximoVencimiento);
+    }
+    
+    public SuscripcionListener getListener() {
+        return listener;
+    }
+    
+    public void setListener(SuscripcionListener listener) {
+        this.listener = listener;
+    }
+    
+    // Valores actuales; la foto no cambia aunque la suscripcion si
+    public FotoSuscripcion getFoto() {
+        return foto;
     }
     
     // -- Metodos de negocio --
     
     // Registra un pago y extiende la suscripcion por 1 mes
     public void registrarPago() {
-        this.pagado = true;
-        this.ultimaFechaPago = LocalDate.now();
-        this.proximoVencimiento = LocalDate.now().plusMonths(1);
-        this.estado = "ACTIVA";
-        
-        // Actualizar fechaTermino
-        java.sql.Date nuevaFechaTermino = java.sql.Date.valueOf(this.proximoVencimiento);
-        this.fechaTermino = nuevaFechaTermino;
+        registrarPago(LocalDate.now());
+    }
+    
+    // Registra un pago hecho en la fecha indicada (usado al reproducir la bitacora)
+    public void registrarPago(LocalDate fechaPago) {
+        // Todo el pago va en una sola foto antes de avisar, para que el listener vea el pago completo
+        LocalDate nuevoVencimiento = fechaPago.plusMonths(1);
+        Date nuevoTermino = java.sql.Date.valueOf(nuevoVencimiento);
+        FotoSuscripcion anterior = cambiar(foto -> foto.conPago(fechaPago, nuevoTermino, nuevoVencimiento));
+        avisarVencimiento(anterior.getProximoVencimiento(), nuevoVencimiento);
+        avisarEstado(anterior.getEstado(), "ACTIVA");
     }
     
     // Determina el estado actual de la suscripcion basado en fechas, pagos y estado manual
     public String obtenerEstadoActual() {
-        if ("CANCELADA".equalsIgnoreCase(this.estado) || 
-            "SUSPENDIDA".equalsIgnoreCase(this.estado)) {
-            return this.estado;
-        }
-        
-        LocalDate hoy = LocalDate.now();
+        return obtenerEstadoActual(LocalDate.now());
+    }
+    
+    // Evalua el estado en la fecha indicada y lo deja guardado si cambio
+    public String obtenerEstadoActual(LocalDate fecha) {
+        String estadoEvaluado = evaluarEstado(fecha);
         
-        if (proximoVencimiento == null) {
-            return "CANCELADA";
+        // Sin vencimiento se informa como cancelada pero se conserva el estado manual
+        if (foto.getProximoVencimiento() != null) {
+            cambiarEstado(estadoEvaluado);
         }
-        
-        // Si esta vencida
-        if (hoy.isAfter(proximoVencimiento)) {
-            this.estado = "SUSPENDIDA";
-            return "SUSPENDIDA";
+        return estadoEvaluado;
+    }
+    
+    // Calcula el estado que corresponde en la fecha indicada sin modificar la suscripcion,
+    // por lo que se puede evaluar desde varios hilos a la vez
+    public String evaluarEstado(LocalDate fecha) {
+        return foto.evaluarEstado(fecha);
+    }
+    
+    // Reemplaza la foto por la que arma el cambio y avisa al cliente si hubo cambio; retorna la foto anterior
+    private FotoSuscripcion cambiar(UnaryOperator<FotoSuscripcion> cambio) {
+        FotoSuscripcion anterior;
+        FotoSuscripcion nueva;
+        synchronized (this) {
+            anterior = foto;
+            nueva = cambio.apply(anterior);
+            foto = nueva;
         }
-        
-        // Si faltan 2 semanas o menos y no esta pagado el próximo mes
-        LocalDate dosSemantasAntes = proximoVencimiento.minusWeeks(2);
-        if (!pagado && (hoy.isEqual(dosSemantasAntes) || hoy.isAfter(dosSemantasAntes))) {
-            this.estado = "PROXIMA_A_VENCER";
-            return "PROXIMA_A_VENCER";
+        Cliente dueno = cliente;
+        if (dueno != null && nueva != anterior) {
+            dueno.suscripcionCambiada(this);
+        }
+        return anterior;
+    }
+    
+    // Actualiza el estado y avisa al listener solo si realmente cambio
+    private void cambiarEstado(String nuevoEstado) {
+        avisarEstado(cambiar(foto -> foto.conEstado(nuevoEstado)).getEstado(), nuevoEstado);
+    }
+    
+    // Actualiza el proximo vencimiento y avisa al listener solo si realmente cambio
+    private void cambiarVencimiento(LocalDate nuevoVencimiento) {
+        avisarVencimiento(cambiar(foto -> foto.conProximoVencimiento(nuevoVencimiento)).getProximoVencimiento(),
+                          nuevoVencimiento);
+    }
+    
+    private void avisarEstado(String anterior, String nuevoEstado) {
+        if (listener != null && !java.util.Objects.equals(anterior, nuevoEstado)) {
+            listener.estadoCambiado(this, anterior, nuevoEstado);
+        }
+    }
+    
+    private void avisarVencimiento(LocalDate anterior, LocalDate nuevoVencimiento) {
+        if (listener != null && !java.util.Objects.equals(anterior, nuevoVencimiento)) {
+            listener.vencimientoCambiado(this, anterior, nuevoVencimiento);
         }
-        
-        // Si todo esta bien, está activa
-        this.estado = "ACTIVA";
-        return "ACTIVA";
     }
     
     // -- SOBREESCRITURA DE METODOS --
     
     @Override
     public String toString() {
+        FotoSuscripcion foto = this.foto;
         return "Suscripcion{" +
-                "fechaInicio=" + fechaInicio +
-                ", fechaTermino=" + fechaTermino +
-                ", estado='" + estado + '\'' +
+                "fechaInicio=" + foto.getFechaInicio() +
+                ", fechaTermino=" + foto.getFechaTermino() +
+                ", estado='" + foto.getEstado() + '\'' +
                 ", cliente=" + (cliente != null ? cliente.getNombre() : "Sin cliente") +
-                ", plan=" + (plan != null ? plan.getNombrePlan() : "Sin plan") +
-                ", pagado=" + pagado +
-                ", proximoVencimiento=" + proximoVencimiento +
+                ", plan=" + (foto.getPlan() != null ? foto.getPlan().getNombrePlan() : "Sin plan") +
+                ", pagado=" + foto.isPagado() +
+                ", proximoVencimiento=" + foto.getProximoVencimiento() +
                 '}';
     }
     
@@ -174,14 +227,19 @@ public class Suscripcion {
         if (obj == null || getClass() != obj.getClass()) return false;
         
         Suscripcion that = (Suscripcion) obj;
+        PlanSector plan = getPlan();
+        PlanSector planOtro = that.getPlan();
+        Date fechaInicio = getFechaInicio();
         
         if (cliente != null ? !cliente.getRut().equals(that.cliente != null ? that.cliente.getRut() : null) : that.cliente != null) return false;
-        if (plan != null ? !plan.getCodigoPlan().equals(that.plan != null ? that.plan.getCodigoPlan() : null) : that.plan != null) return false;
-        return fechaInicio != null ? fechaInicio.equals(that.fechaInicio) : that.fechaInicio == null;
+        if (plan != null ? !plan.getCodigoPlan().equals(planOtro != null ? planOtro.getCodigoPlan() : null) : planOtro != null) return false;
+        return fechaInicio != null ? fechaInicio.equals(that.getFechaInicio()) : that.getFechaInicio() == null;
     }
     
     @Override
     public int hashCode() {
+        PlanSector plan = getPlan();
+        Date fechaInicio = getFechaInicio();
         int result = fechaInicio != null ? fechaInicio.hashCode() : 0;
         result = 31 * result + (cliente != null ? cliente.getRut().hashCode() : 0);
         result = 31 * result + (plan != null ? plan.getCodigoPlan().hashCode() : 0);
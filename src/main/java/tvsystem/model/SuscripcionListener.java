@@ -0,0 +1,21 @@
+package tvsystem.model;
+
+import java.time.LocalDate;
+
+/**
+ * Observador de los cambios de una suscripcion.
+ * Lo utilizan los repositorios para mantener sus indices secundarios al dia.
+ * 
+ * @author Maximiliano Rodriguez
+ */
+public interface SuscripcionListener {
+    
+    // Se invoca cuando el estado de la suscripcion cambia (manual o por fechas)
+    void estadoCambiado(Suscripcion suscripcion, String estadoAnterior, String estadoNuevo);
+    
+    // Se invoca cuando la suscripcion pasa a otro plan
+    void planCambiado(Suscripcion suscripcion, PlanSector planAnterior, PlanSector planNuevo);
+    
+    // Se invoca cuando cambia el proximo vencimiento (pago, edicion o cancelacion); null si no tiene
+    void vencimientoCambiado(Suscripcion suscripcion, LocalDate vencimientoAnterior, LocalDate vencimientoNuevo);
+}
\ No newline at end of file
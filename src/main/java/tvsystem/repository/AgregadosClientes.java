@@ -0,0 +1,168 @@
+package tvsystem.repository;
+
+import tvsystem.model.PlanSector;
+import tvsystem.model.Suscripcion;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Contadores de suscripciones ACTIVAS en total, por sector y por codigo de
+ * plan, mantenidos por ClienteRepository con cada alta, baja, cambio de
+ * estado o de plan, para que los paneles los lean sin recorrer clientes.
+ *
+ * Solo se guardan cantidades por codigo: los ingresos se obtienen
+ * multiplicando por el precio final del plan que entrega el repositorio de
+ * planes al momento de consultar, de modo que activar o desactivar una oferta
+ * se refleja sin recorrer clientes.
+ *
+ * Cada contador de sector tiene su propio candado y los de plan y el total
+ * son atomicos, asi que hilos que cambian clientes de sectores distintos no
+ * se esperan. Las sumas de varios sectores o planes no son una foto atomica.
+ *
+ * @author Elias Manriquez
+ */
+public class AgregadosClientes {
+    
+    private final Map<String, ContadoresSector> porSector;
+    private final Map<String, AtomicInteger> porPlan;
+    private final AtomicInteger activos;
+    
+    // Constructor
+    public AgregadosClientes() {
+        this.porSector = new ConcurrentHashMap<>();
+        this.porPlan = new ConcurrentHashMap<>();
+        this.activos = new AtomicInteger();
+    }
+    
+    // -- METODOS --
+    
+    public int contarActivos() {
+        return activos.get();
+    }
+    
+    public int contarActivosSector(String nombreSector) {
+        ContadoresSector contadores = porSector.get(nombreSector);
+        return contadores != null ? contadores.activos() : 0;
+    }
+    
+    public int contarActivosPlan(String codigoPlan) {
+        AtomicInteger contador = porPlan.get(codigoPlan);
+        return contador != null ? contador.get() : 0;
+    }
+    
+    // Ingresos mensuales de los clientes activos del sector, con el precio vigente de cada plan
+    public long calcularIngresosSector(String nombreSector, Function<String, PlanSector> planPorCodigo) {
+        ContadoresSector contadores = porSector.get(nombreSector);
+        return contadores != null ? contadores.ingresos(planPorCodigo) : 0;
+    }
+    
+    // Ingresos mensuales de los clientes activos del plan, con su precio vigente
+    public long calcularIngresosPlan(String codigoPlan, Function<String, PlanSector> planPorCodigo) {
+        int cantidad = contarActivosPlan(codigoPlan);
+        PlanSector plan = cantidad != 0 ? planPorCodigo.apply(codigoPlan) : null;
+        return plan != null ? cantidad * plan.calcularPrecioFinal() : 0;
+    }
+    
+    // Recorre los planes con clientes activos, no los clientes
+    public long calcularIngresosTotales(Function<String, PlanSector> planPorCodigo) {
+        long total = 0;
+        for (String codigoPlan : porPlan.keySet()) {
+            total += calcularIngresosPlan(codigoPlan, planPorCodigo);
+        }
+        return total;
+    }
+    
+    // --- ACTUALIZACIONES DESDE EL REPOSITORIO ---
+    
+    void clienteAgregado(String nombreSector, Suscripcion suscripcion) {
+        if (esActiva(suscripcion.getEstado())) {
+            sumar(nombreSector, suscripcion.getPlan(), 1);
+        }
+    }
+    
+    void clienteQuitado(String nombreSector, Suscripcion suscripcion) {
+        if (esActiva(suscripcion.getEstado())) {
+            sumar(nombreSector, suscripcion.getPlan(), -1);
+        }
+    }
+    
+    void estadoCambiado(String nombreSector, PlanSector plan, String estadoAnterior, String estadoNuevo) {
+        boolean antes = esActiva(estadoAnterior);
+        boolean ahora = esActiva(estadoNuevo);
+        if (antes != ahora) {
+            sumar(nombreSector, plan, ahora ? 1 : -1);
+        }
+    }
+    
+    void planCambiado(String nombreSector, String estado, PlanSector planAnterior, PlanSector planNuevo) {
+        if (esActiva(estado)) {
+            sumar(nombreSector, planAnterior, -1);
+            sumar(nombreSector, planNuevo, 1);
+        }
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Un cliente activo sin plan cuenta en el total y en su sector, pero no aporta ingresos
+    private void sumar(String nombreSector, PlanSector plan, int delta) {
+        activos.addAndGet(delta);
+        String codigoPlan = plan != null ? plan.getCodigoPlan() : null;
+        porSector.computeIfAbsent(nombreSector, k -> new ContadoresSector()).sumar(codigoPlan, delta);
+        if (codigoPlan != null) {
+            porPlan.computeIfAbsent(codigoPlan, k -> new AtomicInteger()).addAndGet(delta);
+        }
+    }
+    
+    private static boolean esActiva(String estado) {
+        return "ACTIVA".equalsIgnoreCase(estado);
+    }
+    
+    // --- CLASES DE DATOS PARA CONTADORES ---
+    
+    // Los clientes de un sector usan casi siempre sus 3 planes: arreglos cortos con busqueda lineal
+    private static class ContadoresSector {
+        private int activos;
+        private String[] codigos = new String[4];
+        private int[] cantidades = new int[4];
+        private int usados;
+        
+        synchronized int activos() {
+            return activos;
+        }
+        
+        synchronized void sumar(String codigoPlan, int delta) {
+            activos += delta;
+            if (codigoPlan == null) {
+                return;
+            }
+            for (int i = 0; i < usados; i++) {
+                if (codigos[i].equals(codigoPlan)) {
+                    cantidades[i] += delta;
+                    return;
+                }
+            }
+            if (usados == codigos.length) {
+                codigos = Arrays.copyOf(codigos, usados * 2);
+                cantidades = Arrays.copyOf(cantidades, usados * 2);
+            }
+            codigos[usados] = codigoPlan;
+            cantidades[usados++] = delta;
+        }
+        
+        // Un plan que ya no existe no aporta ingresos
+        synchronized long ingresos(Function<String, PlanSector> planPorCodigo) {
+            long total = 0;
+            for (int i = 0; i < usados; i++) {
+                PlanSector plan = cantidades[i] != 0 ? planPorCodigo.apply(codigos[i]) : null;
+                if (plan != null) {
+                    total += cantidades[i] * plan.calcularPrecioFinal();
+                }
+            }
+            return total;
+        }
+    }
+}
+    
\ No newline at end of file
@@ -1,52 +1,154 @@
 package tvsystem.repository;
 
 import tvsystem.model.Cliente;
+import tvsystem.model.FotoCliente;
+import tvsystem.model.PlanSector;
 import tvsystem.model.Sector;
+import tvsystem.model.Suscripcion;
+import tvsystem.model.SuscripcionListener;
+import tvsystem.util.IntHashMapConcurrente;
+import tvsystem.util.RutValidator;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para gestionar el acceso a datos de clientes.
+ * Mantiene un indice global por clave de RUT (cuerpo numerico, en un mapa
+ * de claves int sin objetos por entrada) para que las busquedas
+ * puntuales no dependan de la cantidad de sectores, e indices secundarios
+ * por estado de suscripcion y por plan que se actualizan con cada cambio.
+ * Con los mismos eventos mantiene los contadores de AgregadosClientes y el
+ * indice de vencimientos por dia.
+ * 
+ * Se puede usar desde varios hilos sin un candado global: el indice por RUT
+ * esta dividido en franjas con su propio candado, y las altas, bajas y
+ * modificaciones de un cliente se hacen con el candado de su franja tomado,
+ * asi que los cambios de un mismo cliente quedan en orden y los de clientes
+ * distintos avanzan en paralelo. Los indices secundarios son mapas
+ * concurrentes y cada sector protege sus propios clientes.
+ * 
+ * Despues de cada alta, baja o modificacion publica la foto inmutable del
+ * cliente (Cliente.getFoto, sin copiarlo) en las versiones de SectorRepository,
+ * con el mismo candado tomado, para que SectorRepository.foto() vea cada
+ * cliente completo y en el orden de sus cambios.
  * 
  * @author Maximiliano Rodriguez
  * @author Elias Manriquez
  */
-public class ClienteRepository {
+public class ClienteRepository implements SectorListener, SuscripcionListener {
     private SectorRepository sectorRepository;
     
+    // Indice primario: clave de RUT -> cliente y sector al que pertenece
+    private IntHashMapConcurrente<EntradaIndice> indicePorRut;
+    
+    // Indices secundarios: estado (en mayusculas) -> clientes y codigo de plan -> clientes
+    private Map<String, Set<Cliente>> indicePorEstado;
+    private Map<String, Set<Cliente>> indicePorPlan;
+    
+    // Clientes activos e ingresos por sector y por plan
+    private final AgregadosClientes agregados;
+    
+    // Clientes agrupados por dia de proximo vencimiento
+    private final VencimientoIndex vencimientos;
+    
+    // Versiones inmutables que se publican con cada cambio (ver SectorRepository.foto)
+    private final VersionesDatos versiones;
+    
     // Constructor
     public ClienteRepository(SectorRepository sectorRepository) {
         this.sectorRepository = sectorRepository;
+        this.indicePorRut = new IntHashMapConcurrente<>();
+        this.indicePorEstado = new ConcurrentHashMap<>();
+        this.indicePorPlan = new ConcurrentHashMap<>();
+        this.agregados = new AgregadosClientes();
+        this.vencimientos = new VencimientoIndex();
+        this.versiones = sectorRepository.getVersiones();
+        
+        // Indexar clientes de sectores ya existentes y escuchar cambios futuros
+        for (Sector sector : sectorRepository.findAllView()) {
+            indexarSector(sector);
+        }
+        sectorRepository.agregarListener(this);
     }
     
     // -- METODOS --
     
+    // Guarda el cliente en el sector indicado; si ya existia en otro sector se mueve.
+    // Los clientes sin RUT valido no se pueden indexar y se rechazan
     public boolean save(Cliente cliente, String nombreSector) {
         Sector sector = sectorRepository.findByNombre(nombreSector);
-        if (sector != null) {
-            sector.addCliente(cliente);
-            return true;
+        if (sector == null || cliente.getClaveRut() < 0) {
+            return false;
         }
-        return false;
+        
+        guardarEnSector(cliente, sector, false);
+        return true;
     }
     
-    public Cliente findByRut(String rut) {
-        for (Sector sector : sectorRepository.findAll()) {
-            Cliente cliente = sector.getCliente(rut);
-            if (cliente != null) {
-                return cliente;
+    // Guarda un lote de clientes en un mismo sector buscando el sector una sola vez
+    public int saveAll(List<Cliente> clientes, String nombreSector) {
+        Sector sector = sectorRepository.findByNombre(nombreSector);
+        if (sector == null) {
+            return 0;
+        }
+        
+        int guardados = 0;
+        List<EntradaIndice> lote = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            if (cliente.getClaveRut() >= 0) {
+                EntradaIndice entrada = guardarEnSector(cliente, sector, true);
+                if (entrada != null) {
+                    lote.add(entrada);
+                }
+                guardados++;
             }
         }
-        return null;
+        publicarLote(sector, lote);
+        return guardados;
+    }
+    
+    public Cliente findByRut(String rut) {
+        EntradaIndice entrada = buscarEntrada(rut);
+        return entrada != null ? entrada.cliente : null;
+    }
+    
+    // Busqueda directa por Cliente.getClaveRut, sin volver a leer el RUT
+    public Cliente findByClaveRut(int claveRut) {
+        EntradaIndice entrada = indicePorRut.get(claveRut);
+        return entrada != null ? entrada.cliente : null;
+    }
+    
+    // Retorna el sector donde esta registrado el cliente, o null si no existe
+    public Sector findSectorByRut(String rut) {
+        EntradaIndice entrada = buscarEntrada(rut);
+        return entrada != null ? entrada.sector : null;
     }
     
     public List<Cliente> findAll() {
-        List<Cliente> todosLosClientes = new ArrayList<>();
-        for (Sector sector : sectorRepository.findAll()) {
-            todosLosClientes.addAll(sector.getClientes());
+        List<Cliente> todosLosClientes = new ArrayList<>(indicePorRut.size());
+        for (Sector sector : sectorRepository.findAllView()) {
+            todosLosClientes.addAll(sector.getClientesView());
         }
         return todosLosClientes;
     }
     
+    // Recorre todos los clientes sin copiar; no agregar ni quitar clientes durante el recorrido
+    public Stream<Cliente> streamAll() {
+        return sectorRepository.findAllView().stream()
+            .flatMap(sector -> sector.getClientesView().stream());
+    }
+    
+    public void forEach(Consumer<Cliente> accion) {
+        for (Sector sector : sectorRepository.findAllView()) {
+            for (Cliente cliente : sector.getClientesView()) {
+                accion.accept(cliente);
+            }
+        }
+    }
+    
     public List<Cliente> findBySector(String nombreSector) {
         Sector sector = sectorRepository.findByNombre(nombreSector);
         if (sector != null) {
@@ -56,46 +158,341 @@ public class ClienteRepository {
     }
     
     public List<Cliente> findByEstadoSuscripcion(String estado) {
-        List<Cliente> clientesFiltrados = new ArrayList<>();
-        for (Cliente cliente : findAll()) {
-            if (cliente.getSuscripcion() != null && 
-                cliente.getSuscripcion().getEstado().equalsIgnoreCase(estado)) {
-                clientesFiltrados.add(cliente);
-            }
-        }
-        return clientesFiltrados;
+        Set<Cliente> clientes = indicePorEstado.get(claveEstado(estado));
+        return clientes != null ? new ArrayList<>(clientes) : new ArrayList<>();
     }
     
     public List<Cliente> findByPlan(String codigoPlan) {
-        List<Cliente> clientesFiltrados = new ArrayList<>();
-        for (Cliente cliente : findAll()) {
-            if (cliente.getSuscripcion() != null && 
-                cliente.getSuscripcion().getPlan().getCodigoPlan().equals(codigoPlan)) {
-                clientesFiltrados.add(cliente);
+        Set<Cliente> clientes = indicePorPlan.get(codigoPlan);
+        return clientes != null ? new ArrayList<>(clientes) : new ArrayList<>();
+    }
+    
+    public int countByEstadoSuscripcion(String estado) {
+        Set<Cliente> clientes = indicePorEstado.get(claveEstado(estado));
+        return clientes != null ? clientes.size() : 0;
+    }
+    
+    public int countByPlan(String codigoPlan) {
+        Set<Cliente> clientes = indicePorPlan.get(codigoPlan);
+        return clientes != null ? clientes.size() : 0;
+    }
+    
+    public boolean delete(String rut) {
+        if (rut == null) {
+            return false;
+        }
+        int clave = RutValidator.claveRut(rut);
+        synchronized (indicePorRut.candado(clave)) {
+            EntradaIndice entrada = indicePorRut.remove(clave);
+            if (entrada == null) {
+                return false;
             }
+            entrada.sector.removeCliente(entrada.cliente.getClaveRut());
+            desindexarSuscripcion(entrada.cliente, entrada.sector);
+            versiones.clienteQuitado(entrada.sector, clave);
+            return true;
         }
-        return clientesFiltrados;
     }
     
-    public boolean delete(String rut) {
-        for (Sector sector : sectorRepository.findAll()) {
-            if (sector.getCliente(rut) != null) {
-                sector.removeCliente(rut);
-                return true;
+    // Aplica la modificacion con el candado del RUT tomado, para que los cambios de un mismo
+    // cliente (y los de sus indices) no se mezclen con los de otro hilo. Retorna false si no existe
+    public boolean modificar(String rut, Consumer<Cliente> modificacion) {
+        return rut != null && modificar(RutValidator.claveRut(rut), modificacion);
+    }
+    
+    public boolean modificar(int claveRut, Consumer<Cliente> modificacion) {
+        return modificar(claveRut, modificacion, null);
+    }
+    
+    // Igual que modificar, pero una vez publicada la nueva version del cliente ejecuta la confirmacion
+    // con el candado aun tomado (por ejemplo registrar el cambio en la bitacora), de modo que cualquier
+    // foto tomada despues de confirmar ya incluye el cambio
+    public boolean modificar(int claveRut, Consumer<Cliente> modificacion, Consumer<Cliente> confirmacion) {
+        synchronized (indicePorRut.candado(claveRut)) {
+            EntradaIndice entrada = indicePorRut.get(claveRut);
+            if (entrada == null) {
+                return false;
+            }
+            modificacion.accept(entrada.cliente);
+            publicar(entrada, null);
+            if (confirmacion != null) {
+                confirmacion.accept(entrada.cliente);
             }
+            return true;
+        }
+    }
+    
+    // Cantidad de clientes por estado de suscripcion (estado en mayusculas)
+    public Map<String, Integer> countGroupedByEstado() {
+        Map<String, Integer> conteo = new TreeMap<>();
+        for (Map.Entry<String, Set<Cliente>> entry : indicePorEstado.entrySet()) {
+            conteo.put(entry.getKey(), entry.getValue().size());
         }
-        return false;
+        return conteo;
+    }
+    
+    public AgregadosClientes getAgregados() {
+        return agregados;
+    }
+    
+    public VencimientoIndex getVencimientos() {
+        return vencimientos;
     }
     
     public int countTotal() {
-        return findAll().size();
+        return indicePorRut.size();
     }
     
     public int countBySector(String nombreSector) {
-        return findBySector(nombreSector).size();
+        Sector sector = sectorRepository.findByNombre(nombreSector);
+        return sector != null ? sector.contarClientes() : 0;
     }
     
     public boolean exists(String rut) {
-        return findByRut(rut) != null;
+        return buscarEntrada(rut) != null;
+    }
+    
+    // -- SECTOR LISTENER --
+    
+    @Override
+    public void sectorGuardado(Sector sector) {
+        indexarSector(sector);
+    }
+    
+    @Override
+    public void sectorEliminado(Sector sector) {
+        for (Cliente cliente : sector.getClientesView()) {
+            int clave = cliente.getClaveRut();
+            synchronized (indicePorRut.candado(clave)) {
+                EntradaIndice entrada = indicePorRut.get(clave);
+                if (entrada != null && entrada.sector == sector) {
+                    indicePorRut.remove(clave);
+                    desindexarSuscripcion(cliente, sector);
+                }
+            }
+        }
+    }
+    
+    // -- SUSCRIPCION LISTENER --
+    
+    @Override
+    public void estadoCambiado(Suscripcion suscripcion, String estadoAnterior, String estadoNuevo) {
+        Cliente cliente = suscripcion.getCliente();
+        if (cliente == null) {
+            return;
+        }
+        quitarDeIndice(indicePorEstado, claveEstado(estadoAnterior), cliente);
+        agregarAIndice(indicePorEstado, claveEstado(estadoNuevo), cliente);
+        
+        Sector sector = sectorDe(cliente);
+        if (sector != null) {
+            agregados.estadoCambiado(sector.getNombre(), suscripcion.getPlan(), estadoAnterior, estadoNuevo);
+        }
+        publicarFueraDeModificar(cliente);
+    }
+    
+    @Override
+    public void planCambiado(Suscripcion suscripcion, PlanSector planAnterior, PlanSector planNuevo) {
+        Cliente cliente = suscripcion.getCliente();
+        if (cliente == null) {
+            return;
+        }
+        if (planAnterior != null) {
+            quitarDeIndice(indicePorPlan, planAnterior.getCodigoPlan(), cliente);
+        }
+        if (planNuevo != null) {
+            agregarAIndice(indicePorPlan, planNuevo.getCodigoPlan(), cliente);
+        }
+        
+        Sector sector = sectorDe(cliente);
+        if (sector != null) {
+            agregados.planCambiado(sector.getNombre(), suscripcion.getEstado(), planAnterior, planNuevo);
+        }
+        publicarFueraDeModificar(cliente);
+    }
+    
+    @Override
+    public void vencimientoCambiado(Suscripcion suscripcion, LocalDate vencimientoAnterior, LocalDate vencimientoNuevo) {
+        Cliente cliente = suscripcion.getCliente();
+        if (cliente != null) {
+            vencimientos.mover(cliente, vencimientoAnterior, vencimientoNuevo);
+            publicarFueraDeModificar(cliente);
+        }
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private EntradaIndice buscarEntrada(String rut) {
+        if (rut == null) {
+            return null;
+        }
+        return indicePorRut.get(RutValidator.claveRut(rut));
+    }
+    
+    // Sector registrado para el cliente, solo si es esa misma instancia la que esta indexada
+    private Sector sectorDe(Cliente cliente) {
+        EntradaIndice entrada = indicePorRut.get(cliente.getClaveRut());
+        return entrada != null && entrada.cliente == cliente ? entrada.sector : null;
+    }
+    
+    // En lote la publicacion queda pendiente y se retorna la entrada para publicarLote,
+    // salvo que el cliente venga de otro sector (ahi se publica el cambio de sector de una vez)
+    private EntradaIndice guardarEnSector(Cliente cliente, Sector sector, boolean enLote) {
+        int clave = cliente.getClaveRut();
+        synchronized (indicePorRut.candado(clave)) {
+            EntradaIndice anterior = indicePorRut.get(clave);
+            if (anterior != null) {
+                anterior.sector.removeCliente(anterior.cliente.getClaveRut());
+                desindexarSuscripcion(anterior.cliente, anterior.sector);
+            }
+            sector.addCliente(cliente);
+            EntradaIndice entrada = new EntradaIndice(cliente, sector);
+            indicePorRut.put(clave, entrada);
+            indexarSuscripcion(cliente, sector);
+            return registrarPublicacion(entrada, anterior, enLote);
+        }
+    }
+    
+    private void indexarSector(Sector sector) {
+        Collection<Cliente> clientes = sector.getClientesView();
+        List<EntradaIndice> lote = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            int clave = cliente.getClaveRut();
+            synchronized (indicePorRut.candado(clave)) {
+                EntradaIndice entrada = new EntradaIndice(cliente, sector);
+                EntradaIndice anterior = indicePorRut.put(clave, entrada);
+                if (anterior != null) {
+                    desindexarSuscripcion(anterior.cliente, anterior.sector);
+                }
+                indexarSuscripcion(cliente, sector);
+                EntradaIndice pendiente = registrarPublicacion(entrada, anterior, true);
+                if (pendiente != null) {
+                    lote.add(pendiente);
+                }
+            }
+        }
+        publicarLote(sector, lote);
+    }
+    
+    private EntradaIndice registrarPublicacion(EntradaIndice entrada, EntradaIndice anterior, boolean enLote) {
+        Sector sectorAnterior = anterior != null ? anterior.sector : null;
+        if (!enLote || (sectorAnterior != null && sectorAnterior != entrada.sector)) {
+            publicar(entrada, sectorAnterior);
+            return null;
+        }
+        entrada.pendiente = true;
+        return entrada;
+    }
+    
+    // Publica los clientes del lote en una sola version del sector. Si entretanto otro hilo publico,
+    // quito o movio alguno, la foto del lote puede ser anterior a la suya: esos se vuelven a
+    // publicar (o a quitar) con su candado, despues del lote
+    private void publicarLote(Sector sector, List<EntradaIndice> lote) {
+        List<FotoCliente> fotos = new ArrayList<>(lote.size());
+        for (EntradaIndice entrada : lote) {
+            fotos.add(entrada.cliente.getFoto());
+        }
+        versiones.clientesGuardados(sector, fotos);
+        
+        for (EntradaIndice entrada : lote) {
+            int clave = entrada.cliente.getClaveRut();
+            synchronized (indicePorRut.candado(clave)) {
+                EntradaIndice actual = indicePorRut.get(clave);
+                if (actual == entrada && entrada.pendiente) {
+                    entrada.pendiente = false;
+                } else if (actual != null) {
+                    publicar(actual, entrada.sector);
+                } else {
+                    versiones.clienteQuitado(entrada.sector, clave);
+                }
+            }
+        }
+    }
+    
+    // Publica la foto del cliente en la version de su sector; se llama con el candado de su RUT tomado
+    private void publicar(EntradaIndice entrada, Sector sectorAnterior) {
+        entrada.pendiente = false;
+        versiones.clienteGuardado(sectorAnterior, entrada.sector, entrada.cliente.getFoto());
+    }
+    
+    // Cambios que llegan por el listener sin pasar por modificar (por ejemplo al reproducir la bitacora).
+    // Dentro de modificar no se publica cada evento: se publica una sola vez al terminar
+    private void publicarFueraDeModificar(Cliente cliente) {
+        Object candado = indicePorRut.candado(cliente.getClaveRut());
+        if (Thread.holdsLock(candado)) {
+            return;
+        }
+        synchronized (candado) {
+            EntradaIndice entrada = indicePorRut.get(cliente.getClaveRut());
+            if (entrada != null && entrada.cliente == cliente) {
+                publicar(entrada, null);
+            }
+        }
+    }
+    
+    // Registra la suscripcion del cliente en los indices secundarios y se suscribe a sus cambios
+    private void indexarSuscripcion(Cliente cliente, Sector sector) {
+        Suscripcion suscripcion = cliente.getSuscripcion();
+        if (suscripcion == null) {
+            return;
+        }
+        suscripcion.setListener(this);
+        agregados.clienteAgregado(sector.getNombre(), suscripcion);
+        vencimientos.agregar(suscripcion.getProximoVencimiento(), cliente);
+        agregarAIndice(indicePorEstado, claveEstado(suscripcion.getEstado()), cliente);
+        if (suscripcion.getPlan() != null) {
+            agregarAIndice(indicePorPlan, suscripcion.getPlan().getCodigoPlan(), cliente);
+        }
+    }
+    
+    private void desindexarSuscripcion(Cliente cliente, Sector sector) {
+        Suscripcion suscripcion = cliente.getSuscripcion();
+        if (suscripcion == null) {
+            return;
+        }
+        if (suscripcion.getListener() == this) {
+            suscripcion.setListener(null);
+        }
+        agregados.clienteQuitado(sector.getNombre(), suscripcion);
+        vencimientos.quitar(suscripcion.getProximoVencimiento(), cliente);
+        quitarDeIndice(indicePorEstado, claveEstado(suscripcion.getEstado()), cliente);
+        if (suscripcion.getPlan() != null) {
+            quitarDeIndice(indicePorPlan, suscripcion.getPlan().getCodigoPlan(), cliente);
+        }
+    }
+    
+    // compute es atomico por clave: un conjunto vacio no se quita mientras otro hilo le agrega
+    private static void agregarAIndice(Map<String, Set<Cliente>> indice, String clave, Cliente cliente) {
+        indice.compute(clave, (k, clientes) -> {
+            Set<Cliente> conjunto = clientes != null ? clientes : ConcurrentHashMap.newKeySet();
+            conjunto.add(cliente);
+            return conjunto;
+        });
+    }
+    
+    private static void quitarDeIndice(Map<String, Set<Cliente>> indice, String clave, Cliente cliente) {
+        indice.computeIfPresent(clave, (k, clientes) -> {
+            clientes.remove(cliente);
+            return clientes.isEmpty() ? null : clientes;
+        });
+    }
+    
+    private static String claveEstado(String estado) {
+        return estado != null ? estado.toUpperCase() : "";
+    }
+    
+    // --- CLASES DE DATOS PARA INDICES ---
+    
+    private static class EntradaIndice {
+        final Cliente cliente;
+        final Sector sector;
+        
+        // Guardado en un lote cuya version aun no se publica; se cambia con el candado del RUT
+        boolean pendiente;
+        
+        EntradaIndice(Cliente cliente, Sector sector) {
+            this.cliente = cliente;
+            this.sector = sector;
+        }
     }
 }
\ No newline at end of file
@@ -3,101 +3,190 @@ package tvsystem.repository;
 import tvsystem.model.PlanSector;
 import tvsystem.model.Sector;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para gestionar el acceso a datos de planes.
+ * Los codigos de plan son unicos en todo el sistema, por lo que se indexan
+ * en un mapa plano codigo -> plan y en una agrupacion por sector.
+ * Las consultas no toman candados; los cambios de planes (pocos y poco
+ * frecuentes) se hacen de a uno.
  * 
  * @author Elias Manriquez
  */
-public class PlanRepository {
+public class PlanRepository implements SectorListener {
     private SectorRepository sectorRepository;
     
+    // Indice global: codigo de plan -> plan y sector que lo ofrece
+    private Map<String, EntradaPlan> indicePorCodigo;
+    
+    // Agrupacion incremental: nombre de sector -> planes del sector
+    private Map<String, List<PlanSector>> planesPorSector;
+    
     // Constructor
     public PlanRepository(SectorRepository sectorRepository) {
         this.sectorRepository = sectorRepository;
+        this.indicePorCodigo = new ConcurrentHashMap<>();
+        this.planesPorSector = new ConcurrentHashMap<>();
+        
+        // Indexar planes de sectores ya existentes y escuchar cambios futuros
+        for (Sector sector : sectorRepository.findAllView()) {
+            indexarSector(sector);
+        }
+        sectorRepository.agregarListener(this);
     }
     
     // -- METODOS --
     
-    public boolean save(PlanSector plan, String nombreSector) {
+    public synchronized boolean save(PlanSector plan, String nombreSector) {
         Sector sector = sectorRepository.findByNombre(nombreSector);
         if (sector != null) {
+            EntradaPlan anterior = indicePorCodigo.get(plan.getCodigoPlan());
+            if (anterior != null) {
+                anterior.sector.removePlan(plan.getCodigoPlan());
+                desindexar(anterior);
+            }
             sector.addPlan(plan.getCodigoPlan(), plan);
+            indexar(plan, sector);
             return true;
         }
         return false;
     }
     
     public PlanSector findByCodigo(String codigo) {
-        for (Sector sector : sectorRepository.findAll()) {
-            PlanSector plan = sector.getPlan(codigo);
-            if (plan != null) {
-                return plan;
-            }
-        }
-        return null;
+        EntradaPlan entrada = indicePorCodigo.get(codigo);
+        return entrada != null ? entrada.plan : null;
     }
     
     public List<PlanSector> findBySector(String nombreSector) {
-        Sector sector = sectorRepository.findByNombre(nombreSector);
-        if (sector != null) {
-            return new ArrayList<>(sector.getPlanesDisponibles().values());
-        }
-        return new ArrayList<>();
+        List<PlanSector> planes = planesPorSector.get(nombreSector.toUpperCase());
+        return planes != null ? new ArrayList<>(planes) : new ArrayList<>();
     }
     
     public List<PlanSector> findAll() {
-        List<PlanSector> todosLosPlanes = new ArrayList<>();
-        for (Sector sector : sectorRepository.findAll()) {
-            todosLosPlanes.addAll(sector.getPlanesDisponibles().values());
+        List<PlanSector> todosLosPlanes = new ArrayList<>(indicePorCodigo.size());
+        for (EntradaPlan entrada : indicePorCodigo.values()) {
+            todosLosPlanes.add(entrada.plan);
         }
         return todosLosPlanes;
     }
     
+    // Recorre todos los planes sin copiar
+    public Stream<PlanSector> streamAll() {
+        return indicePorCodigo.values().stream().map(entrada -> entrada.plan);
+    }
+    
     public List<PlanSector> findByOfertaActiva() {
         List<PlanSector> planesConOferta = new ArrayList<>();
-        for (PlanSector plan : findAll()) {
-            if (plan.getOfertaActiva()) {
-                planesConOferta.add(plan);
+        for (EntradaPlan entrada : indicePorCodigo.values()) {
+            if (entrada.plan.getOfertaActiva()) {
+                planesConOferta.add(entrada.plan);
             }
         }
         return planesConOferta;
     }
     
     public Map<String, List<PlanSector>> findAllGroupedBySector() {
-        Map<String, List<PlanSector>> planesPorSector = new HashMap<>();
-        for (Sector sector : sectorRepository.findAll()) {
-            planesPorSector.put(sector.getNombre(), 
-                new ArrayList<>(sector.getPlanesDisponibles().values()));
+        Map<String, List<PlanSector>> agrupados = new HashMap<>();
+        for (Map.Entry<String, List<PlanSector>> entry : planesPorSector.entrySet()) {
+            agrupados.put(entry.getKey(), new ArrayList<>(entry.getValue()));
         }
-        return planesPorSector;
+        return agrupados;
     }
     
-    public boolean delete(String codigo) {
-        for (Sector sector : sectorRepository.findAll()) {
-            if (sector.getPlan(codigo) != null) {
-                sector.removePlan(codigo);
-                return true;
-            }
+    public synchronized boolean delete(String codigo) {
+        EntradaPlan entrada = indicePorCodigo.get(codigo);
+        if (entrada == null) {
+            return false;
         }
-        return false;
+        entrada.sector.removePlan(codigo);
+        desindexar(entrada);
+        return true;
     }
     
     public boolean exists(String codigo) {
-        return findByCodigo(codigo) != null;
+        return indicePorCodigo.containsKey(codigo);
+    }
+    
+    public int count() {
+        return indicePorCodigo.size();
     }
     
     public void activarOfertaPorSector(String nombreSector, double descuento) {
-        List<PlanSector> planes = findBySector(nombreSector);
-        for (PlanSector plan : planes) {
-            plan.activarOferta(descuento);
+        List<PlanSector> planes = planesPorSector.get(nombreSector.toUpperCase());
+        if (planes != null) {
+            for (PlanSector plan : planes) {
+                plan.activarOferta(descuento);
+            }
         }
     }
     
     public void desactivarOfertaPorSector(String nombreSector) {
-        List<PlanSector> planes = findBySector(nombreSector);
-        for (PlanSector plan : planes) {
-            plan.desactivarOferta();
+        List<PlanSector> planes = planesPorSector.get(nombreSector.toUpperCase());
+        if (planes != null) {
+            for (PlanSector plan : planes) {
+                plan.desactivarOferta();
+            }
+        }
+    }
+    
+    // -- SECTOR LISTENER --
+    
+    @Override
+    public synchronized void sectorGuardado(Sector sector) {
+        indexarSector(sector);
+    }
+    
+    @Override
+    public synchronized void sectorEliminado(Sector sector) {
+        for (PlanSector plan : sector.getPlanesView()) {
+            EntradaPlan entrada = indicePorCodigo.get(plan.getCodigoPlan());
+            if (entrada != null && entrada.sector == sector) {
+                desindexar(entrada);
+            }
+        }
+        planesPorSector.remove(sector.getNombre());
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private void indexarSector(Sector sector) {
+        for (PlanSector plan : sector.getPlanesView()) {
+            EntradaPlan anterior = indicePorCodigo.get(plan.getCodigoPlan());
+            if (anterior != null) {
+                desindexar(anterior);
+            }
+            indexar(plan, sector);
+        }
+    }
+    
+    private void indexar(PlanSector plan, Sector sector) {
+        indicePorCodigo.put(plan.getCodigoPlan(), new EntradaPlan(plan, sector));
+        planesPorSector.computeIfAbsent(sector.getNombre(), k -> new CopyOnWriteArrayList<>()).add(plan);
+    }
+    
+    private void desindexar(EntradaPlan entrada) {
+        indicePorCodigo.remove(entrada.plan.getCodigoPlan());
+        List<PlanSector> planes = planesPorSector.get(entrada.sector.getNombre());
+        if (planes != null) {
+            planes.remove(entrada.plan);
+            if (planes.isEmpty()) {
+                planesPorSector.remove(entrada.sector.getNombre());
+            }
+        }
+    }
+    
+    // --- CLASES DE DATOS PARA INDICES ---
+    
+    private static class EntradaPlan {
+        final PlanSector plan;
+        final Sector sector;
+        
+        EntradaPlan(PlanSector plan, Sector sector) {
+            this.plan = plan;
+            this.sector = sector;
         }
     }
 }
\ No newline at end of file
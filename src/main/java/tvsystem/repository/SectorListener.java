@@ -0,0 +1,18 @@
+package tvsystem.repository;
+
+import tvsystem.model.Sector;
+
+/**
+ * Observador de los cambios en el repositorio de sectores.
+ * Permite a otros repositorios mantener sus indices al agregar o quitar sectores.
+ *
+ * @author Elias Manriquez
+ */
+public interface SectorListener {
+    
+    // Se invoca despues de guardar un sector en el repositorio
+    void sectorGuardado(Sector sector);
+    
+    // Se invoca despues de quitar un sector del repositorio
+    void sectorEliminado(Sector sector);
+}
\ No newline at end of file
@@ -2,24 +2,56 @@ package tvsystem.repository;
 
 import tvsystem.model.Sector;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Repositorio para gestionar el acceso a datos de sectores.
+ * Las consultas no toman candados (mapa concurrente) y se pueden hacer desde
+ * cualquier hilo; agregar o quitar sectores se hace de a uno para que los
+ * listeners reciban los avisos en el mismo orden de los cambios.
+ * 
+ * Tambien guarda la ultima version publicada de sectores y clientes, de la que
+ * foto() entrega una vista inmutable para leer todo desde otro hilo.
  * 
  * @author Elias Manriquez
  */
 public class SectorRepository {
     private Map<String, Sector> sectores;
+    private Collection<Sector> sectoresView;
+    private List<SectorListener> listeners;
+    private final VersionesDatos versiones;
     
     // Constructor
     public SectorRepository() {
-        this.sectores = new HashMap<>();
+        this.sectores = new ConcurrentHashMap<>();
+        this.sectoresView = Collections.unmodifiableCollection(sectores.values());
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.versiones = new VersionesDatos();
+    }
+    
+    // -- LISTENERS --
+    
+    public void agregarListener(SectorListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void quitarListener(SectorListener listener) {
+        listeners.remove(listener);
     }
     
     // -- METODOS --
 
-    public void save(Sector sector) {
-        sectores.put(sector.getNombre(), sector);
+    public synchronized void save(Sector sector) {
+        // La version del sector existe antes de que otro hilo pueda encontrarlo y agregarle clientes
+        versiones.sectorGuardado(sector);
+        Sector anterior = sectores.put(sector.getNombre(), sector);
+        if (anterior != null && anterior != sector) {
+            notificarEliminado(anterior);
+        }
+        for (SectorListener listener : listeners) {
+            listener.sectorGuardado(sector);
+        }
     }
     
     public Sector findByNombre(String nombre) {
@@ -30,6 +62,11 @@ public class SectorRepository {
         return new ArrayList<>(sectores.values());
     }
     
+    // Vista de solo lectura sin copia; se puede recorrer mientras otro hilo agrega o quita sectores
+    public Collection<Sector> findAllView() {
+        return sectoresView;
+    }
+    
     public List<String> findAllNombres() {
         return new ArrayList<>(sectores.keySet());
     }
@@ -38,12 +75,21 @@ public class SectorRepository {
         return sectores.containsKey(nombre.toUpperCase());
     }
     
-    public void delete(String nombre) {
-        sectores.remove(nombre.toUpperCase());
+    public synchronized void delete(String nombre) {
+        Sector eliminado = sectores.remove(nombre.toUpperCase());
+        if (eliminado != null) {
+            versiones.sectorEliminado(eliminado);
+            notificarEliminado(eliminado);
+        }
     }
     
-    public void deleteAll() {
+    public synchronized void deleteAll() {
+        List<Sector> eliminados = new ArrayList<>(sectores.values());
         sectores.clear();
+        for (Sector sector : eliminados) {
+            versiones.sectorEliminado(sector);
+            notificarEliminado(sector);
+        }
     }
     
     public int count() {
@@ -63,4 +109,22 @@ public class SectorRepository {
     public Map<String, Sector> getSectoresMap() {
         return new HashMap<>(sectores);
     }
+    
+    // Foto inmutable de sectores, clientes y planes; tomarla no copia los clientes
+    public VersionDatos foto() {
+        return versiones.foto(sectores.values());
+    }
+    
+    // Para que ClienteRepository publique los cambios de clientes
+    VersionesDatos getVersiones() {
+        return versiones;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private void notificarEliminado(Sector sector) {
+        for (SectorListener listener : listeners) {
+            listener.sectorEliminado(sector);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package tvsystem.repository;
+
+import tvsystem.model.Cliente;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice de clientes ordenado por el dia de su proximo vencimiento.
+ *
+ * Agrupa los clientes por dia (epoch day) en un mapa ordenado, de modo que
+ * las consultas por rango de fechas solo recorren los dias del rango y los
+ * clientes que contienen. Lo mantiene ClienteRepository con cada alta, baja,
+ * pago, cambio de vencimiento o cancelacion. Las suscripciones sin
+ * vencimiento (canceladas) no aparecen; las suspendidas si, porque su
+ * vencimiento sigue importando al consultar, y quien evalua estados las
+ * descarta por su cuenta.
+ *
+ * Tiene su propio candado de lectura/escritura: las consultas copian el
+ * resultado con el candado de lectura y pueden correr en paralelo.
+ *
+ * @author Elias Manriquez
+ */
+public class VencimientoIndex {
+    
+    private final NavigableMap<Long, Set<Cliente>> porDia;
+    private int total;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Constructor
+    public VencimientoIndex() {
+        this.porDia = new TreeMap<>();
+    }
+    
+    // -- METODOS --
+    
+    // Clientes que vencen entre ambas fechas (inclusive), ordenados por vencimiento
+    public List<Cliente> buscarEntre(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return juntar(porDia.subMap(desde.toEpochDay(), true, hasta.toEpochDay(), true));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Clientes cuyo vencimiento ya paso a la fecha indicada, del mas antiguo al mas reciente
+    public List<Cliente> buscarVencidos(LocalDate fecha) {
+        lock.readLock().lock();
+        try {
+            return juntar(porDia.headMap(fecha.toEpochDay(), false));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Clientes que vencen hasta la fecha indicada (inclusive), incluidos los ya vencidos
+    public List<Cliente> buscarHasta(LocalDate fecha) {
+        lock.readLock().lock();
+        try {
+            return juntar(porDia.headMap(fecha.toEpochDay(), true));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int contarEntre(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return contar(porDia.subMap(desde.toEpochDay(), true, hasta.toEpochDay(), true));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int contarVencidos(LocalDate fecha) {
+        lock.readLock().lock();
+        try {
+            return contar(porDia.headMap(fecha.toEpochDay(), false));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Fecha de vencimiento mas cercana registrada, o null si el indice esta vacio
+    public LocalDate primerVencimiento() {
+        lock.readLock().lock();
+        try {
+            return porDia.isEmpty() ? null : LocalDate.ofEpochDay(porDia.firstKey());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int contarTotal() {
+        lock.readLock().lock();
+        try {
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // --- ACTUALIZACIONES DESDE EL REPOSITORIO ---
+    
+    void agregar(LocalDate vencimiento, Cliente cliente) {
+        if (vencimiento == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            agregarSinCandado(vencimiento.toEpochDay(), cliente);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void quitar(LocalDate vencimiento, Cliente cliente) {
+        if (vencimiento == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            quitarSinCandado(vencimiento.toEpochDay(), cliente);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Quita y agrega con una sola toma del candado, sin que una consulta vea al cliente a medio mover
+    void mover(Cliente cliente, LocalDate anterior, LocalDate nuevo) {
+        lock.writeLock().lock();
+        try {
+            if (anterior != null) {
+                quitarSinCandado(anterior.toEpochDay(), cliente);
+            }
+            if (nuevo != null) {
+                agregarSinCandado(nuevo.toEpochDay(), cliente);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private void agregarSinCandado(long dia, Cliente cliente) {
+        if (porDia.computeIfAbsent(dia, k -> new HashSet<>()).add(cliente)) {
+            total++;
+        }
+    }
+    
+    private void quitarSinCandado(long dia, Cliente cliente) {
+        Set<Cliente> delDia = porDia.get(dia);
+        if (delDia != null && delDia.remove(cliente)) {
+            total--;
+            if (delDia.isEmpty()) {
+                porDia.remove(dia);
+            }
+        }
+    }
+    
+    private static List<Cliente> juntar(Map<Long, Set<Cliente>> dias) {
+        List<Cliente> clientes = new ArrayList<>();
+        for (Set<Cliente> delDia : dias.values()) {
+            clientes.addAll(delDia);
+        }
+        return clientes;
+    }
+    
+    private static int contar(Map<Long, Set<Cliente>> dias) {
+        int cantidad = 0;
+        for (Set<Cliente> delDia : dias.values()) {
+            cantidad += delDia.size();
+        }
+        return cantidad;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+package tvsystem.repository;
+
+import tvsystem.model.FotoCliente;
+import tvsystem.model.FotoSuscripcion;
+import tvsystem.model.PlanSector;
+import tvsystem.model.Sector;
+import tvsystem.util.MapaPersistenteInt;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Foto inmutable de los sectores, sus clientes y sus planes en un instante.
+ *
+ * Se pide con SectorRepository.foto() y no cuesta copiar nada: los
+ * repositorios publican cada cambio como una nueva version que comparte con
+ * la anterior todo lo que no cambio. Los clientes de la foto son las
+ * FotoCliente inmutables de cada cliente (las mismas que tiene el cliente
+ * vivo, no copias) y los planes van congelados, asi que un reporte o un
+ * guardado puede recorrerla completa desde otro hilo sin candados y sin ver
+ * cambios a medias, mientras la interfaz sigue modificando los datos.
+ *
+ * Los conteos por estado y por plan de cada sector se calculan la primera vez
+ * que se piden y se reutilizan en las versiones siguientes mientras el sector
+ * no cambie.
+ *
+ * @author Elias Manriquez
+ */
+public final class VersionDatos {
+    
+    private final long numero;
+    private final List<VersionSector> sectores;
+    private final Map<String, PlanSector> planes;
+    
+    // Constructor; los planes llegan congelados y sin modificar
+    VersionDatos(long numero, List<VersionSector> sectores, Map<String, PlanSector> planes) {
+        this.numero = numero;
+        this.sectores = Collections.unmodifiableList(sectores);
+        this.planes = planes;
+    }
+    
+    // -- METODOS --
+    
+    // Numero de la version; crece con cada cambio publicado
+    public long getNumero() {
+        return numero;
+    }
+    
+    // Sectores en el orden del repositorio al tomar la foto
+    public List<VersionSector> getSectores() {
+        return sectores;
+    }
+    
+    public VersionSector getSector(String nombre) {
+        for (VersionSector sector : sectores) {
+            if (sector.nombre.equalsIgnoreCase(nombre)) {
+                return sector;
+            }
+        }
+        return null;
+    }
+    
+    // Copia del plan tal como estaba al tomar la foto, o null si no existia
+    public PlanSector getPlan(String codigo) {
+        return planes.get(codigo);
+    }
+    
+    public Collection<PlanSector> getPlanes() {
+        return planes.values();
+    }
+    
+    // Plan congelado de la suscripcion del cliente; el del propio cliente si ya no esta en la foto
+    public PlanSector planDe(FotoCliente cliente) {
+        FotoSuscripcion suscripcion = cliente.getSuscripcion();
+        PlanSector plan = suscripcion != null ? suscripcion.getPlan() : null;
+        if (plan == null) {
+            return null;
+        }
+        PlanSector congelado = planes.get(plan.getCodigoPlan());
+        return congelado != null ? congelado : plan;
+    }
+    
+    public int contarClientes() {
+        int total = 0;
+        for (VersionSector sector : sectores) {
+            total += sector.contarClientes();
+        }
+        return total;
+    }
+    
+    // Todos los clientes, sector por sector
+    public Iterable<FotoCliente> getClientes() {
+        return () -> new Iterator<FotoCliente>() {
+            private final Iterator<VersionSector> sectoresRestantes = sectores.iterator();
+            private Iterator<FotoCliente> actual = Collections.emptyIterator();
+            
+            @Override
+            public boolean hasNext() {
+                while (!actual.hasNext() && sectoresRestantes.hasNext()) {
+                    actual = sectoresRestantes.next().clientes.iterator();
+                }
+                return actual.hasNext();
+            }
+            
+            @Override
+            public FotoCliente next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return actual.next();
+            }
+        };
+    }
+    
+    public void forEachCliente(Consumer<FotoCliente> accion) {
+        for (VersionSector sector : sectores) {
+            sector.clientes.forEachValue(accion);
+        }
+    }
+    
+    public FotoCliente findByClaveRut(int claveRut) {
+        for (VersionSector sector : sectores) {
+            FotoCliente cliente = sector.clientes.get(claveRut);
+            if (cliente != null) {
+                return cliente;
+            }
+        }
+        return null;
+    }
+    
+    // Cantidad de clientes por estado de suscripcion (estado en mayusculas), igual que ClienteRepository
+    public Map<String, Integer> contarClientesPorEstado() {
+        Map<String, Integer> conteo = new TreeMap<>();
+        for (VersionSector sector : sectores) {
+            for (Map.Entry<String, Integer> entry : sector.conteos().porEstado.entrySet()) {
+                conteo.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        return conteo;
+    }
+    
+    public int contarClientesPorPlan(String codigoPlan) {
+        int total = 0;
+        for (VersionSector sector : sectores) {
+            total += sector.contarClientesPorPlan(codigoPlan);
+        }
+        return total;
+    }
+    
+    public int contarClientesActivosPorPlan(String codigoPlan) {
+        int total = 0;
+        for (VersionSector sector : sectores) {
+            total += sector.contarClientesActivosPorPlan(codigoPlan);
+        }
+        return total;
+    }
+    
+    // --- CLASES DE DATOS PARA VERSIONES ---
+    
+    // Clientes de un sector en una version; cambiar un cliente crea otra VersionSector
+    public static final class VersionSector {
+        private final String nombre;
+        private final Sector origen;
+        private final MapaPersistenteInt<FotoCliente> clientes;
+        private volatile Conteos conteos;
+        
+        VersionSector(String nombre, Sector origen, MapaPersistenteInt<FotoCliente> clientes) {
+            this.nombre = nombre;
+            this.origen = origen;
+            this.clientes = clientes;
+        }
+        
+        public String getNombre() {
+            return nombre;
+        }
+        
+        public int contarClientes() {
+            return clientes.size();
+        }
+        
+        public int contarClientes(String estado) {
+            Integer cantidad = conteos().porEstado.get(estado != null ? estado.toUpperCase() : "");
+            return cantidad != null ? cantidad : 0;
+        }
+        
+        // Recorre los clientes en orden de hash del RUT
+        public Iterable<FotoCliente> getClientes() {
+            return clientes;
+        }
+        
+        public FotoCliente getCliente(int claveRut) {
+            return clientes.get(claveRut);
+        }
+        
+        // Calcula ahora los conteos del sector (si no estaban), para repartir los de varios sectores entre hilos
+        public void prepararConteos() {
+            conteos();
+        }
+        
+        public int contarClientesPorPlan(String codigoPlan) {
+            int[] cantidades = conteos().porPlan.get(codigoPlan);
+            return cantidades != null ? cantidades[0] : 0;
+        }
+        
+        public int contarClientesActivosPorPlan(String codigoPlan) {
+            int[] cantidades = conteos().porPlan.get(codigoPlan);
+            return cantidades != null ? cantidades[1] : 0;
+        }
+        
+        // --- Usado por VersionesDatos ---
+        
+        boolean esDe(Sector sector) {
+            return origen == sector;
+        }
+        
+        Sector getOrigen() {
+            return origen;
+        }
+        
+        VersionSector con(FotoCliente foto) {
+            MapaPersistenteInt<FotoCliente> nuevos = clientes.con(foto.getClaveRut(), foto);
+            return nuevos == clientes ? this : new VersionSector(nombre, origen, nuevos);
+        }
+        
+        VersionSector conTodos(List<FotoCliente> fotos) {
+            MapaPersistenteInt<FotoCliente> nuevos = clientes;
+            for (FotoCliente foto : fotos) {
+                nuevos = nuevos.con(foto.getClaveRut(), foto);
+            }
+            return nuevos == clientes ? this : new VersionSector(nombre, origen, nuevos);
+        }
+        
+        VersionSector sin(int claveRut) {
+            MapaPersistenteInt<FotoCliente> nuevos = clientes.sin(claveRut);
+            return nuevos == clientes ? this : new VersionSector(nombre, origen, nuevos);
+        }
+        
+        // Si dos hilos lo piden a la vez ambos calculan lo mismo; se queda el ultimo
+        private Conteos conteos() {
+            Conteos calculados = conteos;
+            if (calculados == null) {
+                calculados = new Conteos(clientes);
+                conteos = calculados;
+            }
+            return calculados;
+        }
+    }
+    
+    // Clientes por estado (en mayusculas) y por plan (totales y activos) de un sector
+    private static final class Conteos {
+        final Map<String, Integer> porEstado = new HashMap<>();
+        final Map<String, int[]> porPlan = new HashMap<>();
+        
+        Conteos(MapaPersistenteInt<FotoCliente> clientes) {
+            clientes.forEachValue(cliente -> {
+                FotoSuscripcion suscripcion = cliente.getSuscripcion();
+                if (suscripcion == null) {
+                    return;
+                }
+                String estado = suscripcion.getEstado();
+                porEstado.merge(estado != null ? estado.toUpperCase() : "", 1, Integer::sum);
+                if (suscripcion.getPlan() != null) {
+                    int[] cantidades = porPlan.computeIfAbsent(suscripcion.getPlan().getCodigoPlan(), k -> new int[2]);
+                    cantidades[0]++;
+                    if ("ACTIVA".equalsIgnoreCase(estado)) {
+                        cantidades[1]++;
+                    }
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
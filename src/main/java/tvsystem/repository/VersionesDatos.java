@@ -0,0 +1,171 @@
+package tvsystem.repository;
+
+import tvsystem.model.FotoCliente;
+import tvsystem.model.PlanSector;
+import tvsystem.model.Sector;
+import tvsystem.repository.VersionDatos.VersionSector;
+import tvsystem.util.MapaPersistenteInt;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Ultima version publicada de los sectores y sus clientes.
+ *
+ * La raiz es inmutable y se reemplaza con compareAndSet: cada cambio arma una
+ * raiz nueva a partir de la actual (copiando solo el camino del cliente en su
+ * sector) y la publica si nadie se adelanto; si no, vuelve a intentar sobre la
+ * que publico el otro hilo. Leer la version actual es una sola lectura
+ * atomica. La mantienen SectorRepository y ClienteRepository; los cambios de
+ * un mismo cliente llegan en orden porque se publican con su candado tomado.
+ *
+ * Los planes congelados de la ultima foto se reutilizan en las siguientes
+ * mientras ningun precio u oferta cambie; solo entonces se copian de nuevo.
+ *
+ * @author Elias Manriquez
+ */
+final class VersionesDatos {
+    
+    private final AtomicReference<Raiz> actual = new AtomicReference<>(new Raiz(0, Collections.emptyMap()));
+    private volatile Map<String, PlanSector> planesCongelados = Collections.emptyMap();
+    
+    // -- METODOS --
+    
+    // Foto de la version actual con los sectores en el orden indicado y los planes vigentes congelados
+    VersionDatos foto(Collection<Sector> orden) {
+        Raiz raiz = actual.get();
+        List<VersionSector> sectores = new ArrayList<>(raiz.sectores.size());
+        Set<String> incluidos = new HashSet<>();
+        for (Sector sector : orden) {
+            VersionSector version = raiz.sectores.get(sector.getNombre());
+            if (version != null && incluidos.add(sector.getNombre())) {
+                sectores.add(version);
+            }
+        }
+        // Sectores de la version que se quitaron del repositorio despues de leer la raiz
+        for (Map.Entry<String, VersionSector> entry : raiz.sectores.entrySet()) {
+            if (incluidos.add(entry.getKey())) {
+                sectores.add(entry.getValue());
+            }
+        }
+        return new VersionDatos(raiz.numero, sectores, congelarPlanes(sectores));
+    }
+    
+    // Agrega el sector vacio; si habia otra instancia con el mismo nombre la reemplaza
+    void sectorGuardado(Sector sector) {
+        actualizar(sectores -> {
+            VersionSector version = sectores.get(sector.getNombre());
+            if (version != null && version.esDe(sector)) {
+                return null;
+            }
+            sectores.put(sector.getNombre(), new VersionSector(sector.getNombre(), sector, MapaPersistenteInt.vacio()));
+            return sectores;
+        });
+    }
+    
+    void sectorEliminado(Sector sector) {
+        actualizar(sectores -> {
+            VersionSector version = sectores.get(sector.getNombre());
+            if (version == null || !version.esDe(sector)) {
+                return null;
+            }
+            sectores.remove(sector.getNombre());
+            return sectores;
+        });
+    }
+    
+    // Publica la foto del cliente en su sector y, si venia de otro, lo quita de ese en la misma version
+    void clienteGuardado(Sector anterior, Sector sector, FotoCliente foto) {
+        actualizar(sectores -> {
+            boolean cambio = false;
+            if (anterior != null && anterior != sector) {
+                cambio = reemplazar(sectores, anterior, version -> version.sin(foto.getClaveRut()));
+            }
+            cambio |= reemplazar(sectores, sector, version -> version.con(foto));
+            return cambio ? sectores : null;
+        });
+    }
+    
+    // Publica de una vez las fotos de varios clientes de un mismo sector
+    void clientesGuardados(Sector sector, List<FotoCliente> fotos) {
+        if (fotos.isEmpty()) {
+            return;
+        }
+        actualizar(sectores -> reemplazar(sectores, sector, version -> version.conTodos(fotos)) ? sectores : null);
+    }
+    
+    void clienteQuitado(Sector sector, int claveRut) {
+        actualizar(sectores -> reemplazar(sectores, sector, version -> version.sin(claveRut)) ? sectores : null);
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Reutiliza los planes congelados de la foto anterior si todos siguen iguales; si no, copia los que cambiaron
+    private Map<String, PlanSector> congelarPlanes(List<VersionSector> sectores) {
+        Map<String, PlanSector> anteriores = planesCongelados;
+        int cantidad = 0;
+        boolean iguales = true;
+        for (VersionSector sector : sectores) {
+            for (PlanSector plan : sector.getOrigen().getPlanesView()) {
+                PlanSector congelado = anteriores.get(plan.getCodigoPlan());
+                iguales &= congelado != null && plan.mismosValores(congelado);
+                cantidad++;
+            }
+        }
+        if (iguales && cantidad == anteriores.size()) {
+            return anteriores;
+        }
+        
+        Map<String, PlanSector> planes = new HashMap<>();
+        for (VersionSector sector : sectores) {
+            for (PlanSector plan : sector.getOrigen().getPlanesView()) {
+                PlanSector congelado = anteriores.get(plan.getCodigoPlan());
+                planes.put(plan.getCodigoPlan(), congelado != null && plan.mismosValores(congelado) ? congelado : plan.copiar());
+            }
+        }
+        Map<String, PlanSector> nuevos = Collections.unmodifiableMap(planes);
+        planesCongelados = nuevos;
+        return nuevos;
+    }
+    
+    // El cambio recibe una copia modificable de los sectores y retorna null si no hay nada que publicar
+    private void actualizar(UnaryOperator<Map<String, VersionSector>> cambio) {
+        while (true) {
+            Raiz raiz = actual.get();
+            Map<String, VersionSector> sectores = cambio.apply(new HashMap<>(raiz.sectores));
+            if (sectores == null) {
+                return;
+            }
+            if (actual.compareAndSet(raiz, new Raiz(raiz.numero + 1, sectores))) {
+                return;
+            }
+        }
+    }
+    
+    // Solo toca la version del sector si es de esa misma instancia (no de una que la reemplazo)
+    private static boolean reemplazar(Map<String, VersionSector> sectores, Sector sector,
+                                      UnaryOperator<VersionSector> cambio) {
+        VersionSector version = sectores.get(sector.getNombre());
+        if (version == null || !version.esDe(sector)) {
+            return false;
+        }
+        VersionSector nueva = cambio.apply(version);
+        if (nueva == version) {
+            return false;
+        }
+        sectores.put(sector.getNombre(), nueva);
+        return true;
+    }
+    
+    // --- CLASES DE DATOS PARA VERSIONES ---
+    
+    private static final class Raiz {
+        final long numero;
+        final Map<String, VersionSector> sectores;
+        
+        Raiz(long numero, Map<String, VersionSector> sectores) {
+            this.numero = numero;
+            this.sectores = Collections.unmodifiableMap(sectores);
+        }
+    }
+}
\ No newline at end of file
@@ -3,12 +3,18 @@ package tvsystem.service;
 import tvsystem.model.*;
 import tvsystem.repository.*;
 import tvsystem.util.RutValidator;
+import tvsystem.util.BitacoraCambios;
 import tvsystem.util.CsvManager;
 import tvsystem.util.LoggerHelper;
+import tvsystem.util.RegistroCliente;
+import tvsystem.util.ResumenImportacion;
 import tvsystem.exception.ClienteInvalidoException;
 import tvsystem.exception.SectorNoEncontradoException;
 import tvsystem.exception.SuscripcionInvalidaException;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Servicio para gestionar la lOgica de negocio relacionada con clientes.
@@ -22,6 +28,13 @@ public class ClienteService {
     private PlanRepository planRepository;
     private SectorService sectorService;
     private PlanService planService;
+    private GuardadoService guardado;
+    private final EvaluadorEstados evaluadorEstados;
+    
+    // Evento a registrar en la bitacora despues de modificar los datos
+    private interface EventoBitacora {
+        void registrar(BitacoraCambios bitacora) throws IOException;
+    }
     
     // Constructor
     public ClienteService(ClienteRepository clienteRepository, 
@@ -30,6 +43,7 @@ public class ClienteService {
         this.clienteRepository = clienteRepository;
         this.sectorRepository = sectorRepository;
         this.planRepository = planRepository;
+        this.evaluadorEstados = new EvaluadorEstados(clienteRepository);
     }
     
     // Configura las referencias a otros servicios
@@ -38,10 +52,16 @@ public class ClienteService {
         this.planService = planService;
     }
     
+    // Con servicio de guardado, las reescrituras del archivo se piden en segundo plano y se juntan
+    public void configurarGuardado(GuardadoService guardado) {
+        this.guardado = guardado;
+    }
+    
     public boolean agregarCliente(String nombreSector, String nombre, String rut, 
                                 String domicilio, String codigoPlan) throws ClienteInvalidoException, SectorNoEncontradoException {
         // Validar RUT
-        if (!RutValidator.validarRut(rut)) {
+        long rutParseado = RutValidator.parsearRut(rut);
+        if (rutParseado == RutValidator.RUT_INVALIDO) {
             throw new ClienteInvalidoException("RUT inválido: " + rut, "RUT_INVALIDO", rut);
         }
         
@@ -72,7 +92,7 @@ public class ClienteService {
         }
         
         // Crear cliente
-        Cliente nuevoCliente = new Cliente(nombre, RutValidator.formatearRut(rut), domicilio);
+        Cliente nuevoCliente = new Cliente(nombre, RutValidator.formatearRutValido(rut), domicilio);
         
         // Crear suscripción con duración de 1 mes
         Date fechaInicio = new Date();
@@ -84,7 +104,11 @@ public class ClienteService {
         nuevoCliente.setSuscripcion(nuevaSuscripcion);
         
         // Guardar cliente
-        return clienteRepository.save(nuevoCliente, nombreSector);
+        boolean guardado = clienteRepository.save(nuevoCliente, nombreSector);
+        if (guardado) {
+            persistirCambio(registrarEnBitacora(b -> b.clienteAgregado(nuevoCliente, nombreSector)));
+        }
+        return guardado;
     }
     
     // Sobrecarga
@@ -92,7 +116,8 @@ public class ClienteService {
                                 String domicilio, String codigoPlan, String estadoSuscripcion,
                                 java.time.LocalDate proximoVencimiento, boolean pagado) throws ClienteInvalidoException, SectorNoEncontradoException {
         // Validar RUT
-        if (!RutValidator.validarRut(rut)) {
+        long rutParseado = RutValidator.parsearRut(rut);
+        if (rutParseado == RutValidator.RUT_INVALIDO) {
             throw new ClienteInvalidoException("RUT inválido: " + rut, "RUT_INVALIDO", rut);
         }
         
@@ -123,7 +148,7 @@ public class ClienteService {
         }
         
         // Crear cliente
-        Cliente nuevoCliente = new Cliente(nombre, RutValidator.formatearRut(rut), domicilio);
+        Cliente nuevoCliente = new Cliente(nombre, RutValidator.formatearRutValido(rut), domicilio);
         
         // Crear suscripcion con parametros personalizados
         Date fechaInicio = new Date();
@@ -139,17 +164,97 @@ public class ClienteService {
         }
         nuevaSuscripcion.setPagado(pagado);
         
+        java.time.LocalDate hoy = java.time.LocalDate.now();
         if (pagado) {
-            nuevaSuscripcion.setUltimaFechaPago(java.time.LocalDate.now());
+            nuevaSuscripcion.setUltimaFechaPago(hoy);
         }
         
         // Recalcular estado basado en logica de negocio
-        String estadoCalculado = nuevaSuscripcion.obtenerEstadoActual();
+        nuevaSuscripcion.obtenerEstadoActual(hoy);
         
         nuevoCliente.setSuscripcion(nuevaSuscripcion);
         
         // Guardar cliente
-        return clienteRepository.save(nuevoCliente, nombreSector);
+        boolean guardado = clienteRepository.save(nuevoCliente, nombreSector);
+        if (guardado) {
+            persistirCambio(registrarEnBitacora(b -> b.clienteAgregado(nuevoCliente, nombreSector)));
+        }
+        return guardado;
+    }
+    
+    // Importa un lote de filas leidas desde archivo.
+    // Valida sin lanzar excepciones, registra los rechazos en el resumen
+    // y agrupa las inserciones por sector.
+    public int importarClientes(List<RegistroCliente> lote, ResumenImportacion resumen) {
+        Date fechaInicio = new Date();
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(fechaInicio);
+        cal.add(Calendar.MONTH, 1);
+        long terminoUnMes = cal.getTimeInMillis();
+        java.time.LocalDate hoy = java.time.LocalDate.now();
+        
+        Map<String, List<Cliente>> clientesPorSector = new LinkedHashMap<>();
+        Set<String> rutsDelLote = new HashSet<>();
+        
+        for (RegistroCliente registro : lote) {
+            String rut = registro.getRut();
+            String rutFormateado = registro.getRutFormateado();
+            if (rutFormateado == null) {
+                resumen.registrarRechazo(registro.getNumeroLinea(), "RUT inválido: " + rut);
+                continue;
+            }
+            if (!rutsDelLote.add(rutFormateado) || clienteRepository.exists(rutFormateado)) {
+                resumen.registrarRechazo(registro.getNumeroLinea(), "RUT duplicado: " + rut);
+                continue;
+            }
+            if (registro.getNombre() == null || registro.getNombre().trim().isEmpty()
+                    || registro.getDomicilio() == null || registro.getDomicilio().trim().isEmpty()) {
+                resumen.registrarRechazo(registro.getNumeroLinea(), "Nombre o domicilio vacío: " + rut);
+                continue;
+            }
+            if (!sectorRepository.exists(registro.getSector())) {
+                resumen.registrarRechazo(registro.getNumeroLinea(), "Sector no encontrado: " + registro.getSector());
+                continue;
+            }
+            PlanSector plan = planRepository.findByCodigo(registro.getCodigoPlan());
+            if (plan == null) {
+                resumen.registrarRechazo(registro.getNumeroLinea(), "Plan no encontrado: " + registro.getCodigoPlan());
+                continue;
+            }
+            
+            Cliente cliente = new Cliente(registro.getNombre(), rutFormateado, registro.getDomicilio());
+            cliente.setSuscripcion(crearSuscripcionImportada(registro, cliente, plan,
+                                                             fechaInicio.getTime(), terminoUnMes, hoy));
+            clientesPorSector.computeIfAbsent(registro.getSector(), k -> new ArrayList<>()).add(cliente);
+        }
+        
+        int guardados = 0;
+        for (Map.Entry<String, List<Cliente>> entry : clientesPorSector.entrySet()) {
+            guardados += clienteRepository.saveAll(entry.getValue(), entry.getKey());
+        }
+        resumen.registrarCargados(guardados);
+        return guardados;
+    }
+    
+    // Restaura clientes ya construidos desde una foto binaria; solo descarta duplicados y sectores inexistentes
+    public int restaurarClientes(String nombreSector, List<Cliente> clientes, ResumenImportacion resumen) {
+        if (!sectorRepository.exists(nombreSector)) {
+            resumen.registrarRechazosSinDetalle(clientes.size());
+            return 0;
+        }
+        
+        List<Cliente> nuevos = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            if (clienteRepository.exists(cliente.getRut())) {
+                resumen.registrarRechazosSinDetalle(1);
+            } else {
+                nuevos.add(cliente);
+            }
+        }
+        
+        int guardados = clienteRepository.saveAll(nuevos, nombreSector);
+        resumen.registrarCargados(guardados);
+        return guardados;
     }
     
     public Cliente obtenerClientePorRut(String rut) {
@@ -164,20 +269,87 @@ public class ClienteService {
         return clienteRepository.findByPlan(codigoPlan);
     }
     
+    public List<Cliente> obtenerClientesPorEstado(String estado) {
+        return clienteRepository.findByEstadoSuscripcion(estado);
+    }
+    
+    public int contarClientesPorPlan(String codigoPlan) {
+        return clienteRepository.countByPlan(codigoPlan);
+    }
+    
+    public int contarClientesPorEstado(String estado) {
+        return clienteRepository.countByEstadoSuscripcion(estado);
+    }
+    
     public boolean eliminarCliente(String rut) {
-        return clienteRepository.delete(rut);
+        boolean eliminado = clienteRepository.delete(rut);
+        if (eliminado) {
+            persistirCambio(registrarEnBitacora(b -> b.clienteEliminado(rut)));
+        }
+        return eliminado;
     }
     
     public int contarClientesTotales() {
         return clienteRepository.countTotal();
     }
     
+    // Cantidad de clientes por estado de suscripcion, sin recorrer clientes
+    public Map<String, Integer> contarClientesPorEstado() {
+        return clienteRepository.countGroupedByEstado();
+    }
+    
+    // Contadores mantenidos por el repositorio: O(1) por consulta
+    public int contarClientesActivos() {
+        return clienteRepository.getAgregados().contarActivos();
+    }
+    
+    public int contarClientesActivosPorPlan(String codigoPlan) {
+        return clienteRepository.getAgregados().contarActivosPlan(codigoPlan);
+    }
+    
+    public int contarClientesActivosPorSector(String nombreSector) {
+        return clienteRepository.getAgregados().contarActivosSector(nombreSector);
+    }
+    
+    // Ingresos mensuales de los clientes ACTIVOS del sector, desde los contadores del repositorio
+    // y con el precio vigente de cada plan, sin recorrer clientes
+    public long calcularIngresosSector(String nombreSector) {
+        return clienteRepository.getAgregados().calcularIngresosSector(nombreSector, planRepository::findByCodigo);
+    }
+    
+    public long calcularIngresosPlan(String codigoPlan) {
+        return clienteRepository.getAgregados().calcularIngresosPlan(codigoPlan, planRepository::findByCodigo);
+    }
+    
+    public long calcularIngresosTotales() {
+        return clienteRepository.getAgregados().calcularIngresosTotales(planRepository::findByCodigo);
+    }
+    
     public boolean actualizarEstadoSuscripcion(String rut, String nuevoEstado) {
         Cliente cliente = clienteRepository.findByRut(rut);
         if (cliente != null && cliente.getSuscripcion() != null) {
-            cliente.getSuscripcion().setEstado(nuevoEstado);
+            // El cambio y su evento en la bitacora quedan en el mismo orden que los de otros hilos
+            AtomicBoolean registrado = new AtomicBoolean();
+            clienteRepository.modificar(cliente.getClaveRut(),
+                c -> c.getSuscripcion().setEstado(nuevoEstado),
+                c -> registrado.set(registrarEnBitacora(b -> b.estadoCambiado(c.getRut(), nuevoEstado))));
             
-            if (sectorService != null && planService != null) {
+            // Si no hay bitacora o no se pudo registrar, se reescribe el archivo completo
+            if (registrado.get()) {
+                compactarBitacoraSiCorresponde();
+                LoggerHelper.success("Estado de suscripción actualizado para: " + cliente.getNombre());
+                return true;
+            } else if (guardado != null) {
+                String nombre = cliente.getNombre();
+                guardado.solicitarGuardado(exito -> {
+                    if (exito) {
+                        LoggerHelper.success("Estado de suscripción actualizado y guardado para: " + nombre);
+                    } else {
+                        LoggerHelper.error("Error al guardar cambios de estado para: " + nombre);
+                    }
+                });
+                return true;
+            } else if (sectorService != null && planService != null) {
                 boolean guardado = CsvManager.guardarDatos(sectorService, this, planService);
                 
                 if (guardado) {
@@ -194,13 +366,170 @@ public class ClienteService {
         return false;
     }
     
+    // Evalua todas las suscripciones con la fecha de hoy en una sola pasada
+    public EvaluadorEstados.ResultadoEvaluacion actualizarEstados() {
+        return actualizarEstados(java.time.LocalDate.now());
+    }
+    
+    // Evalua todas las suscripciones a la fecha de corte; la interfaz lee despues el estado guardado
+    public EvaluadorEstados.ResultadoEvaluacion actualizarEstados(java.time.LocalDate fecha) {
+        return registrarEvaluacion(evaluadorEstados.evaluar(fecha));
+    }
+    
+    // Reevalua con la fecha de hoy solo a los clientes cuyo estado depende del vencimiento
+    public EvaluadorEstados.ResultadoEvaluacion actualizarEstadosPorVencimiento() {
+        return registrarEvaluacion(evaluadorEstados.evaluarVencimientos(java.time.LocalDate.now()));
+    }
+    
+    // Clientes que vencen desde hoy hasta dentro de la cantidad de dias indicada
+    public List<Cliente> obtenerClientesPorVencer(int dias) {
+        java.time.LocalDate hoy = java.time.LocalDate.now();
+        return clienteRepository.getVencimientos().buscarEntre(hoy, hoy.plusDays(dias));
+    }
+    
+    public int contarClientesPorVencer(int dias) {
+        java.time.LocalDate hoy = java.time.LocalDate.now();
+        return clienteRepository.getVencimientos().contarEntre(hoy, hoy.plusDays(dias));
+    }
+    
+    // Clientes con el vencimiento ya pasado, del mas atrasado al mas reciente
+    public List<Cliente> obtenerClientesVencidos() {
+        return clienteRepository.getVencimientos().buscarVencidos(java.time.LocalDate.now());
+    }
+    
+    public int contarClientesVencidos() {
+        return clienteRepository.getVencimientos().contarVencidos(java.time.LocalDate.now());
+    }
+    
+    // Registra el pago de hoy y extiende la suscripcion por un mes
+    public boolean registrarPago(String rut) {
+        Cliente cliente = clienteRepository.findByRut(rut);
+        if (cliente == null || cliente.getSuscripcion() == null) {
+            return false;
+        }
+        java.time.LocalDate hoy = java.time.LocalDate.now();
+        AtomicBoolean registrado = new AtomicBoolean();
+        boolean pagado = clienteRepository.modificar(cliente.getClaveRut(),
+            c -> c.getSuscripcion().registrarPago(hoy),
+            c -> registrado.set(registrarEnBitacora(b -> b.pagoRegistrado(c.getRut(), hoy))));
+        if (pagado) {
+            persistirCambio(registrado.get());
+        }
+        return pagado;
+    }
+    
+    // Actualiza nombre y domicilio; el RUT no se puede modificar
+    public boolean actualizarDatosCliente(String rut, String nombre, String domicilio) {
+        Cliente cliente = clienteRepository.findByRut(rut);
+        if (cliente == null || nombre == null || nombre.trim().isEmpty()
+                || domicilio == null || domicilio.trim().isEmpty()) {
+            return false;
+        }
+        AtomicBoolean registrado = new AtomicBoolean();
+        boolean actualizado = clienteRepository.modificar(cliente.getClaveRut(), c -> {
+            c.setNombre(nombre);
+            c.setDomicilio(domicilio);
+        }, c -> registrado.set(registrarEnBitacora(b -> b.datosModificados(c.getRut(), nombre, domicilio))));
+        if (actualizado) {
+            persistirCambio(registrado.get());
+        }
+        return actualizado;
+    }
+    
+    // Aplica un cambio ya registrado (al reproducir la bitacora) con el candado del cliente y sin
+    // volver a registrarlo; asi tambien queda publicado en las versiones del repositorio
+    public boolean aplicarCambio(String rut, Consumer<Cliente> cambio) {
+        return clienteRepository.modificar(rut, cambio);
+    }
+    
+    // Igual para una baja ya registrada: elimina sin registrarla ni pedir un guardado
+    public boolean aplicarBaja(String rut) {
+        return clienteRepository.delete(rut);
+    }
+    
     public List<Cliente> buscarClientesPorNombre(String nombre) {
         List<Cliente> clientesFiltrados = new ArrayList<>();
-        for (Cliente cliente : clienteRepository.findAll()) {
-            if (cliente.getNombre().toLowerCase().contains(nombre.toLowerCase())) {
+        String nombreBuscado = nombre.toLowerCase();
+        clienteRepository.forEach(cliente -> {
+            if (cliente.getNombre().toLowerCase().contains(nombreBuscado)) {
                 clientesFiltrados.add(cliente);
             }
-        }
+        });
         return clientesFiltrados;
     }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Deja en el log un resumen de las suscripciones que cambiaron de estado
+    private EvaluadorEstados.ResultadoEvaluacion registrarEvaluacion(EvaluadorEstados.ResultadoEvaluacion resultado) {
+        if (resultado.hayCambios()) {
+            LoggerHelper.info("Estados al " + resultado.getFecha() + ": " + resultado.getTransiciones().size()
+                              + " de " + resultado.getEvaluadas() + " suscripciones cambiaron "
+                              + resultado.contarPorEstadoNuevo());
+        }
+        return resultado;
+    }
+    
+    // Agrega el evento a la bitacora (si hay); puede llamarse con el candado del cliente tomado
+    private boolean registrarEnBitacora(EventoBitacora evento) {
+        BitacoraCambios bitacora = CsvManager.getBitacora();
+        if (bitacora == null) {
+            return false;
+        }
+        try {
+            evento.registrar(bitacora);
+        } catch (IOException e) {
+            LoggerHelper.error("No se pudo registrar el cambio en la bitacora: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+        
+    // Deja en disco un cambio ya aplicado: registrado en la bitacora basta; si no se pudo registrar
+    // (o no hay bitacora) se pide una reescritura en segundo plano, que lo incluye. Sin bitacora ni
+    // servicio de guardado el cambio queda para el boton Guardar. El cambio ya quedo hecho en
+    // memoria, asi que un problema al guardarlo se informa en el log y no en el resultado
+    private void persistirCambio(boolean registrado) {
+        if (registrado) {
+            compactarBitacoraSiCorresponde();
+        } else if (guardado != null) {
+            guardado.solicitarGuardado();
+        } else if (CsvManager.getBitacora() != null) {
+            LoggerHelper.warning("El cambio quedó aplicado pero no se pudo guardar en disco; use Guardar para conservarlo");
+        }
+    }
+    
+    // Reescribe el archivo cuando la bitacora acumula demasiados eventos; se llama fuera de los
+    // candados de clientes porque guarda desde una foto de los datos (en segundo plano si hay servicio)
+    private void compactarBitacoraSiCorresponde() {
+        BitacoraCambios bitacora = CsvManager.getBitacora();
+        if (bitacora == null || !bitacora.requiereCompactacion()) {
+            return;
+        }
+        if (guardado != null) {
+            // Mientras la compactacion espera su turno las siguientes solicitudes se juntan con ella
+            guardado.solicitarGuardado();
+        } else if (sectorService != null && planService != null) {
+            CsvManager.guardarDatos(sectorService, this, planService);
+        }
+    }
+    
+    // Replica las reglas de agregarCliente segun si la fila trae proximo vencimiento o no
+    private Suscripcion crearSuscripcionImportada(RegistroCliente registro, Cliente cliente, PlanSector plan,
+                                                  long inicioMillis, long terminoUnMes, java.time.LocalDate hoy) {
+        java.time.LocalDate proximoVencimiento = registro.getProximoVencimiento();
+        Suscripcion suscripcion;
+        
+        if (proximoVencimiento != null) {
+            suscripcion = new Suscripcion(new Date(inicioMillis), java.sql.Date.valueOf(proximoVencimiento),
+                                          registro.getEstado(), cliente, plan, registro.isPagado(),
+                                          registro.isPagado() ? hoy : null, proximoVencimiento);
+            suscripcion.obtenerEstadoActual(hoy);
+        } else {
+            suscripcion = new Suscripcion(new Date(inicioMillis), new Date(terminoUnMes), "ACTIVA", cliente, plan);
+            suscripcion.setEstado(registro.getEstado());
+            suscripcion.setPagado(registro.isPagado());
+        }
+        return suscripcion;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package tvsystem.service;
+
+import tvsystem.config.AppConstants;
+import tvsystem.model.Cliente;
+import tvsystem.model.Suscripcion;
+import tvsystem.repository.ClienteRepository;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evalua el estado de todas las suscripciones contra una misma fecha de corte.
+ *
+ * La evaluacion no modifica las suscripciones, asi que con muchos clientes se
+ * reparte por tramos en un ForkJoinPool. Los cambios se aplican despues en el
+ * hilo que llama, cada uno con el candado del cliente tomado, de modo que los
+ * indices y contadores del repositorio se actualizan una sola vez por cada
+ * suscripcion que realmente cambio de estado, aunque otro hilo la modifique.
+ * La interfaz y los reportes leen luego el estado ya guardado.
+ *
+ * Con el indice de vencimientos del repositorio tambien se puede evaluar solo
+ * a los clientes cuyo estado depende de la fecha, sin recorrer a todos.
+ *
+ * @author Elias Manriquez
+ */
+public class EvaluadorEstados {
+    
+    private final ClienteRepository clienteRepository;
+    private final ForkJoinPool pool;
+    private final int tamanoTramo;
+    
+    // Constructor
+    public EvaluadorEstados(ClienteRepository clienteRepository) {
+        this(clienteRepository, ForkJoinPool.commonPool(), AppConstants.TAMANO_TRAMO_EVALUACION_ESTADOS);
+    }
+    
+    // Pool y cantidad de suscripciones por tramo configurables
+    public EvaluadorEstados(ClienteRepository clienteRepository, ForkJoinPool pool, int tamanoTramo) {
+        this.clienteRepository = clienteRepository;
+        this.pool = pool;
+        this.tamanoTramo = Math.max(1, tamanoTramo);
+    }
+    
+    // -- METODOS --
+    
+    // Evalua todas las suscripciones en la fecha indicada y guarda los estados que cambiaron
+    public ResultadoEvaluacion evaluar(LocalDate fecha) {
+        List<Cliente> clientes = new ArrayList<>(clienteRepository.countTotal());
+        clienteRepository.forEach(cliente -> agregarCliente(clientes, cliente));
+        return evaluarClientes(clientes.toArray(new Cliente[0]), fecha);
+    }
+    
+    // Evalua solo las suscripciones cuyo estado puede cambiar con la fecha: las que vencen
+    // dentro del aviso de dos semanas (o ya vencieron) y las que siguen marcadas como proximas
+    // a vencer. El resto queda ACTIVA, SUSPENDIDA o CANCELADA tal como esta guardado, por lo que
+    // el resultado es el mismo que evaluar todo una vez hecha una evaluacion completa
+    public ResultadoEvaluacion evaluarVencimientos(LocalDate fecha) {
+        LocalDate limiteAviso = fecha.plusWeeks(2);
+        List<Cliente> clientes = new ArrayList<>();
+        for (Cliente cliente : clienteRepository.getVencimientos().buscarHasta(limiteAviso)) {
+            // Suspendidas y canceladas se evaluan siempre igual a su estado guardado
+            String estado = cliente.getSuscripcion().getEstado();
+            if (!"SUSPENDIDA".equalsIgnoreCase(estado) && !"CANCELADA".equalsIgnoreCase(estado)) {
+                agregarCliente(clientes, cliente);
+            }
+        }
+        for (Cliente cliente : clienteRepository.findByEstadoSuscripcion("PROXIMA_A_VENCER")) {
+            LocalDate vencimiento = cliente.getSuscripcion().getProximoVencimiento();
+            if (vencimiento == null || vencimiento.isAfter(limiteAviso)) {
+                agregarCliente(clientes, cliente);
+            }
+        }
+        return evaluarClientes(clientes.toArray(new Cliente[0]), fecha);
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Evalua en paralelo si son muchas y aplica los cambios en este hilo
+    private ResultadoEvaluacion evaluarClientes(Cliente[] clientes, LocalDate fecha) {
+        String[] evaluados = new String[clientes.length];
+        
+        if (clientes.length > tamanoTramo && pool.getParallelism() > 1) {
+            pool.invoke(new TramoEvaluacion(clientes, evaluados, fecha, 0, clientes.length));
+        } else {
+            evaluarTramo(clientes, evaluados, fecha, 0, clientes.length);
+        }
+        
+        List<Transicion> transiciones = new ArrayList<>();
+        for (int i = 0; i < clientes.length; i++) {
+            Suscripcion suscripcion = clientes[i].getSuscripcion();
+            
+            // Sin vencimiento el estado manual se conserva (igual que obtenerEstadoActual)
+            if (suscripcion.getProximoVencimiento() != null && !Objects.equals(suscripcion.getEstado(), evaluados[i])) {
+                clienteRepository.modificar(clientes[i].getClaveRut(), cliente -> {
+                    // Se vuelve a evaluar con el candado tomado por si otro hilo lo cambio entretanto
+                    if (cliente.getSuscripcion() == suscripcion) {
+                        String anterior = suscripcion.getEstado();
+                        suscripcion.obtenerEstadoActual(fecha);
+                        if (!Objects.equals(anterior, suscripcion.getEstado())) {
+                            transiciones.add(new Transicion(cliente, anterior, suscripcion.getEstado()));
+                        }
+                    }
+                });
+            }
+        }
+        return new ResultadoEvaluacion(fecha, clientes.length, transiciones);
+    }
+    
+    private static void agregarCliente(List<Cliente> clientes, Cliente cliente) {
+        if (cliente.getSuscripcion() != null) {
+            clientes.add(cliente);
+        }
+    }
+    
+    private static void evaluarTramo(Cliente[] clientes, String[] evaluados, LocalDate fecha,
+                                     int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            evaluados[i] = clientes[i].getSuscripcion().evaluarEstado(fecha);
+        }
+    }
+    
+    // --- TAREAS DEL POOL ---
+    
+    // Divide el arreglo a la mitad hasta llegar a tramos del tamano configurado
+    private class TramoEvaluacion extends RecursiveAction {
+        private final Cliente[] clientes;
+        private final String[] evaluados;
+        private final LocalDate fecha;
+        private final int desde;
+        private final int hasta;
+        
+        TramoEvaluacion(Cliente[] clientes, String[] evaluados, LocalDate fecha, int desde, int hasta) {
+            this.clientes = clientes;
+            this.evaluados = evaluados;
+            this.fecha = fecha;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+        
+        @Override
+        protected void compute() {
+            if (hasta - desde <= tamanoTramo) {
+                evaluarTramo(clientes, evaluados, fecha, desde, hasta);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TramoEvaluacion(clientes, evaluados, fecha, desde, medio),
+                      new TramoEvaluacion(clientes, evaluados, fecha, medio, hasta));
+        }
+    }
+    
+    // --- CLASES DE DATOS PARA RESULTADOS ---
+    
+    public static class Transicion {
+        private final Cliente cliente;
+        private final String estadoAnterior;
+        private final String estadoNuevo;
+        
+        Transicion(Cliente cliente, String estadoAnterior, String estadoNuevo) {
+            this.cliente = cliente;
+            this.estadoAnterior = estadoAnterior;
+            this.estadoNuevo = estadoNuevo;
+        }
+        
+        public Cliente getCliente() {
+            return cliente;
+        }
+        
+        public String getEstadoAnterior() {
+            return estadoAnterior;
+        }
+        
+        public String getEstadoNuevo() {
+            return estadoNuevo;
+        }
+    }
+    
+    public static class ResultadoEvaluacion {
+        private final LocalDate fecha;
+        private final int evaluadas;
+        private final List<Transicion> transiciones;
+        
+        ResultadoEvaluacion(LocalDate fecha, int evaluadas, List<Transicion> transiciones) {
+            this.fecha = fecha;
+            this.evaluadas = evaluadas;
+            this.transiciones = transiciones;
+        }
+        
+        // Cantidad de suscripciones que pasaron de un estado a otro (sin distinguir mayusculas)
+        public int contarTransiciones(String estadoAnterior, String estadoNuevo) {
+            int cantidad = 0;
+            for (Transicion transicion : transiciones) {
+                if (estadoAnterior.equalsIgnoreCase(transicion.estadoAnterior)
+                        && estadoNuevo.equalsIgnoreCase(transicion.estadoNuevo)) {
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        }
+        
+        // Cantidad de suscripciones que llegaron a cada estado, por estado nuevo
+        public Map<String, Integer> contarPorEstadoNuevo() {
+            Map<String, Integer> conteo = new TreeMap<>();
+            for (Transicion transicion : transiciones) {
+                conteo.merge(transicion.estadoNuevo, 1, Integer::sum);
+            }
+            return conteo;
+        }
+        
+        public boolean hayCambios() {
+            return !transiciones.isEmpty();
+        }
+        
+        public LocalDate getFecha() {
+            return fecha;
+        }
+        
+        public int getEvaluadas() {
+            return evaluadas;
+        }
+        
+        public List<Transicion> getTransiciones() {
+            return Collections.unmodifiableList(transiciones);
+        }
+    }
+}
\ No newline at end of file
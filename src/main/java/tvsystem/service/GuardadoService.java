@@ -0,0 +1,181 @@
+package tvsystem.service;
+
+import tvsystem.config.AppConstants;
+import tvsystem.util.CsvManager;
+import tvsystem.util.LoggerHelper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Servicio que guarda los datos en segundo plano con un unico hilo escritor.
+ *
+ * Pedir un guardado solo marca los datos como pendientes y programa una
+ * escritura despues de un retardo corto; las solicitudes que llegan mientras
+ * tanto, o mientras se esta escribiendo, se juntan en una sola escritura
+ * siguiente. Cada escritura toma una foto de los datos (SectorService), asi
+ * que la interfaz no se bloquea ni espera al disco. Si una escritura falla
+ * los datos quedan pendientes y se reintentan en la siguiente solicitud o al
+ * vaciar. Al cerrar la ventana se vacia con vaciar().
+ *
+ * @author Elias Manriquez
+ */
+public class GuardadoService {
+    
+    private final BooleanSupplier escritura;
+    private final long retardoMs;
+    private final ScheduledExecutorService escritor;
+    private final AtomicInteger escrituras = new AtomicInteger();
+    
+    // Estado protegido por el monitor del servicio
+    private boolean pendiente;
+    private ScheduledFuture<?> programada;
+    private List<ListenerGuardado> esperando = new ArrayList<>();
+    private boolean ultimoExito = true;
+    
+    // Aviso del resultado de la escritura que incluyo la solicitud; se llama en el hilo escritor
+    public interface ListenerGuardado {
+        void guardadoTerminado(boolean exito);
+    }
+    
+    // Constructor
+    public GuardadoService(SectorService sectorService, ClienteService clienteService, PlanService planService) {
+        this(() -> CsvManager.guardarDatos(sectorService, clienteService, planService),
+             AppConstants.RETARDO_GUARDADO_MS);
+    }
+    
+    // Con la escritura indicada (benchmarks y pruebas)
+    public GuardadoService(BooleanSupplier escritura, long retardoMs) {
+        this.escritura = escritura;
+        this.retardoMs = Math.max(0, retardoMs);
+        this.escritor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "guardado-datos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    // -- METODOS --
+    
+    // Marca los datos como modificados; se escriben despues del retardo junto con las demas solicitudes
+    public void solicitarGuardado() {
+        solicitar(null, retardoMs);
+    }
+    
+    public void solicitarGuardado(ListenerGuardado listener) {
+        solicitar(listener, retardoMs);
+    }
+    
+    // Escribe lo antes posible, sin esperar el retardo (boton Guardar)
+    public void guardarAhora(ListenerGuardado listener) {
+        solicitar(listener, 0);
+    }
+    
+    // Espera a que terminen la escritura en curso y la pendiente; retorna false si fallo o se agoto el tiempo
+    public boolean vaciar(long timeoutMs) {
+        Future<?> fin;
+        synchronized (this) {
+            if (escritor.isShutdown()) {
+                return ultimoExito && !pendiente;
+            }
+            if (programada != null) {
+                programada.cancel(false);
+                programada = null;
+            }
+            // Queda detras de la escritura en curso, si hay una
+            fin = escritor.submit(this::escribir);
+        }
+        try {
+            fin.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LoggerHelper.warning("El guardado en segundo plano no termino en " + timeoutMs + " ms");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+        synchronized (this) {
+            return ultimoExito;
+        }
+    }
+    
+    public synchronized boolean hayCambiosPendientes() {
+        return pendiente;
+    }
+    
+    // Cantidad de escrituras hechas desde que se creo el servicio
+    public int getEscrituras() {
+        return escrituras.get();
+    }
+    
+    // Detiene el hilo escritor sin esperar lo pendiente; llamar despues de vaciar()
+    public synchronized void cerrar() {
+        if (programada != null) {
+            programada.cancel(false);
+            programada = null;
+        }
+        escritor.shutdown();
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Si ya hay una escritura programada para antes no se programa otra; la solicitud viaja en ella
+    private synchronized void solicitar(ListenerGuardado listener, long retardo) {
+        if (escritor.isShutdown()) {
+            throw new IllegalStateException("El servicio de guardado esta cerrado");
+        }
+        if (listener != null) {
+            esperando.add(listener);
+        }
+        pendiente = true;
+        if (programada != null) {
+            if (programada.getDelay(TimeUnit.MILLISECONDS) <= retardo) {
+                return;
+            }
+            programada.cancel(false);
+        }
+        programada = escritor.schedule(this::escribir, retardo, TimeUnit.MILLISECONDS);
+    }
+    
+    // Corre en el hilo escritor; lo que se solicite durante la escritura queda para la siguiente
+    private void escribir() {
+        List<ListenerGuardado> avisar;
+        synchronized (this) {
+            programada = null;
+            if (!pendiente) {
+                return;
+            }
+            pendiente = false;
+            avisar = esperando;
+            esperando = new ArrayList<>();
+        }
+        
+        boolean exito;
+        try {
+            exito = escritura.getAsBoolean();
+        } catch (RuntimeException e) {
+            LoggerHelper.error("Error al guardar en segundo plano: " + e.getMessage());
+            exito = false;
+        }
+        escrituras.incrementAndGet();
+        
+        synchronized (this) {
+            ultimoExito = exito;
+            if (!exito) {
+                // Se reintenta en la proxima solicitud o al vaciar
+                pendiente = true;
+            }
+        }
+        for (ListenerGuardado listener : avisar) {
+            try {
+                listener.guardadoTerminado(exito);
+            } catch (RuntimeException e) {
+                LoggerHelper.error("Error en el aviso de guardado: " + e.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,249 @@
+package tvsystem.service;
+
+import tvsystem.model.*;
+import tvsystem.repository.VersionDatos;
+import tvsystem.repository.VersionDatos.VersionSector;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Agregados del reporte, tomados de una foto inmutable de los datos
+ * (VersionDatos), cuyos conteos por sector se calculan una vez y se
+ * reutilizan mientras el sector no cambie.
+ *
+ * Guarda por sector la cantidad de clientes y sus planes, por plan los clientes
+ * totales y activos con sus ingresos, y por estado la cantidad de suscripciones.
+ * Todas las secciones del reporte se arman desde aqui sin volver a consultar
+ * los repositorios. Con muchos sectores, los conteos de los sectores que
+ * cambiaron desde la ultima foto (el unico recorrido de clientes) se calculan
+ * en paralelo antes de armar las metricas.
+ *
+ * @author Elias Manriquez
+ */
+public class MetricasReporte {
+    
+    private final int totalClientes;
+    private final int totalPlanes;
+    private final List<MetricasSector> sectores;
+    private final List<MetricasPlan> planesConOferta;
+    private final Map<String, Integer> clientesPorEstado;
+    
+    // Constructor
+    private MetricasReporte(int totalClientes, int totalPlanes, List<MetricasSector> sectores,
+                            List<MetricasPlan> planesConOferta, Map<String, Integer> clientesPorEstado) {
+        this.totalClientes = totalClientes;
+        this.totalPlanes = totalPlanes;
+        this.sectores = sectores;
+        this.planesConOferta = planesConOferta;
+        this.clientesPorEstado = clientesPorEstado;
+    }
+    
+    // -- METODOS --
+    
+    // Arma las metricas desde la foto; los planes siguen el orden del servicio pero con los
+    // precios y ofertas congelados en la foto, y los que no estaban en ella no se cuentan
+    static MetricasReporte calcular(VersionDatos foto, PlanService planService,
+                                    ForkJoinPool pool, int umbralParalelo) {
+        List<VersionSector> sectoresFoto = foto.getSectores();
+        if (sectoresFoto.size() >= umbralParalelo && pool.getParallelism() > 1) {
+            pool.invoke(new ConteosSectores(sectoresFoto, 0, sectoresFoto.size()));
+        }
+        
+        List<PlanSector> todosLosPlanes = planService.obtenerTodosLosPlanes();
+        Map<String, MetricasPlan> porCodigo = new HashMap<>();
+        List<MetricasPlan> planesConOferta = new ArrayList<>();
+        for (PlanSector plan : todosLosPlanes) {
+            PlanSector congelado = foto.getPlan(plan.getCodigoPlan());
+            if (congelado == null) {
+                continue;
+            }
+            MetricasPlan metricas = new MetricasPlan(congelado, foto);
+            porCodigo.put(plan.getCodigoPlan(), metricas);
+            if (congelado.getOfertaActiva()) {
+                planesConOferta.add(metricas);
+            }
+        }
+        
+        List<MetricasSector> metricasSectores = new ArrayList<>(sectoresFoto.size());
+        int totalClientes = 0;
+        for (VersionSector sector : sectoresFoto) {
+            List<MetricasPlan> planesSector = new ArrayList<>();
+            for (PlanSector plan : planService.obtenerPlanesPorSector(sector.getNombre())) {
+                MetricasPlan metricas = porCodigo.get(plan.getCodigoPlan());
+                if (metricas != null) {
+                    planesSector.add(metricas);
+                }
+            }
+            totalClientes += sector.contarClientes();
+            metricasSectores.add(new MetricasSector(sector.getNombre(), sector.contarClientes(), planesSector));
+        }
+        
+        return new MetricasReporte(totalClientes, porCodigo.size(), metricasSectores,
+                                   planesConOferta, foto.contarClientesPorEstado());
+    }
+    
+    // Sectores de mayor a menor cantidad de clientes; los empates mantienen el orden original
+    public List<MetricasSector> getSectoresPorClientes() {
+        List<MetricasSector> ordenados = new ArrayList<>(sectores);
+        ordenados.sort((a, b) -> Integer.compare(b.clientes, a.clientes));
+        return ordenados;
+    }
+    
+    // Primer sector con mas clientes, en el orden del repositorio
+    public MetricasSector getSectorMayor() {
+        MetricasSector mayor = null;
+        for (MetricasSector sector : sectores) {
+            if (mayor == null || sector.clientes > mayor.clientes) {
+                mayor = sector;
+            }
+        }
+        return mayor;
+    }
+    
+    // Primer sector con menos clientes, en el orden del repositorio
+    public MetricasSector getSectorMenor() {
+        MetricasSector menor = null;
+        for (MetricasSector sector : sectores) {
+            if (menor == null || sector.clientes < menor.clientes) {
+                menor = sector;
+            }
+        }
+        return menor;
+    }
+    
+    // Porcentaje de planes con oferta activa
+    public double getPorcentajeOfertas() {
+        return totalPlanes > 0 ? (planesConOferta.size() * 100.0 / totalPlanes) : 0;
+    }
+    
+    public int getTotalClientes() {
+        return totalClientes;
+    }
+    
+    public int getTotalPlanes() {
+        return totalPlanes;
+    }
+    
+    public List<MetricasSector> getSectores() {
+        return Collections.unmodifiableList(sectores);
+    }
+    
+    public List<MetricasPlan> getPlanesConOferta() {
+        return Collections.unmodifiableList(planesConOferta);
+    }
+    
+    public Map<String, Integer> getClientesPorEstado() {
+        return Collections.unmodifiableMap(clientesPorEstado);
+    }
+    
+    // --- TAREAS DEL POOL ---
+    
+    // Reparte los sectores en mitades hasta quedar con uno por tarea; cada uno calcula sus conteos
+    private static class ConteosSectores extends RecursiveAction {
+        private final List<VersionSector> sectores;
+        private final int desde;
+        private final int hasta;
+        
+        ConteosSectores(List<VersionSector> sectores, int desde, int hasta) {
+            this.sectores = sectores;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+        
+        @Override
+        protected void compute() {
+            if (hasta - desde <= 1) {
+                if (desde < hasta) {
+                    sectores.get(desde).prepararConteos();
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new ConteosSectores(sectores, desde, medio),
+                      new ConteosSectores(sectores, medio, hasta));
+        }
+    }
+    
+    // --- CLASES DE DATOS PARA METRICAS ---
+    
+    public static class MetricasSector {
+        private final String nombre;
+        private final int clientes;
+        private final List<MetricasPlan> planes;
+        
+        MetricasSector(String nombre, int clientes, List<MetricasPlan> planes) {
+            this.nombre = nombre;
+            this.clientes = clientes;
+            this.planes = planes;
+        }
+        
+        // Ingresos mensuales de los clientes activos en los planes del sector
+        public long getIngresoTotal() {
+            long total = 0;
+            for (MetricasPlan plan : planes) {
+                total += plan.getIngresos();
+            }
+            return total;
+        }
+        
+        public int getPlanesConDescuento() {
+            int conDescuento = 0;
+            for (MetricasPlan plan : planes) {
+                if (plan.tieneOferta()) {
+                    conDescuento++;
+                }
+            }
+            return conDescuento;
+        }
+        
+        public String getNombre() {
+            return nombre;
+        }
+        
+        public int getClientes() {
+            return clientes;
+        }
+        
+        public List<MetricasPlan> getPlanes() {
+            return Collections.unmodifiableList(planes);
+        }
+    }
+    
+    public static class MetricasPlan {
+        private final PlanSector plan;
+        private final int clientes;
+        private final int clientesActivos;
+        
+        MetricasPlan(PlanSector plan, VersionDatos foto) {
+            this.plan = plan;
+            this.clientes = foto.contarClientesPorPlan(plan.getCodigoPlan());
+            this.clientesActivos = foto.contarClientesActivosPorPlan(plan.getCodigoPlan());
+        }
+        
+        public long getIngresos() {
+            return plan.calcularPrecioFinal() * clientesActivos;
+        }
+        
+        // Lo que dejan de pagar todos los clientes del plan por la oferta
+        public long getAhorroTotal() {
+            return (plan.getPrecioMensual() - plan.calcularPrecioFinal()) * clientes;
+        }
+        
+        public boolean tieneOferta() {
+            return plan.getOfertaActiva();
+        }
+        
+        public PlanSector getPlan() {
+            return plan;
+        }
+        
+        public int getClientes() {
+            return clientes;
+        }
+        
+        public int getClientesActivos() {
+            return clientesActivos;
+        }
+    }
+}
\ No newline at end of file
@@ -2,6 +2,10 @@ package tvsystem.service;
 
 import tvsystem.model.PlanSector;
 import tvsystem.repository.PlanRepository;
+import tvsystem.util.BitacoraCambios;
+import tvsystem.util.CsvManager;
+import tvsystem.util.LoggerHelper;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -12,12 +16,23 @@ import java.util.*;
  */
 public class PlanService {
     private PlanRepository planRepository;
+    private GuardadoService guardado;
+    
+    // Evento a registrar en la bitacora despues de cambiar una oferta
+    private interface EventoBitacora {
+        void registrar(BitacoraCambios bitacora) throws IOException;
+    }
     
     // Constructor
     public PlanService(PlanRepository planRepository) {
         this.planRepository = planRepository;
     }
     
+    // Con servicio de guardado, si la bitacora falla la oferta se guarda con una reescritura en segundo plano
+    public void configurarGuardado(GuardadoService guardado) {
+        this.guardado = guardado;
+    }
+    
     public List<PlanSector> obtenerTodosLosPlanes() {
         return planRepository.findAll();
     }
@@ -34,14 +49,67 @@ public class PlanService {
         return planRepository.findByOfertaActiva();
     }
     
+    // Activa la oferta y la deja en disco
     public void activarOfertaPorSector(String nombreSector, double descuento) {
+        aplicarOferta(nombreSector, descuento);
+        persistirCambio(registrarEnBitacora(b -> b.ofertaActivada(nombreSector, descuento)));
+    }
+    
+    // Desactiva la oferta y la deja en disco
+    public void desactivarOfertaPorSector(String nombreSector) {
+        aplicarFinOferta(nombreSector);
+        persistirCambio(registrarEnBitacora(b -> b.ofertaDesactivada(nombreSector)));
+    }
+    
+    // Aplica una oferta ya registrada (al reproducir la bitacora) sin volver a registrarla
+    public void aplicarOferta(String nombreSector, double descuento) {
         if (descuento < 0 || descuento > 1) {
             throw new IllegalArgumentException("El descuento debe estar entre 0 y 1");
         }
         planRepository.activarOfertaPorSector(nombreSector, descuento);
     }
     
-    public void desactivarOfertaPorSector(String nombreSector) {
+    // Aplica el fin de una oferta ya registrado (al reproducir la bitacora) sin volver a registrarlo
+    public void aplicarFinOferta(String nombreSector) {
         planRepository.desactivarOfertaPorSector(nombreSector);
     }
+        
+    // --- METODOS PRIVADOS ---
+    
+    // Agrega el evento a la bitacora (si hay); retorna false si no hay bitacora o no se pudo escribir
+    private boolean registrarEnBitacora(EventoBitacora evento) {
+        BitacoraCambios bitacora = CsvManager.getBitacora();
+        if (bitacora == null) {
+            return false;
+        }
+        try {
+            evento.registrar(bitacora);
+        } catch (IOException e) {
+            LoggerHelper.error("No se pudo registrar la oferta en la bitacora: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+    
+    // Igual que en ClienteService: registrado en la bitacora basta; si no, se pide una reescritura
+    // en segundo plano que incluye la oferta. Sin servicio de guardado la oferta queda para el
+    // boton Guardar y se avisa en el log
+    private void persistirCambio(boolean registrado) {
+        if (registrado) {
+            compactarBitacoraSiCorresponde();
+        } else if (guardado != null) {
+            guardado.solicitarGuardado();
+        } else if (CsvManager.getBitacora() != null) {
+            LoggerHelper.warning("La oferta quedó aplicada pero no se pudo guardar en disco; use Guardar para conservarla");
+        }
+    }
+    
+    // Reescribe el archivo en segundo plano cuando la bitacora acumula demasiados eventos; sin
+    // servicio de guardado la compactacion queda para el siguiente cambio de clientes
+    private void compactarBitacoraSiCorresponde() {
+        BitacoraCambios bitacora = CsvManager.getBitacora();
+        if (guardado != null && bitacora != null && bitacora.requiereCompactacion()) {
+            guardado.solicitarGuardado();
+        }
+    }
 }
\ No newline at end of file
@@ -1,12 +1,21 @@
 package tvsystem.service;
 
+import tvsystem.config.AppConstants;
 import tvsystem.model.*;
+import tvsystem.repository.VersionDatos;
+import tvsystem.service.MetricasReporte.MetricasPlan;
+import tvsystem.service.MetricasReporte.MetricasSector;
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Servicio para la generación de reportes y analisis del sistema.
+ * Con muchos sectores, los conteos de cada sector (lo que recorre clientes) se
+ * calculan en paralelo dentro de un ForkJoinPool al armar las metricas.
+ * Cada reporte se arma desde una foto inmutable de los datos, asi que se puede
+ * generar en otro hilo mientras la interfaz sigue modificando clientes.
  * 
  * @author Elias Manriquez
  */
@@ -15,18 +24,34 @@ public class ReportService {
     private final SectorService sectorService;
     private final ClienteService clienteService;
     private final PlanService planService;
+    private final ForkJoinPool pool;
+    private final int umbralParalelo;
     
     // Costructor
     public ReportService(SectorService sectorService, 
                         ClienteService clienteService, 
                         PlanService planService) {
+        this(sectorService, clienteService, planService, ForkJoinPool.commonPool(),
+             AppConstants.UMBRAL_REPORTE_PARALELO_SECTORES);
+    }
+    
+    // Pool y cantidad minima de sectores para contar en paralelo configurables
+    public ReportService(SectorService sectorService, ClienteService clienteService,
+                         PlanService planService, ForkJoinPool pool, int umbralParalelo) {
         this.sectorService = sectorService;
         this.clienteService = clienteService;
         this.planService = planService;
+        this.pool = pool;
+        this.umbralParalelo = umbralParalelo;
     }
     
     // Genera el contenido completo del reporte de análisis
     public void generarReporteCompleto(PrintWriter writer) {
+        generarReporteCompleto(writer, sectorService.obtenerFoto());
+    }
+    
+    // Reporte completo de una foto ya tomada (para acompañarlo con otros datos de la misma foto)
+    public void generarReporteCompleto(PrintWriter writer, VersionDatos foto) {
         SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
         Date fechaActual = new Date();
         
@@ -38,11 +63,12 @@ public class ReportService {
         writer.println("═════════════════════════════════════════════════════════════");
         writer.println();
         
-        // Generar secciones del reporte
-        generarResumenEjecutivo(writer);
-        generarAnalisisDetallado(writer);
-        generarAnalisisPlanes(writer);
-        generarRecomendaciones(writer);
+        // Las mismas metricas alimentan todas las secciones
+        MetricasReporte metricas = calcularMetricas(foto);
+        generarResumenEjecutivo(writer, metricas);
+        generarAnalisisDetallado(writer, metricas);
+        generarAnalisisPlanes(writer, metricas);
+        generarRecomendaciones(writer, metricas);
         
         writer.println();
         writer.println("═════════════════════════════════════════════════════════════");
@@ -50,28 +76,40 @@ public class ReportService {
         writer.println("═════════════════════════════════════════════════════════════");
     }
     
+    // Reune los agregados de todas las secciones desde una foto nueva de los datos
+    public MetricasReporte calcularMetricas() {
+        return calcularMetricas(sectorService.obtenerFoto());
+    }
+    
+    public MetricasReporte calcularMetricas(VersionDatos foto) {
+        return MetricasReporte.calcular(foto, planService, pool, umbralParalelo);
+    }
+    
     // Genera el resumen
     public void generarResumenEjecutivo(PrintWriter writer) {
+        generarResumenEjecutivo(writer, calcularMetricas());
+    }
+    
+    public void generarResumenEjecutivo(PrintWriter writer, MetricasReporte metricas) {
         writer.println("RESUMEN EJECUTIVO");
         writer.println("─────────────────────────────────────────────────────────────");
         
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        int totalClientes = clienteService.contarClientesTotales();
-        int totalSectores = sectores.size();
-        List<PlanSector> planesConOferta = planService.obtenerPlanesConOferta();
+        int totalClientes = metricas.getTotalClientes();
+        int totalSectores = metricas.getSectores().size();
         
         writer.println("• Total de sectores activos: " + totalSectores);
         writer.println("• Total de clientes registrados: " + totalClientes);
         writer.println("• Promedio de clientes por sector: " + (totalSectores > 0 ? (totalClientes / totalSectores) : 0));
-        writer.println("• Planes con ofertas activas: " + planesConOferta.size());
+        writer.println("• Planes con ofertas activas: " + metricas.getPlanesConOferta().size());
         
         // Identificar sector mas y menos poblado
-        if (!sectores.isEmpty()) {
-            SectorMetrics metrics = analizarSectores(sectores);
-            writer.println("• Sector con mayor penetración: " + metrics.sectorMayor.getNombre() + 
-                          " (" + metrics.sectorMayor.contarClientes() + " clientes)");
-            writer.println("• Sector con menor penetración: " + metrics.sectorMenor.getNombre() + 
-                          " (" + metrics.sectorMenor.contarClientes() + " clientes)");
+        if (totalSectores > 0) {
+            MetricasSector sectorMayor = metricas.getSectorMayor();
+            MetricasSector sectorMenor = metricas.getSectorMenor();
+            writer.println("• Sector con mayor penetración: " + sectorMayor.getNombre() + 
+                          " (" + sectorMayor.getClientes() + " clientes)");
+            writer.println("• Sector con menor penetración: " + sectorMenor.getNombre() + 
+                          " (" + sectorMenor.getClientes() + " clientes)");
         }
         
         writer.println();
@@ -79,46 +117,15 @@ public class ReportService {
     
     // Genera analisis detallado por sector
     public void generarAnalisisDetallado(PrintWriter writer) {
+        generarAnalisisDetallado(writer, calcularMetricas());
+    }
+    
+    public void generarAnalisisDetallado(PrintWriter writer, MetricasReporte metricas) {
         writer.println("ANÁLISIS DETALLADO POR SECTOR");
         writer.println("─────────────────────────────────────────────────────────────");
         
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        sectores.sort((a, b) -> Integer.compare(b.contarClientes(), a.contarClientes()));
-        
-        for (Sector sector : sectores) {
-            writer.println();
-            writer.println("SECTOR: " + sector.getNombre());
-            writer.println("   ├── Clientes activos: " + sector.contarClientes());
-            
-            // Analisis de planes en el sector
-            List<PlanSector> planesSector = planService.obtenerPlanesPorSector(sector.getNombre());
-            writer.println("   ├── Planes disponibles: " + planesSector.size());
-            
-            if (!planesSector.isEmpty()) {
-                SectorFinancialMetrics metrics = calcularMetricasFinancieras(planesSector);
-                
-                writer.printf("   ├── Ingresos estimados del sector: $%,d/mes%n", metrics.ingresoTotal);
-                writer.println("   ├── Planes con ofertas activas: " + metrics.planesConDescuento + "/" + planesSector.size());
-                
-                // Mostrar detalles de cada plan
-                for (PlanMetrics planMetric : metrics.detallesPlanes) {
-                    writer.printf("   │   ├── %s: %d clientes, $%,d c/u → $%,d total%n", 
-                        planMetric.nombrePlan, 
-                        planMetric.clientesCount,
-                        planMetric.precioFinal,
-                        planMetric.ingresos);
-                        
-                    if (planMetric.tieneOferta) {
-                        writer.printf("   │   │   └── OFERTA: %.0f%% descuento (Precio original: $%,d)%n",
-                            planMetric.descuento * 100,
-                            planMetric.precioOriginal);
-                    }
-                }
-                
-                // Estado del sector
-                String estadoSector = determinarEstadoSector(sector.contarClientes());
-                writer.println("   └── Estado: " + estadoSector);
-            }
+        for (MetricasSector sector : metricas.getSectoresPorClientes()) {
+            escribirBloqueSector(writer, sector);
         }
         
         writer.println();
@@ -126,36 +133,37 @@ public class ReportService {
     
     // Genera analisis de planes y ofertas
     public void generarAnalisisPlanes(PrintWriter writer) {
+        generarAnalisisPlanes(writer, calcularMetricas());
+    }
+    
+    public void generarAnalisisPlanes(PrintWriter writer, MetricasReporte metricas) {
         writer.println("ANALISIS DE PLANES Y OFERTAS");
         writer.println("─────────────────────────────────────────────────────────────");
         
-        List<PlanSector> todosLosPlanes = planService.obtenerTodosLosPlanes();
-        List<PlanSector> planesConOferta = planService.obtenerPlanesConOferta();
+        List<MetricasPlan> planesConOferta = metricas.getPlanesConOferta();
         
         // Estadisticas generales de ofertas
         writer.println("Estadísticas de Ofertas:");
-        writer.println("   ├── Total de planes: " + todosLosPlanes.size());
+        writer.println("   ├── Total de planes: " + metricas.getTotalPlanes());
         writer.println("   ├── Planes con ofertas: " + planesConOferta.size());
-        writer.printf("   └── Porcentaje de penetración de ofertas: %.1f%%%n", 
-            todosLosPlanes.size() > 0 ? (planesConOferta.size() * 100.0 / todosLosPlanes.size()) : 0);
+        writer.printf("   └── Porcentaje de penetración de ofertas: %.1f%%%n", metricas.getPorcentajeOfertas());
         
         writer.println();
         
         // Analisis de ofertas por categoría
         if (!planesConOferta.isEmpty()) {
-            Map<String, List<PlanSector>> ofertasPorCategoria = categorizarOfertas(planesConOferta);
+            Map<String, List<MetricasPlan>> ofertasPorCategoria = categorizarOfertas(planesConOferta);
             
             writer.println("Ofertas Activas por Categoría:");
-            for (Map.Entry<String, List<PlanSector>> entry : ofertasPorCategoria.entrySet()) {
+            for (Map.Entry<String, List<MetricasPlan>> entry : ofertasPorCategoria.entrySet()) {
                 writer.println("   ├── " + entry.getKey() + ": " + entry.getValue().size() + " planes");
-                for (PlanSector plan : entry.getValue()) {
-                    List<Cliente> clientes = clienteService.obtenerClientesPorPlan(plan.getCodigoPlan());
-                    long ahorroTotal = (plan.getPrecioMensual() - plan.calcularPrecioFinal()) * clientes.size();
+                for (MetricasPlan planMetric : entry.getValue()) {
+                    PlanSector plan = planMetric.getPlan();
                     writer.printf("   │   └── %s: %.0f%% desc., %d clientes, $%,d ahorro total/mes%n",
                         plan.getCodigoPlan(),
                         plan.getDescuento() * 100,
-                        clientes.size(),
-                        ahorroTotal);
+                        planMetric.getClientes(),
+                        planMetric.getAhorroTotal());
                 }
             }
         }
@@ -165,17 +173,20 @@ public class ReportService {
     
     // Genera recomendaciones
     public void generarRecomendaciones(PrintWriter writer) {
+        generarRecomendaciones(writer, calcularMetricas());
+    }
+    
+    public void generarRecomendaciones(PrintWriter writer, MetricasReporte metricas) {
         writer.println("RECOMENDACIONES ESTRATÉGICAS");
         writer.println("─────────────────────────────────────────────────────────────");
         
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        SectorClassification classification = clasificarSectores(sectores);
+        SectorClassification classification = clasificarSectores(metricas.getSectores());
         
         writer.println("Recomendaciones de Crecimiento:");
         if (!classification.sectoresCriticos.isEmpty()) {
             writer.println("   ├── ALTA PRIORIDAD - Sectores críticos (" + classification.sectoresCriticos.size() + "):");
-            for (Sector sector : classification.sectoresCriticos) {
-                writer.println("   │   └── " + sector.getNombre() + " (" + sector.contarClientes() + " clientes)");
+            for (MetricasSector sector : classification.sectoresCriticos) {
+                writer.println("   │   └── " + sector.getNombre() + " (" + sector.getClientes() + " clientes)");
                 writer.println("   │       → Implementar campaña de captación intensiva");
                 writer.println("   │       → Considerar descuentos agresivos (20-30%)");
                 writer.println("   │       → Evaluar alianzas locales o promociones dirigidas");
@@ -184,8 +195,8 @@ public class ReportService {
         
         writer.println("   ├── OPTIMIZACIÓN - Sectores exitosos:");
         if (!classification.sectoresExcelentes.isEmpty()) {
-            for (Sector sector : classification.sectoresExcelentes) {
-                writer.println("   │   └── " + sector.getNombre() + " (" + sector.contarClientes() + " clientes)");
+            for (MetricasSector sector : classification.sectoresExcelentes) {
+                writer.println("   │   └── " + sector.getNombre() + " (" + sector.getClientes() + " clientes)");
                 writer.println("   │       → Mantener calidad de servicio");
                 writer.println("   │       → Considerar planes premium");
                 writer.println("   │       → Usar como modelo para otros sectores");
@@ -195,7 +206,7 @@ public class ReportService {
         }
         
         // Recomendaciones de ofertas
-        generateOfferRecommendations(writer);
+        generateOfferRecommendations(writer, metricas.getPorcentajeOfertas());
         
         writer.println();
         writer.println("Métricas Clave a Monitorear:");
@@ -210,62 +221,42 @@ public class ReportService {
     
     // --- METODOS DE APOYO PARA ANALISIS ---
     
-    private SectorMetrics analizarSectores(List<Sector> sectores) {
-        Sector sectorMayor = sectores.get(0);
-        Sector sectorMenor = sectores.get(0);
-        
-        for (Sector sector : sectores) {
-            int clientesSector = sector.contarClientes();
-            if (clientesSector > sectorMayor.contarClientes()) {
-                sectorMayor = sector;
-            }
-            if (clientesSector < sectorMenor.contarClientes()) {
-                sectorMenor = sector;
-            }
-        }
+    private void escribirBloqueSector(PrintWriter writer, MetricasSector sector) {
+        writer.println();
+        writer.println("SECTOR: " + sector.getNombre());
+        writer.println("   ├── Clientes activos: " + sector.getClientes());
         
-        return new SectorMetrics(sectorMayor, sectorMenor);
-    }
-    
-    private SectorFinancialMetrics calcularMetricasFinancieras(List<PlanSector> planes) {
-        long ingresoTotal = 0;
-        int planesConDescuento = 0;
-        List<PlanMetrics> detallesPlanes = new ArrayList<>();
+        // Analisis de planes en el sector
+        List<MetricasPlan> planesSector = sector.getPlanes();
+        writer.println("   ├── Planes disponibles: " + planesSector.size());
         
-        for (PlanSector plan : planes) {
-            List<Cliente> clientesConPlan = clienteService.obtenerClientesPorPlan(plan.getCodigoPlan());
+        if (!planesSector.isEmpty()) {
+            writer.printf("   ├── Ingresos estimados del sector: $%,d/mes%n", sector.getIngresoTotal());
+            writer.println("   ├── Planes con ofertas activas: " + sector.getPlanesConDescuento() + "/" + planesSector.size());
             
-            // Solo contar clientes con suscripciones ACTIVAS
-            int clientesActivos = 0;
-            for (Cliente cliente : clientesConPlan) {
-                if (cliente.getSuscripcion() != null && 
-                    "ACTIVA".equalsIgnoreCase(cliente.getSuscripcion().getEstado())) {
-                    clientesActivos++;
+            // Mostrar detalles de cada plan
+            for (MetricasPlan planMetric : planesSector) {
+                PlanSector plan = planMetric.getPlan();
+                writer.printf("   │   ├── %s: %d clientes, $%,d c/u → $%,d total%n", 
+                    plan.getNombrePlan(), 
+                    planMetric.getClientesActivos(),
+                    plan.calcularPrecioFinal(),
+                    planMetric.getIngresos());
+                
+                if (planMetric.tieneOferta()) {
+                    writer.printf("   │   │   └── OFERTA: %.0f%% descuento (Precio original: $%,d)%n",
+                        plan.getDescuento() * 100,
+                        plan.getPrecioMensual());
                 }
             }
             
-            long ingresos = plan.calcularPrecioFinal() * clientesActivos;
-            ingresoTotal += ingresos;
-            
-            if (plan.getOfertaActiva()) {
-                planesConDescuento++;
-            }
-            
-            detallesPlanes.add(new PlanMetrics(
-                plan.getNombrePlan(),
-                clientesActivos,
-                plan.calcularPrecioFinal(),
-                plan.getPrecioMensual(),
-                ingresos,
-                plan.getOfertaActiva(),
-                plan.getDescuento()
-            ));
+            // Estado del sector
+            String estadoSector = determinarEstadoSector(sector.getClientes());
+            writer.println("   └── Estado: " + estadoSector);
         }
-        
-        return new SectorFinancialMetrics(ingresoTotal, planesConDescuento, detallesPlanes);
     }
     
-    private String determinarEstadoSector(int clientesSector) {
+    static String determinarEstadoSector(int clientesSector) {
         if (clientesSector >= 100) {
             return "EXCELENTE - Sector consolidado";
         } else if (clientesSector >= 50) {
@@ -277,11 +268,11 @@ public class ReportService {
         }
     }
     
-    private Map<String, List<PlanSector>> categorizarOfertas(List<PlanSector> planesConOferta) {
-        Map<String, List<PlanSector>> categorias = new HashMap<>();
+    private Map<String, List<MetricasPlan>> categorizarOfertas(List<MetricasPlan> planesConOferta) {
+        Map<String, List<MetricasPlan>> categorias = new HashMap<>();
         
-        for (PlanSector plan : planesConOferta) {
-            double descuento = plan.getDescuento();
+        for (MetricasPlan plan : planesConOferta) {
+            double descuento = plan.getPlan().getDescuento();
             String categoria;
             if (descuento >= 0.25) {
                 categoria = "Alto descuento (25%+)";
@@ -297,12 +288,12 @@ public class ReportService {
         return categorias;
     }
     
-    private SectorClassification clasificarSectores(List<Sector> sectores) {
-        List<Sector> sectoresCriticos = new ArrayList<>();
-        List<Sector> sectoresExcelentes = new ArrayList<>();
+    private SectorClassification clasificarSectores(List<MetricasSector> sectores) {
+        List<MetricasSector> sectoresCriticos = new ArrayList<>();
+        List<MetricasSector> sectoresExcelentes = new ArrayList<>();
         
-        for (Sector sector : sectores) {
-            int clientes = sector.contarClientes();
+        for (MetricasSector sector : sectores) {
+            int clientes = sector.getClientes();
             if (clientes < 25) {
                 sectoresCriticos.add(sector);
             } else if (clientes >= 100) {
@@ -313,13 +304,8 @@ public class ReportService {
         return new SectorClassification(sectoresCriticos, sectoresExcelentes);
     }
     
-    private void generateOfferRecommendations(PrintWriter writer) {
-        List<PlanSector> planesConOferta = planService.obtenerPlanesConOferta();
-        List<PlanSector> todosLosPlanes = planService.obtenerTodosLosPlanes();
-        
+    private void generateOfferRecommendations(PrintWriter writer, double porcentajeOfertas) {
         writer.println("   └── OFERTAS Y PROMOCIONES:");
-        double porcentajeOfertas = todosLosPlanes.size() > 0 ? 
-            (planesConOferta.size() * 100.0 / todosLosPlanes.size()) : 0;
         
         if (porcentajeOfertas < 30) {
             writer.println("       → Aumentar penetración de ofertas (actual: " + 
@@ -338,54 +324,11 @@ public class ReportService {
     
     // --- CLASES DE DATOS PARA METRICAS ---
     
-    private static class SectorMetrics {
-        final Sector sectorMayor;
-        final Sector sectorMenor;
-        
-        SectorMetrics(Sector sectorMayor, Sector sectorMenor) {
-            this.sectorMayor = sectorMayor;
-            this.sectorMenor = sectorMenor;
-        }
-    }
-    
-    private static class SectorFinancialMetrics {
-        final long ingresoTotal;
-        final int planesConDescuento;
-        final List<PlanMetrics> detallesPlanes;
-        
-        SectorFinancialMetrics(long ingresoTotal, int planesConDescuento, List<PlanMetrics> detallesPlanes) {
-            this.ingresoTotal = ingresoTotal;
-            this.planesConDescuento = planesConDescuento;
-            this.detallesPlanes = detallesPlanes;
-        }
-    }
-    
-    private static class PlanMetrics {
-        final String nombrePlan;
-        final int clientesCount;
-        final long precioFinal;
-        final long precioOriginal;
-        final long ingresos;
-        final boolean tieneOferta;
-        final double descuento;
-        
-        PlanMetrics(String nombrePlan, int clientesCount, long precioFinal, 
-                   long precioOriginal, long ingresos, boolean tieneOferta, double descuento) {
-            this.nombrePlan = nombrePlan;
-            this.clientesCount = clientesCount;
-            this.precioFinal = precioFinal;
-            this.precioOriginal = precioOriginal;
-            this.ingresos = ingresos;
-            this.tieneOferta = tieneOferta;
-            this.descuento = descuento;
-        }
-    }
-    
     private static class SectorClassification {
-        final List<Sector> sectoresCriticos;
-        final List<Sector> sectoresExcelentes;
+        final List<MetricasSector> sectoresCriticos;
+        final List<MetricasSector> sectoresExcelentes;
         
-        SectorClassification(List<Sector> sectoresCriticos, List<Sector> sectoresExcelentes) {
+        SectorClassification(List<MetricasSector> sectoresCriticos, List<MetricasSector> sectoresExcelentes) {
             this.sectoresCriticos = sectoresCriticos;
             this.sectoresExcelentes = sectoresExcelentes;
         }
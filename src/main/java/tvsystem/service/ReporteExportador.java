@@ -0,0 +1,295 @@
+package tvsystem.service;
+
+import tvsystem.config.AppConstants;
+import tvsystem.model.*;
+import tvsystem.repository.VersionDatos;
+import tvsystem.repository.VersionDatos.VersionSector;
+import tvsystem.service.MetricasReporte.MetricasPlan;
+import tvsystem.service.MetricasReporte.MetricasSector;
+import tvsystem.util.AtomicFileHelper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Exporta el reporte de analisis a archivo en texto (el mismo de siempre), CSV o JSON.
+ *
+ * Todo se escribe directo a un buffer grande sobre un archivo temporal que
+ * reemplaza al destino al terminar. Las metricas y el anexo opcional con una
+ * linea por cliente salen de la misma foto inmutable de los datos: el archivo
+ * es coherente aunque se exporte en otro hilo mientras cambian los clientes,
+ * y recorrer la foto no copia listas, asi que la memoria no crece con la
+ * cantidad de clientes.
+ *
+ * @author Elias Manriquez
+ */
+public class ReporteExportador {
+    
+    private static final String FIN_DE_LINEA = System.lineSeparator();
+    
+    public enum Formato {
+        TXT, CSV, JSON;
+        
+        // Formato segun la extension del archivo; texto si no es .csv ni .json
+        public static Formato segunRuta(String ruta) {
+            String minusculas = ruta.toLowerCase();
+            if (minusculas.endsWith(AppConstants.EXTENSION_CSV)) {
+                return CSV;
+            }
+            if (minusculas.endsWith(AppConstants.EXTENSION_JSON)) {
+                return JSON;
+            }
+            return TXT;
+        }
+    }
+    
+    private final ReportService reportService;
+    private final SectorService sectorService;
+    
+    // Constructor
+    public ReporteExportador(ReportService reportService, SectorService sectorService) {
+        this.reportService = reportService;
+        this.sectorService = sectorService;
+    }
+    
+    // -- METODOS --
+    
+    // Escribe el reporte en el formato indicado; el texto usa el charset del sistema como antes
+    public void exportar(Path destino, Formato formato, boolean detalleClientes) throws IOException {
+        Charset charset = formato == Formato.TXT ? Charset.defaultCharset() : StandardCharsets.UTF_8;
+        VersionDatos foto = sectorService.obtenerFoto();
+        AtomicFileHelper.escribir(destino, charset, AppConstants.TAMANO_BUFFER_ESCRITURA_BYTES, 0, writer -> {
+            switch (formato) {
+                case CSV:
+                    escribirCsv(writer, foto, detalleClientes);
+                    break;
+                case JSON:
+                    escribirJson(writer, foto, detalleClientes);
+                    break;
+                default:
+                    escribirTxt(writer, foto, detalleClientes);
+                    break;
+            }
+        });
+    }
+    
+    // Reporte de texto completo y, si se pide, el anexo con una linea por cliente
+    public void escribirTxt(Writer writer, boolean detalleClientes) throws IOException {
+        escribirTxt(writer, sectorService.obtenerFoto(), detalleClientes);
+    }
+    
+    public void escribirTxt(Writer writer, VersionDatos foto, boolean detalleClientes) throws IOException {
+        PrintWriter printWriter = new PrintWriter(writer);
+        reportService.generarReporteCompleto(printWriter, foto);
+        printWriter.flush();
+        if (printWriter.checkError()) {
+            throw new IOException("Error al escribir el reporte");
+        }
+        
+        if (detalleClientes) {
+            writer.write(FIN_DE_LINEA);
+            writer.write("ANEXO: DETALLE POR CLIENTE" + FIN_DE_LINEA);
+            writer.write("SECTOR | RUT | NOMBRE | PLAN | ESTADO | PRECIO FINAL | PAGADO | PROXIMO VENCIMIENTO" + FIN_DE_LINEA);
+            StringBuilder linea = new StringBuilder(160);
+            for (VersionSector sector : foto.getSectores()) {
+                for (FotoCliente cliente : sector.getClientes()) {
+                    FotoSuscripcion suscripcion = cliente.getSuscripcion();
+                    PlanSector plan = foto.planDe(cliente);
+                    linea.setLength(0);
+                    linea.append(sector.getNombre()).append(" | ")
+                         .append(cliente.getRut()).append(" | ")
+                         .append(cliente.getNombre()).append(" | ")
+                         .append(plan != null ? plan.getCodigoPlan() : "-").append(" | ")
+                         .append(suscripcion != null ? suscripcion.getEstado() : "-").append(" | $")
+                         .append(plan != null ? plan.calcularPrecioFinal() : 0).append(" | ")
+                         .append(suscripcion != null && suscripcion.isPagado() ? "SI" : "NO").append(" | ")
+                         .append(suscripcion != null && suscripcion.getProximoVencimiento() != null
+                                 ? suscripcion.getProximoVencimiento().toString() : "-")
+                         .append(FIN_DE_LINEA);
+                    writer.append(linea);
+                }
+            }
+        }
+    }
+    
+    // Una fila por total, sector, plan y (opcional) cliente, todas con las mismas columnas
+    public void escribirCsv(Writer writer, boolean detalleClientes) throws IOException {
+        escribirCsv(writer, sectorService.obtenerFoto(), detalleClientes);
+    }
+    
+    public void escribirCsv(Writer writer, VersionDatos foto, boolean detalleClientes) throws IOException {
+        MetricasReporte metricas = reportService.calcularMetricas(foto);
+        writer.write("TIPO,SECTOR,PLAN,RUT,NOMBRE,ESTADO,CLIENTES,CLIENTES_ACTIVOS,PRECIO_FINAL,DESCUENTO,INGRESOS_MES"
+                     + FIN_DE_LINEA);
+        
+        long ingresosTotales = 0;
+        for (MetricasSector sector : metricas.getSectores()) {
+            ingresosTotales += sector.getIngresoTotal();
+        }
+        filaCsv(writer, "TOTAL", "", "", "", "", "", metricas.getTotalClientes(), "", "", "", ingresosTotales);
+        for (Map.Entry<String, Integer> entry : metricas.getClientesPorEstado().entrySet()) {
+            filaCsv(writer, "ESTADO", "", "", "", "", entry.getKey(), entry.getValue(), "", "", "", "");
+        }
+        
+        for (MetricasSector sector : metricas.getSectoresPorClientes()) {
+            filaCsv(writer, "SECTOR", sector.getNombre(), "", "", "", ReportService.determinarEstadoSector(sector.getClientes()),
+                    sector.getClientes(), "", "", "", sector.getIngresoTotal());
+            for (MetricasPlan planMetric : sector.getPlanes()) {
+                PlanSector plan = planMetric.getPlan();
+                filaCsv(writer, "PLAN", sector.getNombre(), plan.getCodigoPlan(), "", plan.getNombrePlan(),
+                        "", planMetric.getClientes(), planMetric.getClientesActivos(),
+                        plan.calcularPrecioFinal(), planMetric.tieneOferta() ? plan.getDescuento() : 0.0, planMetric.getIngresos());
+            }
+        }
+        
+        if (detalleClientes) {
+            for (VersionSector sector : foto.getSectores()) {
+                for (FotoCliente cliente : sector.getClientes()) {
+                    FotoSuscripcion suscripcion = cliente.getSuscripcion();
+                    PlanSector plan = foto.planDe(cliente);
+                    filaCsv(writer, "CLIENTE", sector.getNombre(), plan != null ? plan.getCodigoPlan() : "",
+                            cliente.getRut(), cliente.getNombre(), suscripcion != null ? suscripcion.getEstado() : "",
+                            "", "", plan != null ? plan.calcularPrecioFinal() : "", "", "");
+                }
+            }
+        }
+    }
+    
+    // Documento JSON con resumen, sectores con sus planes y (opcional) arreglo de clientes
+    public void escribirJson(Writer writer, boolean detalleClientes) throws IOException {
+        escribirJson(writer, sectorService.obtenerFoto(), detalleClientes);
+    }
+    
+    public void escribirJson(Writer writer, VersionDatos foto, boolean detalleClientes) throws IOException {
+        MetricasReporte metricas = reportService.calcularMetricas(foto);
+        
+        writer.write("{" + FIN_DE_LINEA);
+        writer.write("  \"fechaGeneracion\": " + textoJson(LocalDateTime.now().withNano(0).toString()) + "," + FIN_DE_LINEA);
+        writer.write("  \"totalClientes\": " + metricas.getTotalClientes() + "," + FIN_DE_LINEA);
+        writer.write("  \"totalPlanes\": " + metricas.getTotalPlanes() + "," + FIN_DE_LINEA);
+        writer.write("  \"planesConOferta\": " + metricas.getPlanesConOferta().size() + "," + FIN_DE_LINEA);
+        
+        writer.write("  \"clientesPorEstado\": {");
+        String separador = "";
+        for (Map.Entry<String, Integer> entry : metricas.getClientesPorEstado().entrySet()) {
+            writer.write(separador + textoJson(entry.getKey()) + ": " + entry.getValue());
+            separador = ", ";
+        }
+        writer.write("}," + FIN_DE_LINEA);
+        
+        writer.write("  \"sectores\": [");
+        separador = FIN_DE_LINEA;
+        for (MetricasSector sector : metricas.getSectoresPorClientes()) {
+            writer.write(separador + "    {\"nombre\": " + textoJson(sector.getNombre())
+                         + ", \"clientes\": " + sector.getClientes()
+                         + ", \"ingresosMes\": " + sector.getIngresoTotal()
+                         + ", \"estado\": " + textoJson(ReportService.determinarEstadoSector(sector.getClientes()))
+                         + ", \"planes\": [");
+            String separadorPlan = "";
+            for (MetricasPlan planMetric : sector.getPlanes()) {
+                PlanSector plan = planMetric.getPlan();
+                writer.write(separadorPlan + "{\"codigo\": " + textoJson(plan.getCodigoPlan())
+                             + ", \"nombre\": " + textoJson(plan.getNombrePlan())
+                             + ", \"clientes\": " + planMetric.getClientes()
+                             + ", \"clientesActivos\": " + planMetric.getClientesActivos()
+                             + ", \"precioBase\": " + plan.getPrecioMensual()
+                             + ", \"oferta\": " + planMetric.tieneOferta()
+                             + ", \"descuento\": " + (planMetric.tieneOferta() ? plan.getDescuento() : 0.0)
+                             + ", \"precioFinal\": " + plan.calcularPrecioFinal()
+                             + ", \"ingresosMes\": " + planMetric.getIngresos() + "}");
+                separadorPlan = ", ";
+            }
+            writer.write("]}");
+            separador = "," + FIN_DE_LINEA;
+        }
+        writer.write(FIN_DE_LINEA + "  ]");
+        
+        if (detalleClientes) {
+            writer.write("," + FIN_DE_LINEA + "  \"clientes\": [");
+            separador = FIN_DE_LINEA;
+            StringBuilder linea = new StringBuilder(200);
+            for (VersionSector sector : foto.getSectores()) {
+                for (FotoCliente cliente : sector.getClientes()) {
+                    FotoSuscripcion suscripcion = cliente.getSuscripcion();
+                    PlanSector plan = foto.planDe(cliente);
+                    linea.setLength(0);
+                    linea.append(separador).append("    {\"sector\": ").append(textoJson(sector.getNombre()))
+                         .append(", \"rut\": ").append(textoJson(cliente.getRut()))
+                         .append(", \"nombre\": ").append(textoJson(cliente.getNombre()))
+                         .append(", \"plan\": ").append(plan != null ? textoJson(plan.getCodigoPlan()) : "null")
+                         .append(", \"estado\": ").append(suscripcion != null ? textoJson(suscripcion.getEstado()) : "null")
+                         .append(", \"precioFinal\": ").append(plan != null ? plan.calcularPrecioFinal() : 0)
+                         .append(", \"pagado\": ").append(suscripcion != null && suscripcion.isPagado())
+                         .append(", \"proximoVencimiento\": ")
+                         .append(suscripcion != null && suscripcion.getProximoVencimiento() != null
+                                 ? textoJson(suscripcion.getProximoVencimiento().toString()) : "null")
+                         .append('}');
+                    writer.append(linea);
+                    separador = "," + FIN_DE_LINEA;
+                }
+            }
+            writer.write(FIN_DE_LINEA + "  ]");
+        }
+        writer.write(FIN_DE_LINEA + "}" + FIN_DE_LINEA);
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private static void filaCsv(Writer writer, Object... campos) throws IOException {
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(campoCsv(String.valueOf(campos[i])));
+        }
+        writer.write(FIN_DE_LINEA);
+    }
+    
+    // Entre comillas (duplicando las internas) solo si hace falta
+    private static String campoCsv(String texto) {
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return "\"" + texto.replace("\"", "\"\"") + "\"";
+    }
+    
+    private static String textoJson(String texto) {
+        if (texto == null) {
+            return "null";
+        }
+        StringBuilder salida = new StringBuilder(texto.length() + 2);
+        salida.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    salida.append("\\\"");
+                    break;
+                case '\\':
+                    salida.append("\\\\");
+                    break;
+                case '\n':
+                    salida.append("\\n");
+                    break;
+                case '\r':
+                    salida.append("\\r");
+                    break;
+                case '\t':
+                    salida.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        salida.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        salida.append(c);
+                    }
+            }
+        }
+        return salida.append('"').toString();
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package tvsystem.service;
 
 import tvsystem.model.Sector;
 import tvsystem.repository.SectorRepository;
+import tvsystem.repository.VersionDatos;
 import tvsystem.util.DataInitializer;
 import tvsystem.exception.SectorNoEncontradoException;
 import java.util.*;
@@ -29,6 +30,16 @@ public class SectorService {
         return sectorRepository.findAll();
     }
     
+    // Vista sin copia para recorridos de solo lectura
+    public Collection<Sector> obtenerSectoresView() {
+        return sectorRepository.findAllView();
+    }
+    
+    // Foto inmutable de sectores, clientes y planes para leerlos desde otro hilo (reportes, guardado)
+    public VersionDatos obtenerFoto() {
+        return sectorRepository.foto();
+    }
+    
     public List<Sector> identificarSectoresDebiles(int umbralMinimo) {
         return sectorRepository.findSectoresDebiles(umbralMinimo);
     }
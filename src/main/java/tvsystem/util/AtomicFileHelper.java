@@ -0,0 +1,125 @@
+package tvsystem.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritura segura de archivos: el contenido se escribe en un temporal en la
+ * misma carpeta, se fuerza a disco y luego se mueve de forma atomica sobre el
+ * destino. Un corte a mitad de escritura deja intacto el archivo anterior.
+ * Opcionalmente conserva las N versiones previas como destino.1 ... destino.N.
+ *
+ * @author Elias Manriquez
+ */
+public class AtomicFileHelper {
+    
+    // Contenido a escribir en el archivo temporal
+    public interface Escritura {
+        void escribir(Writer writer) throws IOException;
+    }
+    
+    // Contenido binario a escribir en el archivo temporal
+    public interface EscrituraBinaria {
+        void escribir(OutputStream salida) throws IOException;
+    }
+    
+    // Escribe el archivo de texto completo y lo reemplaza de forma atomica
+    public static void escribir(Path destino, Charset charset, int tamanoBuffer, int respaldos,
+                                Escritura escritura) throws IOException {
+        escribirBinario(destino, respaldos, salida -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(salida, charset), tamanoBuffer);
+            escritura.escribir(writer);
+            writer.flush();
+        });
+    }
+    
+    // Escribe el archivo completo y lo reemplaza de forma atomica; la escritura debe hacer su propio buffer
+    public static void escribirBinario(Path destino, int respaldos, EscrituraBinaria escritura) throws IOException {
+        Path carpeta = destino.toAbsolutePath().getParent();
+        Path temporal = Files.createTempFile(carpeta, "." + destino.getFileName() + ".", ".tmp");
+        
+        try {
+            copiarPermisos(destino, temporal);
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE,
+                                                      StandardOpenOption.TRUNCATE_EXISTING)) {
+                escritura.escribir(Channels.newOutputStream(canal));
+                canal.force(true);
+            }
+            
+            if (respaldos > 0 && Files.exists(destino)) {
+                rotarRespaldos(destino, respaldos);
+            }
+            mover(temporal, destino);
+            sincronizarCarpeta(carpeta);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+    
+    // Ruta del respaldo numero n (1 es el mas reciente)
+    public static Path rutaRespaldo(Path destino, int n) {
+        return destino.resolveSibling(destino.getFileName() + "." + n);
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Desplaza destino.k a destino.k+1 y deja la version actual como destino.1 sin quitarla de su lugar
+    private static void rotarRespaldos(Path destino, int respaldos) throws IOException {
+        Files.deleteIfExists(rutaRespaldo(destino, respaldos));
+        for (int i = respaldos - 1; i >= 1; i--) {
+            Path origen = rutaRespaldo(destino, i);
+            if (Files.exists(origen)) {
+                Files.move(origen, rutaRespaldo(destino, i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        
+        Path primero = rutaRespaldo(destino, 1);
+        try {
+            Files.createLink(primero, destino);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Sin enlaces duros (por ejemplo FAT o algunas unidades de red): copiar
+            Files.copy(destino, primero, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private static void mover(Path temporal, Path destino) throws IOException {
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            LoggerHelper.warning("El sistema de archivos no soporta reemplazo atomico, se usa reemplazo simple");
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    // createTempFile crea el archivo solo legible por el usuario; mantener los permisos del original
+    private static void copiarPermisos(Path destino, Path temporal) {
+        if (!Files.exists(destino)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(temporal, Files.getPosixFilePermissions(destino));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Sistema de archivos sin permisos POSIX
+        }
+    }
+    
+    // Persiste la entrada de directorio del rename; no todas las plataformas lo permiten
+    private static void sincronizarCarpeta(Path carpeta) {
+        try (FileChannel canal = FileChannel.open(carpeta, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // Windows no permite abrir carpetas como canal; el rename ya es durable alli
+        }
+    }
+}
\ No newline at end of file
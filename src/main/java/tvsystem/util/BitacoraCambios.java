@@ -0,0 +1,456 @@
+package tvsystem.util;
+
+import tvsystem.model.Cliente;
+import tvsystem.model.Suscripcion;
+import tvsystem.service.ClienteService;
+import tvsystem.service.PlanService;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bitacora de cambios (write-ahead journal) que acompaña al archivo de datos.
+ * Cada modificacion se agrega como una linea al final de "archivo.journal" y se
+ * fuerza a disco antes de retornar; varias modificaciones concurrentes se
+ * confirman juntas con un solo force (group commit). Al iniciar, las lineas se
+ * reproducen sobre la ultima foto del archivo y luego se compactan en una foto nueva.
+ *
+ * La compactacion no detiene a quienes registran: la foto se toma junto con la
+ * posicion de la bitacora, se escribe sin el candado y al final solo se
+ * descartan los eventos hasta esa posicion; los que llegaron mientras tanto
+ * quedan en la bitacora.
+ *
+ * Todas las operaciones son idempotentes, por lo que reproducir una bitacora
+ * sobre una foto que ya las incluye no altera los datos.
+ *
+ * @author Elias Manriquez
+ * @author Maximiliano Rodriguez
+ */
+public class BitacoraCambios implements Closeable {
+    
+    public static final String EXTENSION = ".journal";
+    
+    // Tipos de evento (primer campo de cada linea)
+    private static final String ALTA = "A";
+    private static final String BAJA = "B";
+    private static final String ESTADO = "S";
+    private static final String PAGO = "P";
+    private static final String DATOS = "M";
+    private static final String OFERTA = "O";
+    private static final String FIN_OFERTA = "F";
+    
+    private final Path ruta;
+    private FileChannel canal;
+    private final int umbralCompactacion;
+    
+    // Una compactacion a la vez; no bloquea a registrar
+    private final ReentrantLock compactacion = new ReentrantLock();
+    
+    // Group commit: las lineas se acumulan en pendiente y un lider las escribe y fuerza de una vez
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition confirmado = lock.newCondition();
+    private StringBuilder pendiente = new StringBuilder();
+    private long ultimaSecuencia;
+    private long secuenciaDurable;
+    private boolean escribiendo;
+    private IOException ultimoError;
+    private long errorDesde;
+    private long errorHasta;
+    private int eventos;
+    
+    // Escritura de la foto completa de los datos durante la compactacion
+    public interface EscrituraFoto<T> {
+        void guardar(T foto) throws IOException;
+    }
+    
+    // Constructor
+    private BitacoraCambios(Path ruta, FileChannel canal, int eventosExistentes, int umbralCompactacion) {
+        this.ruta = ruta;
+        this.canal = canal;
+        this.eventos = eventosExistentes;
+        this.umbralCompactacion = umbralCompactacion;
+    }
+    
+    // Abre (o crea) la bitacora asociada al archivo de datos para seguir agregando eventos
+    public static BitacoraCambios abrir(Path archivoDatos, int umbralCompactacion) throws IOException {
+        Path ruta = rutaPara(archivoDatos);
+        FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                                             StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new BitacoraCambios(ruta, canal, 0, umbralCompactacion);
+    }
+    
+    public static Path rutaPara(Path archivoDatos) {
+        return archivoDatos.resolveSibling(archivoDatos.getFileName() + EXTENSION);
+    }
+    
+    // -- EVENTOS --
+    
+    public void clienteAgregado(Cliente cliente, String nombreSector) throws IOException {
+        Suscripcion suscripcion = cliente.getSuscripcion();
+        StringBuilder linea = new StringBuilder(128);
+        linea.append(ALTA);
+        campo(linea, nombreSector);
+        campo(linea, cliente.getNombre());
+        campo(linea, cliente.getRut());
+        campo(linea, cliente.getDomicilio());
+        campo(linea, suscripcion != null && suscripcion.getPlan() != null ? suscripcion.getPlan().getCodigoPlan() : "");
+        campo(linea, suscripcion != null ? suscripcion.getEstado() : "");
+        campo(linea, suscripcion != null && suscripcion.isPagado() ? "true" : "false");
+        campo(linea, suscripcion != null ? fecha(suscripcion.getProximoVencimiento()) : "");
+        registrar(linea);
+    }
+    
+    public void clienteEliminado(String rut) throws IOException {
+        StringBuilder linea = new StringBuilder(32).append(BAJA);
+        campo(linea, rut);
+        registrar(linea);
+    }
+    
+    public void estadoCambiado(String rut, String estado) throws IOException {
+        StringBuilder linea = new StringBuilder(48).append(ESTADO);
+        campo(linea, rut);
+        campo(linea, estado);
+        registrar(linea);
+    }
+    
+    // Se guarda la fecha del pago para que la reproduccion de el mismo vencimiento
+    public void pagoRegistrado(String rut, LocalDate fechaPago) throws IOException {
+        StringBuilder linea = new StringBuilder(48).append(PAGO);
+        campo(linea, rut);
+        campo(linea, fecha(fechaPago));
+        registrar(linea);
+    }
+    
+    public void datosModificados(String rut, String nombre, String domicilio) throws IOException {
+        StringBuilder linea = new StringBuilder(96).append(DATOS);
+        campo(linea, rut);
+        campo(linea, nombre);
+        campo(linea, domicilio);
+        registrar(linea);
+    }
+    
+    public void ofertaActivada(String nombreSector, double descuento) throws IOException {
+        StringBuilder linea = new StringBuilder(48).append(OFERTA);
+        campo(linea, nombreSector);
+        campo(linea, Double.toString(descuento));
+        registrar(linea);
+    }
+    
+    public void ofertaDesactivada(String nombreSector) throws IOException {
+        StringBuilder linea = new StringBuilder(32).append(FIN_OFERTA);
+        campo(linea, nombreSector);
+        registrar(linea);
+    }
+    
+    // -- METODOS --
+    
+    // Verdadero cuando conviene escribir una foto nueva y vaciar la bitacora
+    public boolean requiereCompactacion() {
+        lock.lock();
+        try {
+            return eventos >= umbralCompactacion;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public int getEventos() {
+        lock.lock();
+        try {
+            return eventos;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public Path getRuta() {
+        return ruta;
+    }
+    
+    // Toma la foto con la bitacora bloqueada (lo registrado hasta ese punto ya esta en ella), la
+    // escribe sin bloquearla y luego descarta solo los eventos anteriores a la foto
+    public <T> void compactar(Supplier<T> tomarFoto, EscrituraFoto<T> escritura) throws IOException {
+        compactacion.lock();
+        try {
+            T foto;
+            long posicion;
+            int eventosEnFoto;
+            lock.lock();
+            try {
+                // Las lineas aun pendientes quedan despues de la posicion y se conservan
+                esperarEscritura();
+                posicion = canal.size();
+                eventosEnFoto = eventos - (int) (ultimaSecuencia - secuenciaDurable);
+                foto = tomarFoto.get();
+            } finally {
+                lock.unlock();
+            }
+            
+            escritura.guardar(foto);
+            
+            lock.lock();
+            try {
+                esperarEscritura();
+                descartarHasta(posicion);
+                eventos = Math.max(0, eventos - eventosEnFoto);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            compactacion.unlock();
+        }
+    }
+    
+    // Espera a que termine una compactacion en curso
+    @Override
+    public void close() throws IOException {
+        compactacion.lock();
+        try {
+            lock.lock();
+            try {
+                esperarEscritura();
+                escribirPendiente();
+                canal.close();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            compactacion.unlock();
+        }
+    }
+    
+    // Aplica los eventos de la bitacora sobre los datos ya cargados; retorna cuantos se aplicaron
+    public static int reproducir(Path archivoDatos, ClienteService clienteService, PlanService planService) throws IOException {
+        Path ruta = rutaPara(archivoDatos);
+        if (!Files.exists(ruta)) {
+            return 0;
+        }
+        
+        char[] contenido = new String(Files.readAllBytes(ruta), StandardCharsets.UTF_8).toCharArray();
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        ResumenImportacion resumen = new ResumenImportacion();
+        int aplicados = 0;
+        int inicio = 0;
+        
+        for (int i = 0; i < contenido.length; i++) {
+            if (contenido[i] != '\n') {
+                continue;
+            }
+            tokenizer.tokenizar(contenido, inicio, i);
+            if (aplicar(tokenizer, clienteService, planService, resumen)) {
+                aplicados++;
+            }
+            inicio = i + 1;
+        }
+        
+        // Una linea sin salto final quedo a medio escribir por un corte: se descarta
+        if (inicio < contenido.length) {
+            LoggerHelper.warning("Bitacora: se descarta la ultima linea incompleta");
+        }
+        return aplicados;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private static boolean aplicar(CsvTokenizer t, ClienteService clienteService, PlanService planService,
+                                   ResumenImportacion resumen) {
+        if (t.cantidad() < 2) {
+            return false;
+        }
+        String tipo = t.campo(0);
+        try {
+            switch (tipo) {
+                case ALTA: {
+                    RegistroCliente registro = new RegistroCliente(0, t.campo(1), t.campo(2), t.campo(3),
+                                                                   t.campo(4), t.campo(5));
+                    registro.setEstado(t.esVacio(6) ? "ACTIVA" : t.campoRecortado(6));
+                    registro.setPagado(t.esIgual(7, "true"));
+                    registro.setProximoVencimiento(t.cantidad() > 8 ? t.fecha(8) : null);
+                    return clienteService.importarClientes(Collections.singletonList(registro), resumen) > 0;
+                }
+                case BAJA:
+                    return clienteService.aplicarBaja(t.campo(1));
+                case ESTADO: {
+                    Suscripcion suscripcion = suscripcionDe(clienteService, t.campo(1));
+                    if (suscripcion == null) {
+                        return false;
+                    }
+                    String estado = t.campo(2);
+                    return clienteService.aplicarCambio(t.campo(1), c -> suscripcion.setEstado(estado));
+                }
+                case PAGO: {
+                    Suscripcion suscripcion = suscripcionDe(clienteService, t.campo(1));
+                    LocalDate fechaPago = t.fecha(2);
+                    if (suscripcion == null || fechaPago == null) {
+                        return false;
+                    }
+                    return clienteService.aplicarCambio(t.campo(1), c -> suscripcion.registrarPago(fechaPago));
+                }
+                case DATOS: {
+                    String nombre = t.campo(2);
+                    String domicilio = t.campo(3);
+                    return clienteService.aplicarCambio(t.campo(1), c -> {
+                        c.setNombre(nombre);
+                        c.setDomicilio(domicilio);
+                    });
+                }
+                case OFERTA:
+                    planService.aplicarOferta(t.campo(1), t.decimal(2, 0.0));
+                    return true;
+                case FIN_OFERTA:
+                    planService.aplicarFinOferta(t.campo(1));
+                    return true;
+                default:
+                    LoggerHelper.warning("Bitacora: evento desconocido " + tipo);
+                    return false;
+            }
+        } catch (RuntimeException e) {
+            LoggerHelper.warning("Bitacora: no se pudo aplicar evento " + tipo + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private static Suscripcion suscripcionDe(ClienteService clienteService, String rut) {
+        Cliente cliente = clienteService.obtenerClientePorRut(rut);
+        return cliente != null ? cliente.getSuscripcion() : null;
+    }
+    
+    // Agrega la linea y espera a que quede en disco; el primer hilo que encuentra la bitacora libre escribe por todos
+    private void registrar(StringBuilder linea) throws IOException {
+        linea.append('\n');
+        lock.lock();
+        try {
+            pendiente.append(linea);
+            long miSecuencia = ++ultimaSecuencia;
+            eventos++;
+            
+            while (secuenciaDurable < miSecuencia) {
+                if (escribiendo) {
+                    confirmado.awaitUninterruptibly();
+                } else {
+                    escribirPendiente();
+                }
+            }
+            
+            // El lote que incluia esta linea fallo (lo haya escrito este hilo u otro)
+            if (miSecuencia >= errorDesde && miSecuencia <= errorHasta) {
+                throw new IOException("No se pudo escribir la bitacora", ultimoError);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Debe llamarse con el lock tomado; lo suelta mientras escribe para que otros sigan encolando
+    private void escribirPendiente() {
+        if (pendiente.length() == 0) {
+            return;
+        }
+        StringBuilder lote = pendiente;
+        long desde = secuenciaDurable + 1;
+        long hasta = ultimaSecuencia;
+        pendiente = new StringBuilder();
+        escribiendo = true;
+        IOException error = null;
+        
+        lock.unlock();
+        try {
+            long tamanoPrevio = canal.size();
+            try {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(lote));
+                while (bytes.hasRemaining()) {
+                    canal.write(bytes);
+                }
+                canal.force(false);
+            } catch (IOException e) {
+                // No dejar una linea a medias que se mezcle con la siguiente
+                canal.truncate(tamanoPrevio);
+                throw e;
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+            escribiendo = false;
+            secuenciaDurable = hasta;
+            if (error != null) {
+                ultimoError = error;
+                errorDesde = desde;
+                errorHasta = hasta;
+                eventos -= (int) (hasta - desde + 1);
+                LoggerHelper.error("Error al escribir la bitacora: " + error.getMessage());
+            }
+            confirmado.signalAll();
+        }
+    }
+    
+    // Debe llamarse con el lock tomado y sin escritura en curso. Los eventos posteriores a la
+    // posicion pasan a un archivo nuevo que reemplaza a la bitacora de una vez, asi un corte
+    // deja la bitacora anterior completa (se reproduce de nuevo sin alterar los datos) o la nueva
+    private void descartarHasta(long posicion) throws IOException {
+        long tamano = canal.size();
+        if (tamano <= posicion) {
+            canal.truncate(0);
+            canal.force(true);
+            return;
+        }
+        
+        ByteBuffer cola = ByteBuffer.allocate((int) (tamano - posicion));
+        try (FileChannel lectura = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            while (cola.hasRemaining()) {
+                if (lectura.read(cola, posicion + cola.position()) < 0) {
+                    throw new IOException("La bitacora se acorto durante la compactacion");
+                }
+            }
+        }
+        cola.flip();
+        
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        try (FileChannel nueva = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                                                  StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (cola.hasRemaining()) {
+                nueva.write(cola);
+            }
+            nueva.force(true);
+        }
+        Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal.close();
+        canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    private void esperarEscritura() {
+        while (escribiendo) {
+            confirmado.awaitUninterruptibly();
+        }
+    }
+    
+    // Campo separado por coma; entre comillas si contiene separadores, con comillas internas duplicadas
+    private static void campo(StringBuilder linea, String valor) {
+        linea.append(',');
+        if (valor == null) {
+            return;
+        }
+        String limpio = valor.replace('\n', ' ').replace('\r', ' ');
+        if (limpio.indexOf(',') >= 0 || limpio.indexOf('"') >= 0) {
+            linea.append('"').append(limpio.replace("\"", "\"\"")).append('"');
+        } else {
+            linea.append(limpio);
+        }
+    }
+    
+    private static String fecha(LocalDate fecha) {
+        return fecha != null ? fecha.toString() : "";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package tvsystem.util;
+
+import tvsystem.model.PlanSector;
+import tvsystem.service.ClienteService;
+import tvsystem.service.PlanService;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Importacion masiva de clientes desde CSV.
+ * Lee el archivo en bloques de caracteres, separa cada linea con CsvTokenizer
+ * sin crear String intermedios y entrega las filas al servicio por lotes.
+ * Al final deja un resumen con el total de filas y filas por segundo.
+ *
+ * @author Maximiliano Rodriguez
+ * @author Elias Manriquez
+ */
+public class CsvImportador {
+    
+    public static final int TAMANO_LOTE = 4096;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    
+    // Posiciones de las columnas del CSV
+    private static final int COL_SECTOR = 0;
+    private static final int COL_NOMBRE = 1;
+    private static final int COL_RUT = 2;
+    private static final int COL_DOMICILIO = 3;
+    private static final int COL_PLAN = 4;
+    private static final int COL_ESTADO = 7;
+    private static final int COL_DESCUENTO = 9;
+    private static final int COL_PAGADO = 11;
+    private static final int COL_VENCIMIENTO = 12;
+    
+    private ClienteService clienteService;
+    private PlanService planService;
+    private CsvTokenizer tokenizer;
+    private List<RegistroCliente> lote;
+    private Map<String, Double> descuentosPorPlan;
+    private ResumenImportacion resumen;
+    
+    // Constructor
+    public CsvImportador(ClienteService clienteService, PlanService planService) {
+        this.clienteService = clienteService;
+        this.planService = planService;
+        this.tokenizer = new CsvTokenizer();
+        this.lote = new ArrayList<>(TAMANO_LOTE);
+        this.descuentosPorPlan = new HashMap<>();
+    }
+    
+    // -- METODOS --
+    
+    // Importa todas las filas del lector; la primera linea se toma como cabecera
+    public ResumenImportacion importar(Reader reader) throws IOException {
+        resumen = new ResumenImportacion();
+        char[] buffer = new char[TAMANO_BUFFER];
+        int inicio = 0;
+        int fin = 0;
+        int numeroLinea = 0;
+        
+        while (true) {
+            int leidos = reader.read(buffer, fin, buffer.length - fin);
+            if (leidos < 0) {
+                break;
+            }
+            int escaneo = fin;
+            fin += leidos;
+            
+            for (int i = escaneo; i < fin; i++) {
+                if (buffer[i] == '\n') {
+                    numeroLinea++;
+                    if (numeroLinea > 1) {
+                        procesarLinea(buffer, inicio, i, numeroLinea);
+                    }
+                    inicio = i + 1;
+                }
+            }
+            
+            // Mover la linea incompleta al inicio del buffer o agrandarlo si no cabe
+            if (inicio > 0) {
+                System.arraycopy(buffer, inicio, buffer, 0, fin - inicio);
+                fin -= inicio;
+                inicio = 0;
+            } else if (fin == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        
+        // Ultima linea sin salto de linea final
+        if (fin > inicio) {
+            numeroLinea++;
+            if (numeroLinea > 1) {
+                procesarLinea(buffer, inicio, fin, numeroLinea);
+            }
+        }
+        
+        enviarLote();
+        aplicarDescuentos();
+        resumen.finalizar();
+        return resumen;
+    }
+    
+    // Convierte una linea ya separada en registro; retorna null si no tiene los campos minimos
+    public static RegistroCliente crearRegistro(CsvTokenizer tokenizer, int numeroLinea) {
+        int campos = tokenizer.cantidad();
+        if (campos <= COL_PLAN) {
+            return null;
+        }
+        
+        RegistroCliente registro = new RegistroCliente(numeroLinea,
+            tokenizer.campo(COL_SECTOR),
+            tokenizer.campo(COL_NOMBRE),
+            tokenizer.campo(COL_RUT),
+            tokenizer.campo(COL_DOMICILIO),
+            tokenizer.campo(COL_PLAN));
+        
+        if (campos > COL_ESTADO && !tokenizer.esVacio(COL_ESTADO)) {
+            registro.setEstado(tokenizer.campoRecortado(COL_ESTADO));
+        }
+        
+        // Formato extendido con PAGADO y PROXIMO_VENCIMIENTO
+        if (campos > COL_VENCIMIENTO) {
+            registro.setPagado(tokenizer.esIgual(COL_PAGADO, "true"));
+            registro.setProximoVencimiento(tokenizer.fecha(COL_VENCIMIENTO));
+        }
+        return registro;
+    }
+    
+    // Retorna el descuento de la fila si viene informado, o 0
+    public static double leerDescuento(CsvTokenizer tokenizer) {
+        if (tokenizer.cantidad() <= COL_DESCUENTO + 1) {
+            return 0.0;
+        }
+        return tokenizer.decimal(COL_DESCUENTO, 0.0);
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private void procesarLinea(char[] buffer, int desde, int hasta, int numeroLinea) {
+        tokenizer.tokenizar(buffer, desde, hasta);
+        if (tokenizer.cantidad() == 1 && tokenizer.esVacio(0)) {
+            return; // Linea en blanco
+        }
+        
+        resumen.registrarFila();
+        RegistroCliente registro = crearRegistro(tokenizer, numeroLinea);
+        if (registro == null) {
+            resumen.registrarRechazo(numeroLinea, "campos insuficientes");
+            return;
+        }
+        
+        // El descuento se aplica una sola vez por plan al terminar la carga
+        double descuento = leerDescuento(tokenizer);
+        if (descuento > 0.0) {
+            descuentosPorPlan.putIfAbsent(registro.getCodigoPlan(), descuento);
+        }
+        
+        lote.add(registro);
+        if (lote.size() >= TAMANO_LOTE) {
+            enviarLote();
+        }
+    }
+    
+    private void enviarLote() {
+        if (!lote.isEmpty()) {
+            clienteService.importarClientes(lote, resumen);
+            lote.clear();
+        }
+    }
+    
+    private void aplicarDescuentos() {
+        aplicarDescuentos(descuentosPorPlan, planService, resumen);
+    }
+    
+    // Activa la oferta de cada plan con el primer descuento encontrado en el archivo
+    static void aplicarDescuentos(Map<String, Double> descuentosPorPlan, PlanService planService,
+                                  ResumenImportacion resumen) {
+        for (Map.Entry<String, Double> entry : descuentosPorPlan.entrySet()) {
+            PlanSector plan = planService.obtenerPlanPorCodigo(entry.getKey());
+            if (plan != null) {
+                plan.activarOferta(entry.getValue());
+                resumen.registrarOfertaRestaurada();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,277 @@
+package tvsystem.util;
+
+import tvsystem.config.AppConstants;
+import tvsystem.service.ClienteService;
+import tvsystem.service.PlanService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Importacion paralela de clientes desde CSV para archivos grandes.
+ * El archivo se divide en bloques que terminan en salto de linea; cada bloque
+ * se mapea en memoria con FileChannel.map y se lee en un ForkJoinPool.
+ * Los registros se insertan al final en el orden del archivo, por lo que un
+ * RUT repetido en dos bloques se rechaza igual que en la carga secuencial.
+ *
+ * @author Maximiliano Rodriguez
+ * @author Elias Manriquez
+ */
+public class CsvImportadorParalelo {
+    
+    private static final int TAMANO_BUSQUEDA = 8 * 1024;
+    private static final int MAX_LINEAS_RECHAZADAS = 10;
+    
+    private ClienteService clienteService;
+    private PlanService planService;
+    private ForkJoinPool pool;
+    private Charset charset;
+    private int tamanoBloque;
+    
+    // Constructor
+    public CsvImportadorParalelo(ClienteService clienteService, PlanService planService) {
+        this(clienteService, planService, ForkJoinPool.commonPool(), Charset.defaultCharset(),
+             AppConstants.TAMANO_BLOQUE_CARGA_BYTES);
+    }
+    
+    // Constructor Sobrecarga
+    public CsvImportadorParalelo(ClienteService clienteService, PlanService planService,
+                                 ForkJoinPool pool, Charset charset, int tamanoBloque) {
+        this.clienteService = clienteService;
+        this.planService = planService;
+        this.pool = pool;
+        this.charset = charset;
+        this.tamanoBloque = tamanoBloque;
+    }
+    
+    // -- METODOS --
+    
+    // Los separadores se buscan a nivel de bytes, asi que la codificacion debe ser compatible con ASCII
+    public static boolean soportaCharset(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset)
+            || StandardCharsets.US_ASCII.equals(charset)
+            || charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+    
+    // Importa todo el archivo; la primera linea se toma como cabecera
+    public ResumenImportacion importar(Path archivo) throws IOException {
+        ResumenImportacion resumen = new ResumenImportacion();
+        
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long[] limites = calcularLimites(canal);
+            Bloque[] bloques = new Bloque[limites.length - 1];
+            for (int i = 0; i < bloques.length; i++) {
+                bloques[i] = new Bloque(limites[i], limites[i + 1], i == 0);
+            }
+            
+            try {
+                pool.invoke(new LecturaBloques(canal, bloques, 0, bloques.length));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            
+            // Insertar en el orden del archivo con numeros de linea globales
+            Map<String, Double> descuentosPorPlan = new LinkedHashMap<>();
+            int lineaBase = 0;
+            for (Bloque bloque : bloques) {
+                for (RegistroCliente registro : bloque.registros) {
+                    registro.setNumeroLinea(lineaBase + registro.getNumeroLinea());
+                }
+                for (int linea : bloque.lineasRechazadas) {
+                    resumen.registrarRechazo(lineaBase + linea, "campos insuficientes");
+                }
+                resumen.registrarRechazosSinDetalle(bloque.rechazadas - bloque.lineasRechazadas.size());
+                for (Map.Entry<String, Double> entry : bloque.descuentosPorPlan.entrySet()) {
+                    descuentosPorPlan.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                
+                resumen.registrarFilas(bloque.filas);
+                clienteService.importarClientes(bloque.registros, resumen);
+                lineaBase += bloque.lineas;
+                bloque.registros = null;
+            }
+            
+            CsvImportador.aplicarDescuentos(descuentosPorPlan, planService, resumen);
+        }
+        
+        resumen.finalizar();
+        return resumen;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Divide el archivo en rangos de aproximadamente tamanoBloque que terminan justo despues de un salto de linea
+    private long[] calcularLimites(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        List<Long> limites = new ArrayList<>();
+        limites.add(0L);
+        
+        long inicio = 0;
+        while (inicio < tamano) {
+            long objetivo = inicio + tamanoBloque;
+            long fin = objetivo >= tamano ? tamano : buscarFinDeLinea(canal, objetivo, tamano);
+            limites.add(fin);
+            inicio = fin;
+        }
+        
+        long[] resultado = new long[limites.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = limites.get(i);
+        }
+        return resultado;
+    }
+    
+    private long buscarFinDeLinea(FileChannel canal, long desde, long tamano) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BUSQUEDA);
+        long posicion = desde;
+        while (posicion < tamano) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicion + i + 1;
+                }
+            }
+            posicion += leidos;
+        }
+        return tamano;
+    }
+    
+    // Decodifica un bloque mapeado y lo convierte en registros; se ejecuta en los hilos del pool
+    private void leerBloque(FileChannel canal, Bloque bloque) throws IOException {
+        long largo = bloque.fin - bloque.inicio;
+        if (largo == 0) {
+            return;
+        }
+        
+        MappedByteBuffer mapeado = canal.map(FileChannel.MapMode.READ_ONLY, bloque.inicio, largo);
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer texto;
+        try {
+            texto = decoder.decode(mapeado);
+        } catch (CharacterCodingException e) {
+            throw new IOException("No se pudo decodificar el bloque en " + bloque.inicio, e);
+        }
+        
+        char[] datos = texto.array();
+        int desde = texto.arrayOffset() + texto.position();
+        int hasta = texto.arrayOffset() + texto.limit();
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        int numeroLinea = 0;
+        int inicioLinea = desde;
+        
+        for (int i = desde; i <= hasta; i++) {
+            if (i < hasta && datos[i] != '\n') {
+                continue;
+            }
+            if (i == hasta && inicioLinea == hasta) {
+                break; // El bloque termina justo en un salto de linea
+            }
+            numeroLinea++;
+            if (!(bloque.conCabecera && numeroLinea == 1)) {
+                procesarLinea(tokenizer, datos, inicioLinea, i, numeroLinea, bloque);
+            }
+            inicioLinea = i + 1;
+        }
+        bloque.lineas = numeroLinea;
+    }
+    
+    private void procesarLinea(CsvTokenizer tokenizer, char[] datos, int desde, int hasta,
+                               int numeroLinea, Bloque bloque) {
+        tokenizer.tokenizar(datos, desde, hasta);
+        if (tokenizer.cantidad() == 1 && tokenizer.esVacio(0)) {
+            return; // Linea en blanco
+        }
+        
+        bloque.filas++;
+        RegistroCliente registro = CsvImportador.crearRegistro(tokenizer, numeroLinea);
+        if (registro == null) {
+            bloque.rechazadas++;
+            if (bloque.lineasRechazadas.size() < MAX_LINEAS_RECHAZADAS) {
+                bloque.lineasRechazadas.add(numeroLinea);
+            }
+            return;
+        }
+        
+        double descuento = CsvImportador.leerDescuento(tokenizer);
+        if (descuento > 0.0) {
+            bloque.descuentosPorPlan.putIfAbsent(registro.getCodigoPlan(), descuento);
+        }
+        
+        // Validar y formatear el RUT aqui para no hacerlo en la etapa secuencial
+        registro.prepararRut();
+        bloque.registros.add(registro);
+    }
+    
+    // --- TAREAS DEL POOL ---
+    
+    // Reparte los bloques en mitades hasta quedar con uno por tarea
+    private class LecturaBloques extends RecursiveAction {
+        private final FileChannel canal;
+        private final Bloque[] bloques;
+        private final int desde;
+        private final int hasta;
+        
+        LecturaBloques(FileChannel canal, Bloque[] bloques, int desde, int hasta) {
+            this.canal = canal;
+            this.bloques = bloques;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+        
+        @Override
+        protected void compute() {
+            if (hasta - desde <= 1) {
+                if (desde < hasta) {
+                    try {
+                        leerBloque(canal, bloques[desde]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new LecturaBloques(canal, bloques, desde, medio),
+                      new LecturaBloques(canal, bloques, medio, hasta));
+        }
+    }
+    
+    // --- CLASES DE DATOS PARA BLOQUES ---
+    
+    private static class Bloque {
+        final long inicio;
+        final long fin;
+        final boolean conCabecera;
+        List<RegistroCliente> registros = new ArrayList<>();
+        Map<String, Double> descuentosPorPlan = new LinkedHashMap<>();
+        List<Integer> lineasRechazadas = new ArrayList<>();
+        int lineas;
+        int filas;
+        int rechazadas;
+        
+        Bloque(long inicio, long fin, boolean conCabecera) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.conCabecera = conCabecera;
+        }
+    }
+}
\ No newline at end of file
@@ -1,8 +1,11 @@
 package tvsystem.util;
 
+import tvsystem.config.AppConstants;
 import tvsystem.model.*;
+import tvsystem.repository.VersionDatos;
 import tvsystem.service.*;
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.*;
 
 /**
@@ -13,7 +16,18 @@ import java.util.*;
  */
 public class CsvManager {
     
-    private static String archivoActual = null;
+    // Volatiles: el guardado en segundo plano los lee desde su propio hilo
+    private static volatile String archivoActual = null;
+    private static ModoCarga modoCarga = ModoCarga.AUTOMATICO;
+    private static volatile int respaldos = AppConstants.RESPALDOS_CSV;
+    private static volatile BitacoraCambios bitacora = null;
+    
+    // Forma de leer el archivo al cargar los datos
+    public enum ModoCarga {
+        AUTOMATICO,   // Paralelo solo para archivos sobre el umbral configurado
+        SECUENCIAL,
+        PARALELO
+    }
     
     /**
      * Solicita al usuario seleccionar archivo CSV
@@ -32,6 +46,8 @@ public class CsvManager {
     public static boolean cargarDatos(SectorService sectorService, ClienteService clienteService, PlanService planService) {
         if (archivoActual == null) return false;
         
+        // Mientras se cargan y reproducen los datos no hay bitacora donde registrar cambios
+        cerrarBitacora();
         File archivo = new File(archivoActual);
         if (!archivo.exists()) {
             LoggerHelper.info("Archivo nuevo: " + archivoActual);
@@ -40,123 +56,37 @@ public class CsvManager {
             // Generar datos ficticios para archivo nuevo
             DatosFicticiosGenerator.generarClientesFicticios(sectorService, clienteService, planService);
             
-            return true;
+            // La bitacora necesita una foto inicial sobre la cual reproducirse
+            return iniciarBitacora(sectorService, clienteService, planService, true);
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(archivo))) {
-            String linea;
-            int clientesCargados = 0;
-            Map<String, Double> descuentosPorPlan = new HashMap<>();
-            
-            LoggerHelper.info("Cargando datos desde: " + archivoActual);
+        LoggerHelper.info("Cargando datos desde: " + archivoActual);
             
-            // Leer cabecera
-            String cabecera = reader.readLine();
-            if (cabecera == null) {
-                LoggerHelper.warning("Archivo CSV vacío");
-                return true;
-            }
-            
-            while ((linea = reader.readLine()) != null) {
-                String[] datos = linea.split(",");
-                
-                try {
-                    String sector, nombre, rut, domicilio, codigoPlan;
-                    String estadoSuscripcion = "ACTIVA"; // Estado por defecto
-                    boolean pagado = true; // Por defecto pagado
-                    java.time.LocalDate proximoVencimiento = null;
-                    double descuentoPlan = 0.0;
-                    boolean tieneDescuento = false;
-                    
-                    sector = datos[0];
-                    nombre = datos[1];
-                    rut = datos[2];
-                    domicilio = datos[3];
-                    codigoPlan = datos[4];
-                        
-                    // Leer estado de suscripcion si existe 
-                    if (datos.length >= 8) {
-                        estadoSuscripcion = datos[7].trim().isEmpty() ? "ACTIVA" : datos[7];
-                    }
-                        
-                    if (datos.length >= 11) {
-                        try {
-                            descuentoPlan = Double.parseDouble(datos[9]); // Campo DESCUENTO
-                            tieneDescuento = descuentoPlan > 0.0;
-                                
-                            // Almacenar descuento por plan para aplicarlo una sola vez
-                            if (tieneDescuento && !descuentosPorPlan.containsKey(codigoPlan)) {
-                                descuentosPorPlan.put(codigoPlan, descuentoPlan);
-                            }
-                        } catch (NumberFormatException e) {
-                            descuentoPlan = 0.0;
-                        }
-                    }
-                    
-                    // Leer campos adicionales si existen (formato extendido con 13 campos)
-                    if (datos.length >= 13) {
-                        // Campo PAGADO (posicion 11)
-                        String pagadoStr = datos[11].trim();
-                        pagado = "true".equalsIgnoreCase(pagadoStr);
-                        
-                        // Campo PROXIMO_VENCIMIENTO (posicion 12)
-                        String vencimientoStr = datos[12].trim();
-                        if (!vencimientoStr.isEmpty()) {
-                            try {
-                                proximoVencimiento = java.time.LocalDate.parse(vencimientoStr);
-                            } catch (Exception e) {
-                                // Si falla el parsing, usar valor por defecto
-                                proximoVencimiento = null;
-                            }
-                        }
-                    }
-                    
-                    // Usar la sobrecarga para crear cliente con estado personalizado
-                    boolean exitoso;
-                    if (proximoVencimiento != null) {
-                        // Usar sobrecarga con estado personalizado
-                        exitoso = clienteService.agregarCliente(sector, nombre, rut, domicilio, codigoPlan,
-                                                              estadoSuscripcion, proximoVencimiento, pagado);
-                    } else {
-                        // Usar metodo original
-                        exitoso = clienteService.agregarCliente(sector, nombre, rut, domicilio, codigoPlan);
-                        // Si se creo exitoso, actualizar el estado manualmente
-                        if (exitoso) {
-                            Cliente clienteAgregado = clienteService.obtenerClientePorRut(rut);
-                            if (clienteAgregado != null && clienteAgregado.getSuscripcion() != null) {
-                                clienteAgregado.getSuscripcion().setEstado(estadoSuscripcion);
-                                clienteAgregado.getSuscripcion().setPagado(pagado);
-                            }
-                        }
-                    }
-                    
-                    if (exitoso) {
-                        clientesCargados++;
-                        LoggerHelper.debug("Cliente cargado: " + nombre + " - Estado: " + estadoSuscripcion + 
-                                         " - Pagado: " + pagado + " - Vencimiento: " + proximoVencimiento);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error al cargar cliente: " + linea);
+        try {
+            ResumenImportacion resumen;
+            if (esSnapshotBinario(archivoActual)) {
+                resumen = SnapshotBinario.leer(archivo.toPath(), clienteService, planService);
+            } else if (usarCargaParalela(archivo)) {
+                LoggerHelper.info("Carga paralela en " + Runtime.getRuntime().availableProcessors() + " nucleos");
+                resumen = new CsvImportadorParalelo(clienteService, planService).importar(archivo.toPath());
+            } else {
+                try (Reader reader = new FileReader(archivo)) {
+                    resumen = new CsvImportador(clienteService, planService).importar(reader);
                 }
             }
             
-            // Aplicar descuentos a los planes despues de cargar todos los clientes
-            for (Map.Entry<String, Double> entry : descuentosPorPlan.entrySet()) {
-                String codigoPlan = entry.getKey();
-                Double descuento = entry.getValue();
-                
-                PlanSector plan = planService.obtenerPlanPorCodigo(codigoPlan);
-                if (plan != null) {
-                    plan.activarOferta(descuento);
-                    LoggerHelper.success("Descuento " + (descuento * 100) + "% aplicado al plan: " + codigoPlan);
-                }
+            if (resumen.getFilasLeidas() == 0 && archivo.length() == 0) {
+                LoggerHelper.warning("Archivo CSV vacío");
+            } else {
+                resumen.registrarEnLog(archivoActual);
             }
             
-            LoggerHelper.success("Datos cargados: " + clientesCargados + " clientes");
-            if (!descuentosPorPlan.isEmpty()) {
-                LoggerHelper.info("Ofertas restauradas: " + descuentosPorPlan.size() + " planes con descuentos");
+            // Cambios registrados despues de la ultima foto
+            int eventos = BitacoraCambios.reproducir(archivo.toPath(), clienteService, planService);
+            if (eventos > 0) {
+                LoggerHelper.info("Bitacora: " + eventos + " cambios recuperados desde el ultimo guardado");
             }
-            return true;
+            return iniciarBitacora(sectorService, clienteService, planService, eventos > 0);
             
         } catch (IOException e) {
             System.err.println("Error al leer archivo CSV: " + e.getMessage());
@@ -171,34 +101,18 @@ public class CsvManager {
             return false;
         }
         
-        try (PrintWriter writer = new PrintWriter(new FileWriter(archivoActual))) {
-            writer.println("SECTOR,NOMBRE,RUT,DOMICILIO,PLAN,FECHA_INICIO,FECHA_TERMINO,ESTADO_SUSCRIPCION,PRECIO_BASE,DESCUENTO,PRECIO_FINAL,PAGADO,PROXIMO_VENCIMIENTO");
-            
-            List<Cliente> clientes = clienteService.obtenerTodosLosClientes();
-            for (Cliente cliente : clientes) {
-                if (cliente.getSuscripcion() != null) {
-                    Suscripcion suscripcion = cliente.getSuscripcion();
-                    PlanSector plan = suscripcion.getPlan();
-                    
-                    writer.printf("%s,%s,%s,%s,%s,%s,%s,%s,%d,%.2f,%d,%s,%s%n",
-                        escapar(plan.getSectorAsociado()),
-                        escapar(cliente.getNombre()),
-                        escapar(cliente.getRut()),
-                        escapar(cliente.getDomicilio()),
-                        escapar(plan.getCodigoPlan()),
-                        suscripcion.getFechaInicio(),
-                        suscripcion.getFechaTermino() != null ? suscripcion.getFechaTermino() : "",
-                        escapar(suscripcion.getEstado() != null ? suscripcion.getEstado() : "ACTIVA"),
-                        plan.getPrecioMensual(),
-                        plan.getDescuento(),
-                        plan.calcularPrecioFinal(),
-                        suscripcion.isPagado() ? "true" : "false",
-                        suscripcion.getProximoVencimiento() != null ? suscripcion.getProximoVencimiento() : ""
-                    );
-                }
+        try {
+            int[] guardados = new int[1];
+            BitacoraCambios abierta = bitacora;
+            if (abierta != null) {
+                // La foto se escribe sin bloquear la bitacora; los cambios registrados mientras tanto se conservan
+                abierta.compactar(sectorService::obtenerFoto,
+                                  foto -> guardados[0] = escribirFoto(archivoActual, foto, planService, respaldos));
+            } else {
+                guardados[0] = escribirFoto(archivoActual, sectorService.obtenerFoto(), planService, respaldos);
             }
             
-            LoggerHelper.success("Guardado exitoso: " + clientes.size() + " clientes en " + archivoActual);
+            LoggerHelper.success("Guardado exitoso: " + guardados[0] + " clientes en " + archivoActual);
             return true;
             
         } catch (IOException e) {
@@ -207,15 +121,158 @@ public class CsvManager {
         }
     }
     
-    private static String escapar(String texto) {
-        if (texto == null) return "";
-        return texto.contains(",") ? "\"" + texto + "\"" : texto;
+    // Escribe una copia de los datos en otra ruta (CSV o .tvsb segun la extension) sin cambiar el archivo actual
+    public static boolean exportarDatos(String ruta, SectorService sectorService, PlanService planService) {
+        try {
+            int clientes = escribirFoto(ruta, sectorService.obtenerFoto(), planService, 0);
+            LoggerHelper.success("Exportados " + clientes + " clientes a " + ruta);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al exportar: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // El formato se decide por la extension del archivo
+    public static boolean esSnapshotBinario(String ruta) {
+        return ruta != null && ruta.toLowerCase().endsWith(AppConstants.EXTENSION_SNAPSHOT);
+    }
+    
+    // Cierra la bitacora al salir; lo ya registrado se recupera en la proxima carga
+    public static void cerrarBitacora() {
+        if (bitacora == null) {
+            return;
+        }
+        try {
+            bitacora.close();
+        } catch (IOException e) {
+            LoggerHelper.error("Error al cerrar la bitacora: " + e.getMessage());
+        }
+        bitacora = null;
+    }
+    
+    // Escribe cabecera y filas con un unico codificador reutilizado; retorna la cantidad de filas escritas
+    public static int escribirCsv(Writer writer, Iterable<Cliente> clientes) throws IOException {
+        writer.write(CsvRowEncoder.CABECERA);
+        writer.write(System.lineSeparator());
+        
+        CsvRowEncoder encoder = new CsvRowEncoder();
+        int filas = 0;
+        for (Cliente cliente : clientes) {
+            if (encoder.codificar(cliente.getFoto())) {
+                encoder.escribirEn(writer);
+                filas++;
+            }
+        }
+        return filas;
+    }
+    
+    // Igual, con los clientes y los precios congelados de una foto de los datos
+    public static int escribirCsv(Writer writer, VersionDatos foto) throws IOException {
+        writer.write(CsvRowEncoder.CABECERA);
+        writer.write(System.lineSeparator());
+        
+        CsvRowEncoder encoder = new CsvRowEncoder();
+        int filas = 0;
+        for (FotoCliente cliente : foto.getClientes()) {
+            if (encoder.codificar(cliente, foto.planDe(cliente))) {
+                encoder.escribirEn(writer);
+                filas++;
+            }
+        }
+        return filas;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Escribe la foto sin tomar candados, asi que puede correr en otro hilo mientras cambian los datos
+    private static int escribirFoto(String ruta, VersionDatos foto, PlanService planService,
+                                    int respaldos) throws IOException {
+        java.nio.file.Path destino = new File(ruta).toPath();
+        if (esSnapshotBinario(ruta)) {
+            // Planes en el orden del servicio, con la oferta y el descuento congelados en la foto
+            List<PlanSector> planes = new ArrayList<>();
+            for (PlanSector plan : planService.obtenerTodosLosPlanes()) {
+                PlanSector congelado = foto.getPlan(plan.getCodigoPlan());
+                if (congelado != null) {
+                    planes.add(congelado);
+                }
+            }
+            List<FotoCliente> clientes = new ArrayList<>(foto.contarClientes());
+            foto.forEachCliente(clientes::add);
+            AtomicFileHelper.escribirBinario(destino, respaldos,
+                                             salida -> SnapshotBinario.escribir(salida, clientes, planes));
+        } else {
+            AtomicFileHelper.escribir(destino, Charset.defaultCharset(),
+                                      AppConstants.TAMANO_BUFFER_ESCRITURA_BYTES, respaldos,
+                                      writer -> escribirCsv(writer, foto));
+        }
+        return foto.contarClientes();
+    }
+    
+    // Abre la bitacora del archivo actual; compacta primero si se pide
+    private static boolean iniciarBitacora(SectorService sectorService, ClienteService clienteService,
+                                           PlanService planService, boolean compactar) {
+        cerrarBitacora();
+        try {
+            bitacora = BitacoraCambios.abrir(new File(archivoActual).toPath(),
+                                             AppConstants.UMBRAL_COMPACTACION_BITACORA);
+            // Una bitacora con solo una linea incompleta tambien se vacia
+            compactar = compactar || java.nio.file.Files.size(bitacora.getRuta()) > 0;
+        } catch (IOException e) {
+            LoggerHelper.warning("No se pudo abrir la bitacora, los cambios se guardaran solo al guardar: " + e.getMessage());
+            bitacora = null;
+            return true;
+        }
+        
+        if (compactar) {
+            return guardarDatos(sectorService, clienteService, planService);
+        }
+        return true;
+    }
+    
+    private static boolean usarCargaParalela(File archivo) {
+        if (modoCarga == ModoCarga.SECUENCIAL || !CsvImportadorParalelo.soportaCharset(Charset.defaultCharset())) {
+            return false;
+        }
+        return modoCarga == ModoCarga.PARALELO || archivo.length() >= AppConstants.UMBRAL_CARGA_PARALELA_BYTES;
     }
     
     public static String getArchivoActual() {
         return archivoActual;
     }
     
+    // Bitacora abierta del archivo actual, o null; los servicios la consultan en cada cambio, asi
+    // nunca registran en una ya cerrada al cambiar de archivo
+    public static BitacoraCambios getBitacora() {
+        return bitacora;
+    }
+    
+    // Selecciona el archivo sin dialogo (linea de comandos y benchmarks); cierra la bitacora del anterior
+    public static void setArchivoActual(String ruta) {
+        if (!Objects.equals(ruta, archivoActual)) {
+            cerrarBitacora();
+        }
+        archivoActual = ruta;
+    }
+    
+    public static ModoCarga getModoCarga() {
+        return modoCarga;
+    }
+    
+    public static void setModoCarga(ModoCarga modo) {
+        modoCarga = modo;
+    }
+    
+    public static int getRespaldos() {
+        return respaldos;
+    }
+    
+    // Cantidad de versiones anteriores que se conservan al guardar (0 para no rotar)
+    public static void setRespaldos(int cantidad) {
+        respaldos = Math.max(0, cantidad);
+    }
+    
     public static boolean tieneArchivoSeleccionado() {
         return archivoActual != null;
     }
@@ -0,0 +1,203 @@
+package tvsystem.util;
+
+import tvsystem.model.FotoCliente;
+import tvsystem.model.FotoSuscripcion;
+import tvsystem.model.PlanSector;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+
+/**
+ * Codifica filas de clientes al formato CSV de 13 campos sin usar printf.
+ * Escribe en un arreglo de caracteres que se reutiliza entre filas, sin
+ * boxing ni formatos interpretados; los decimales siempre usan punto.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class CsvRowEncoder {
+    
+    public static final String CABECERA = "SECTOR,NOMBRE,RUT,DOMICILIO,PLAN,FECHA_INICIO,FECHA_TERMINO,"
+        + "ESTADO_SUSCRIPCION,PRECIO_BASE,DESCUENTO,PRECIO_FINAL,PAGADO,PROXIMO_VENCIMIENTO";
+    
+    private static final String FIN_DE_LINEA = System.lineSeparator();
+    private static final int CAPACIDAD_INICIAL = 256;
+    
+    private char[] buffer;
+    private int largo;
+    
+    // Los clientes de una misma carga comparten fechas, asi que se recuerda la ultima de cada columna
+    private final CacheFecha cacheInicio = new CacheFecha();
+    private final CacheFecha cacheTermino = new CacheFecha();
+    
+    // Constructor
+    public CsvRowEncoder() {
+        this.buffer = new char[CAPACIDAD_INICIAL];
+    }
+    
+    // -- METODOS --
+    
+    // Codifica la fila con los datos de la foto del cliente; retorna false si no tiene suscripcion o plan
+    public boolean codificar(FotoCliente cliente) {
+        FotoSuscripcion suscripcion = cliente.getSuscripcion();
+        return codificar(cliente, suscripcion != null ? suscripcion.getPlan() : null);
+    }
+    
+    // Igual, pero con los precios del plan indicado (la copia congelada de una foto de los datos)
+    public boolean codificar(FotoCliente cliente, PlanSector plan) {
+        largo = 0;
+        FotoSuscripcion suscripcion = cliente.getSuscripcion();
+        if (suscripcion == null || plan == null) {
+            return false;
+        }
+        
+        agregarEscapado(plan.getSectorAsociado());
+        agregar(',');
+        agregarEscapado(cliente.getNombre());
+        agregar(',');
+        agregarEscapado(cliente.getRut());
+        agregar(',');
+        agregarEscapado(cliente.getDomicilio());
+        agregar(',');
+        agregarEscapado(plan.getCodigoPlan());
+        agregar(',');
+        agregarFecha(cacheInicio, suscripcion.getFechaInicio());
+        agregar(',');
+        agregarFecha(cacheTermino, suscripcion.getFechaTermino());
+        agregar(',');
+        agregarEscapado(suscripcion.getEstado() != null ? suscripcion.getEstado() : "ACTIVA");
+        agregar(',');
+        agregarLong(plan.getPrecioMensual());
+        agregar(',');
+        agregarDosDecimales(plan.getDescuento());
+        agregar(',');
+        agregarLong(plan.calcularPrecioFinal());
+        agregar(',');
+        agregar(suscripcion.isPagado() ? "true" : "false");
+        agregar(',');
+        if (suscripcion.getProximoVencimiento() != null) {
+            agregar(suscripcion.getProximoVencimiento().toString());
+        }
+        agregar(FIN_DE_LINEA);
+        return true;
+    }
+    
+    // Escribe la ultima fila codificada
+    public void escribirEn(Writer writer) throws IOException {
+        writer.write(buffer, 0, largo);
+    }
+    
+    public int largo() {
+        return largo;
+    }
+    
+    @Override
+    public String toString() {
+        return new String(buffer, 0, largo);
+    }
+    
+    // Entre comillas si el texto contiene comas, igual que el formato historico
+    public static String escapar(String texto) {
+        if (texto == null) return "";
+        return texto.contains(",") ? "\"" + texto + "\"" : texto;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private void agregarEscapado(String texto) {
+        if (texto == null) {
+            return;
+        }
+        if (texto.indexOf(',') >= 0) {
+            agregar('"');
+            agregar(texto);
+            agregar('"');
+        } else {
+            agregar(texto);
+        }
+    }
+    
+    private void agregarFecha(CacheFecha cache, Date fecha) {
+        if (fecha != null) {
+            agregar(cache.texto(fecha));
+        }
+    }
+    
+    private void agregarLong(long valor) {
+        if (valor == Long.MIN_VALUE) {
+            agregar(Long.toString(valor));
+            return;
+        }
+        if (valor < 0) {
+            agregar('-');
+            valor = -valor;
+        }
+        asegurarCapacidad(20);
+        int inicio = largo;
+        do {
+            buffer[largo++] = (char) ('0' + (valor % 10));
+            valor /= 10;
+        } while (valor > 0);
+        invertir(inicio, largo - 1);
+    }
+    
+    // Equivalente a "%.2f" pero siempre con punto decimal
+    private void agregarDosDecimales(double valor) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            agregar(Double.toString(valor));
+            return;
+        }
+        long centesimos = Math.round(Math.abs(valor) * 100.0);
+        if (valor < 0 && centesimos != 0) {
+            agregar('-');
+        }
+        agregarLong(centesimos / 100);
+        agregar('.');
+        long decimales = centesimos % 100;
+        agregar((char) ('0' + decimales / 10));
+        agregar((char) ('0' + decimales % 10));
+    }
+    
+    private void agregar(String texto) {
+        int n = texto.length();
+        asegurarCapacidad(n);
+        texto.getChars(0, n, buffer, largo);
+        largo += n;
+    }
+    
+    private void agregar(char c) {
+        asegurarCapacidad(1);
+        buffer[largo++] = c;
+    }
+    
+    private void asegurarCapacidad(int adicional) {
+        if (largo + adicional > buffer.length) {
+            buffer = java.util.Arrays.copyOf(buffer, Math.max(buffer.length * 2, largo + adicional));
+        }
+    }
+    
+    private void invertir(int desde, int hasta) {
+        while (desde < hasta) {
+            char tmp = buffer[desde];
+            buffer[desde++] = buffer[hasta];
+            buffer[hasta--] = tmp;
+        }
+    }
+    
+    // --- CLASES DE DATOS PARA CACHE ---
+    
+    // Recuerda el texto de la ultima fecha (Date.toString depende de la clase concreta)
+    private static class CacheFecha {
+        private long millis;
+        private Class<?> clase;
+        private String texto;
+        
+        String texto(Date fecha) {
+            if (texto == null || fecha.getTime() != millis || fecha.getClass() != clase) {
+                millis = fecha.getTime();
+                clase = fecha.getClass();
+                texto = fecha.toString();
+            }
+            return texto;
+        }
+    }
+}
\ No newline at end of file
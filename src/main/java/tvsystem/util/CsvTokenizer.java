@@ -0,0 +1,265 @@
+package tvsystem.util;
+
+import java.time.LocalDate;
+
+/**
+ * Separador de campos CSV escrito a mano para la carga masiva.
+ * Trabaja sobre un rango de un arreglo de caracteres y solo guarda las
+ * posiciones de cada campo; los String se crean cuando se piden.
+ * Soporta los campos entre comillas que genera CsvManager al escapar.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class CsvTokenizer {
+    
+    private static final int CAMPOS_INICIALES = 16;
+    
+    private char[] datos;
+    private int[] inicios;
+    private int[] fines;
+    private boolean[] conComillasDobles;
+    private int cantidad;
+    
+    // Constructor
+    public CsvTokenizer() {
+        this.inicios = new int[CAMPOS_INICIALES];
+        this.fines = new int[CAMPOS_INICIALES];
+        this.conComillasDobles = new boolean[CAMPOS_INICIALES];
+    }
+    
+    // Separa la linea datos[desde, hasta) y retorna la cantidad de campos encontrados
+    public int tokenizar(char[] datos, int desde, int hasta) {
+        this.datos = datos;
+        this.cantidad = 0;
+        
+        // Ignorar fin de linea estilo Windows
+        if (hasta > desde && datos[hasta - 1] == '\r') {
+            hasta--;
+        }
+        
+        int pos = desde;
+        while (true) {
+            asegurarCapacidad();
+            if (pos < hasta && datos[pos] == '"') {
+                // Campo entre comillas: termina en la comilla que no esta duplicada
+                int inicio = pos + 1;
+                int i = inicio;
+                boolean dobles = false;
+                while (i < hasta) {
+                    if (datos[i] == '"') {
+                        if (i + 1 < hasta && datos[i + 1] == '"') {
+                            dobles = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                registrar(inicio, Math.min(i, hasta), dobles);
+                
+                // Saltar hasta la siguiente coma (tolera espacios tras la comilla)
+                pos = i + 1;
+                while (pos < hasta && datos[pos] != ',') {
+                    pos++;
+                }
+            } else {
+                int inicio = pos;
+                while (pos < hasta && datos[pos] != ',') {
+                    pos++;
+                }
+                registrar(inicio, pos, false);
+            }
+            
+            if (pos >= hasta) {
+                break;
+            }
+            pos++; // Saltar la coma
+        }
+        return cantidad;
+    }
+    
+    public int cantidad() {
+        return cantidad;
+    }
+    
+    // Retorna el campo tal como viene en el archivo (sin las comillas externas)
+    public String campo(int indice) {
+        int inicio = inicios[indice];
+        int largo = fines[indice] - inicio;
+        if (!conComillasDobles[indice]) {
+            return new String(datos, inicio, largo);
+        }
+        
+        StringBuilder sb = new StringBuilder(largo);
+        for (int i = inicio; i < fines[indice]; i++) {
+            char c = datos[i];
+            sb.append(c);
+            if (c == '"' && i + 1 < fines[indice] && datos[i + 1] == '"') {
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+    
+    // Retorna el campo sin espacios al inicio ni al final
+    public String campoRecortado(int indice) {
+        int inicio = inicioRecortado(indice);
+        int fin = finRecortado(indice, inicio);
+        if (inicio == inicios[indice] && fin == fines[indice]) {
+            return campo(indice);
+        }
+        return new String(datos, inicio, fin - inicio);
+    }
+    
+    // Verdadero si el campo no existe o solo tiene espacios
+    public boolean esVacio(int indice) {
+        if (indice >= cantidad) {
+            return true;
+        }
+        int inicio = inicioRecortado(indice);
+        return finRecortado(indice, inicio) == inicio;
+    }
+    
+    // Compara el campo recortado con un valor sin distinguir mayusculas
+    public boolean esIgual(int indice, String valor) {
+        int inicio = inicioRecortado(indice);
+        int fin = finRecortado(indice, inicio);
+        if (fin - inicio != valor.length()) {
+            return false;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            if (Character.toLowerCase(datos[inicio + i]) != Character.toLowerCase(valor.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Lee un decimal simple ("0.20", "-1.5"); retorna el valor por defecto si no es valido
+    public double decimal(int indice, double valorPorDefecto) {
+        int inicio = inicioRecortado(indice);
+        int fin = finRecortado(indice, inicio);
+        if (fin == inicio) {
+            return valorPorDefecto;
+        }
+        
+        int i = inicio;
+        boolean negativo = false;
+        if (datos[i] == '-' || datos[i] == '+') {
+            negativo = datos[i] == '-';
+            i++;
+        }
+        
+        long mantisa = 0;
+        long divisor = 1;
+        boolean hayDigitos = false;
+        boolean enDecimales = false;
+        for (; i < fin; i++) {
+            char c = datos[i];
+            if (c >= '0' && c <= '9') {
+                if (mantisa > Long.MAX_VALUE / 10 - 10) {
+                    return decimalLento(inicio, fin, valorPorDefecto);
+                }
+                mantisa = mantisa * 10 + (c - '0');
+                if (enDecimales) {
+                    divisor *= 10;
+                }
+                hayDigitos = true;
+            } else if (c == '.' && !enDecimales) {
+                enDecimales = true;
+            } else {
+                return decimalLento(inicio, fin, valorPorDefecto);
+            }
+        }
+        if (!hayDigitos) {
+            return valorPorDefecto;
+        }
+        double valor = (double) mantisa / divisor;
+        return negativo ? -valor : valor;
+    }
+    
+    // Lee una fecha ISO "yyyy-MM-dd"; retorna null si el campo esta vacio o no es valido
+    public LocalDate fecha(int indice) {
+        int inicio = inicioRecortado(indice);
+        int fin = finRecortado(indice, inicio);
+        if (fin == inicio) {
+            return null;
+        }
+        
+        if (fin - inicio == 10 && datos[inicio + 4] == '-' && datos[inicio + 7] == '-') {
+            int anio = digitos(inicio, 4);
+            int mes = digitos(inicio + 5, 2);
+            int dia = digitos(inicio + 8, 2);
+            if (anio >= 0 && mes >= 1 && mes <= 12 && dia >= 1 && dia <= 31) {
+                try {
+                    return LocalDate.of(anio, mes, dia);
+                } catch (java.time.DateTimeException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+        
+        try {
+            return LocalDate.parse(new String(datos, inicio, fin - inicio));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private void registrar(int inicio, int fin, boolean dobles) {
+        inicios[cantidad] = inicio;
+        fines[cantidad] = fin;
+        conComillasDobles[cantidad] = dobles;
+        cantidad++;
+    }
+    
+    private void asegurarCapacidad() {
+        if (cantidad == inicios.length) {
+            int nuevaCapacidad = inicios.length * 2;
+            inicios = java.util.Arrays.copyOf(inicios, nuevaCapacidad);
+            fines = java.util.Arrays.copyOf(fines, nuevaCapacidad);
+            conComillasDobles = java.util.Arrays.copyOf(conComillasDobles, nuevaCapacidad);
+        }
+    }
+    
+    private int inicioRecortado(int indice) {
+        int inicio = inicios[indice];
+        int fin = fines[indice];
+        while (inicio < fin && datos[inicio] <= ' ') {
+            inicio++;
+        }
+        return inicio;
+    }
+    
+    private int finRecortado(int indice, int inicioRecortado) {
+        int fin = fines[indice];
+        while (fin > inicioRecortado && datos[fin - 1] <= ' ') {
+            fin--;
+        }
+        return fin;
+    }
+    
+    private int digitos(int desde, int largo) {
+        int valor = 0;
+        for (int i = desde; i < desde + largo; i++) {
+            char c = datos[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+    
+    private double decimalLento(int inicio, int fin, double valorPorDefecto) {
+        try {
+            return Double.parseDouble(new String(datos, inicio, fin - inicio));
+        } catch (NumberFormatException e) {
+            return valorPorDefecto;
+        }
+    }
+}
\ No newline at end of file
@@ -1,143 +1,377 @@
 package tvsystem.util;
 
-import tvsystem.service.*;
-import tvsystem.model.*;
-import tvsystem.exception.ClienteInvalidoException;
-import tvsystem.exception.SectorNoEncontradoException;
-import java.util.*;
+import tvsystem.config.AppConstants;
+import tvsystem.model.Cliente;
+import tvsystem.model.PlanSector;
+import tvsystem.model.Sector;
+import tvsystem.model.Suscripcion;
+import tvsystem.service.ClienteService;
+import tvsystem.service.PlanService;
+import tvsystem.service.SectorService;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
 
 /**
- * Generador de clientes ficticios en el CSV
+ * Generador de clientes ficticios con semilla.
+ *
+ * La misma semilla, fecha base y distribuciones producen siempre los mismos clientes.
+ * Los RUT recorren una permutacion del rango de cuerpos (salto coprimo con el largo
+ * del rango), asi que son validos y distintos sin recordar los ya generados. Los
+ * clientes se entregan uno a uno, de modo que se pueden escribir millones directo
+ * a CSV o a snapshot binario sin tenerlos todos en memoria.
+ *
+ * @author Elias Manriquez
  */
 public class DatosFicticiosGenerator {
     
     private static final String[] NOMBRES = {
-        "María González", "Juan Pérez", "Ana López", "Carlos Rodríguez", "Laura Martínez",
-        "Pedro Sánchez", "Carmen García", "Miguel Torres", "Isabel Ruiz", "Francisco Moreno",
-        "Rosa Jiménez", "Antonio Fernández", "Lucía Díaz", "Manuel Álvarez", "Elena Romero",
-        "José Luis Castro", "Patricia Vargas", "Roberto Silva", "Cristina Mendoza", "Daniel Herrera"
+        "María", "Juan", "Ana", "Carlos", "Laura", "Pedro", "Carmen", "Miguel", "Isabel", "Francisco",
+        "Rosa", "Antonio", "Lucía", "Manuel", "Elena", "José Luis", "Patricia", "Roberto", "Cristina", "Daniel"
     };
     
-    private static final String[] DIRECCIONES = {
-        "Calle Mayor 123", "Avenida Central 456", "Plaza del Sol 789", "Calle de la Paz 321",
-        "Paseo de los Olmos 654", "Calle Nueva 987", "Avenida Libertad 147", "Calle Real 258",
-        "Plaza de Armas 369", "Calle del Carmen 741", "Avenida España 852", "Calle Victoria 963"
+    private static final String[] APELLIDOS = {
+        "González", "Pérez", "López", "Rodríguez", "Martínez", "Sánchez", "García", "Torres", "Ruiz", "Moreno",
+        "Jiménez", "Fernández", "Díaz", "Álvarez", "Romero", "Castro", "Vargas", "Silva", "Mendoza", "Herrera"
     };
     
-    private static Random random = new Random();
+    private static final String[] CALLES = {
+        "Calle Mayor", "Avenida Central", "Plaza del Sol", "Calle de la Paz", "Paseo de los Olmos", "Calle Nueva",
+        "Avenida Libertad", "Calle Real", "Plaza de Armas", "Calle del Carmen", "Avenida España", "Calle Victoria"
+    };
     
-    // Genera clientes ficticios y los agrega al CSV
-    public static void generarClientesFicticios(SectorService sectorService, ClienteService clienteService, PlanService planService) {
-        System.out.println("=== GENERANDO CLIENTES FICTICIOS ===");
+    // Cuerpos de RUT generados: [RUT_MINIMO, RUT_MINIMO + RANGO_RUT)
+    private static final long RUT_MINIMO = 5_000_000L;
+    private static final long RANGO_RUT = 90_000_000L;
+    
+    private static final int CLIENTES_INICIALES = 20;
+    private static final long SEMILLA_INICIAL = 20L;
+    
+    private final List<PlanSector> planes;
+    private final long semilla;
+    private LocalDate fechaBase = LocalDate.now();
+    
+    // Pesos relativos; lo que no aparece pesa 1 (sectores y tipos de plan) o 0 (estados)
+    private final Map<String, Double> pesosSector = new HashMap<>();
+    private final Map<String, Double> pesosTipoPlan = new LinkedHashMap<>();
+    private final Map<String, Double> pesosEstado = new LinkedHashMap<>();
+    
+    // Destino de cada cliente generado
+    public interface DestinoClientes {
+        void aceptar(Cliente cliente) throws IOException;
+    }
+    
+    // Constructor; los planes se ordenan por codigo para no depender del orden de los mapas
+    public DatosFicticiosGenerator(List<PlanSector> planes, long semilla) {
+        this.planes = new ArrayList<>(planes);
+        this.planes.sort((a, b) -> a.getCodigoPlan().compareTo(b.getCodigoPlan()));
+        this.semilla = semilla;
+        
+        pesosTipoPlan.put("BASICO", 5.0);
+        pesosTipoPlan.put("PREMIUM", 3.0);
+        pesosTipoPlan.put("FAMILIAR", 2.0);
         
+        pesosEstado.put("ACTIVA", 5.0);
+        pesosEstado.put("PROXIMA_A_VENCER", 3.0);
+        pesosEstado.put("SUSPENDIDA", 2.0);
+        pesosEstado.put("CANCELADA", 0.0);
+    }
+    
+    // -- METODOS --
+    
+    // Genera los clientes ficticios de un archivo nuevo y los carga en los servicios
+    public static void generarClientesFicticios(SectorService sectorService, ClienteService clienteService, PlanService planService) {
         List<Sector> sectores = sectorService.obtenerTodosLosSectores();
         List<PlanSector> planes = planService.obtenerTodosLosPlanes();
-        
-        if (sectores.isEmpty()) {
-            System.out.println("No hay sectores disponibles.");
+        if (sectores.isEmpty() || planes.isEmpty()) {
+            LoggerHelper.warning("No hay sectores o planes disponibles para generar clientes ficticios.");
             return;
         }
         
-        if (planes.isEmpty()) {
-            System.out.println("No hay planes disponibles.");
-            return;
+        Map<String, List<Cliente>> porSector = new LinkedHashMap<>();
+        DatosFicticiosGenerator generador = new DatosFicticiosGenerator(planes, SEMILLA_INICIAL);
+        try {
+            generador.generar(CLIENTES_INICIALES, cliente -> porSector
+                .computeIfAbsent(cliente.getSuscripcion().getPlan().getSectorAsociado(), k -> new ArrayList<>())
+                .add(cliente));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // El destino en memoria no lanza IOException
         }
         
-        // Generar 20 clientes ficticios
-        for (int i = 0; i < 20; i++) {
-            String nombre = NOMBRES[random.nextInt(NOMBRES.length)];
-            String rut = generarRutFicticio();
-            String direccion = DIRECCIONES[random.nextInt(DIRECCIONES.length)];
+        ResumenImportacion resumen = new ResumenImportacion();
+        for (Map.Entry<String, List<Cliente>> entry : porSector.entrySet()) {
+            clienteService.restaurarClientes(entry.getKey(), entry.getValue(), resumen);
+        }
+        LoggerHelper.info("Clientes ficticios generados: " + resumen.getClientesCargados());
+    }
+    
+    // Peso relativo de un sector; 0 lo excluye
+    public void setPesoSector(String sector, double peso) {
+        pesosSector.put(sector, peso);
+    }
+    
+    // Peso relativo de un tipo de plan (BASICO, PREMIUM, FAMILIAR)
+    public void setPesoTipoPlan(String tipo, double peso) {
+        pesosTipoPlan.put(tipo, peso);
+    }
+    
+    // Peso relativo de un estado de suscripcion
+    public void setPesoEstado(String estado, double peso) {
+        pesosEstado.put(estado, peso);
+    }
+    
+    // Fecha a partir de la cual se calculan vencimientos y pagos
+    public void setFechaBase(LocalDate fechaBase) {
+        this.fechaBase = fechaBase;
+    }
             
-            Sector sectorSeleccionado = sectores.get(random.nextInt(sectores.size()));
+    // Genera la cantidad pedida de clientes y los entrega en orden al destino
+    public void generar(int cantidad, DestinoClientes destino) throws IOException {
+        if (cantidad < 0 || cantidad > RANGO_RUT) {
+            throw new IllegalArgumentException("Cantidad fuera de rango: " + cantidad);
+        }
+        SplittableRandom random = new SplittableRandom(semilla);
+        PlanSector[] planesElegibles = planes.toArray(new PlanSector[0]);
+        double[] acumuladoPlanes = acumularPlanes(planesElegibles);
+        String[] estados = pesosEstado.keySet().toArray(new String[0]);
+        double[] acumuladoEstados = acumular(pesosEstado.values());
             
-            PlanSector planSeleccionado = planes.get(random.nextInt(planes.size()));
+        // Recorrido del rango de RUT: desplazamiento y salto fijos por semilla
+        long desplazamiento = random.nextLong(RANGO_RUT);
+        long salto = random.nextLong(RANGO_RUT / 3, 2 * RANGO_RUT / 3);
+        while (mcd(salto, RANGO_RUT) != 1) {
+            salto++;
+        }
             
-            // Determinar configuracion de suscripcion segun el indice
-            String estadoSuscripcion = "ACTIVA";
-            java.time.LocalDate proximoVencimiento = java.time.LocalDate.now().plusMonths(1);
-            boolean pagado = true;
-            String descripcionEstado = "ACTIVO";
+        long posicion = desplazamiento;
+        for (int i = 0; i < cantidad; i++) {
+            PlanSector plan = planesElegibles[elegir(acumuladoPlanes, random)];
+            String estado = estados[elegir(acumuladoEstados, random)];
+            String nombre = NOMBRES[random.nextInt(NOMBRES.length)] + " "
+                + APELLIDOS[random.nextInt(APELLIDOS.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)];
+            String domicilio = CALLES[random.nextInt(CALLES.length)] + " " + (1 + random.nextInt(9999));
             
-            if (i % 10 < 3) {
-                estadoSuscripcion = "PROXIMA_A_VENCER";
-                proximoVencimiento = java.time.LocalDate.now().plusDays(10);
-                pagado = false;
-                descripcionEstado = "PROXIMO A VENCER";
-            } else if (i % 10 < 5) {
-                estadoSuscripcion = "SUSPENDIDA";
-                proximoVencimiento = java.time.LocalDate.now().minusDays(5);
-                pagado = false;
-                descripcionEstado = "SUSPENDIDO";
-            }
+            Cliente cliente = new Cliente(nombre, RutValidator.generarRut(RUT_MINIMO + posicion), domicilio);
+            cliente.setSuscripcion(crearSuscripcion(cliente, plan, estado, random));
+            destino.aceptar(cliente);
             
-            try {
-                boolean clienteAgregado = clienteService.agregarCliente(
-                    sectorSeleccionado.getNombre(), 
-                    nombre, 
-                    rut, 
-                    direccion, 
-                    planSeleccionado.getCodigoPlan(),
-                    estadoSuscripcion,
-                    proximoVencimiento,
-                    pagado
-                );
-                
-                if (clienteAgregado) {
-                    System.out.println("Cliente " + nombre + " agregado a " + sectorSeleccionado.getNombre() + 
-                                     " con plan " + planSeleccionado.getNombrePlan() + 
-                                     " - Estado: " + descripcionEstado);
-                }
-            } catch (ClienteInvalidoException ex) {
-                System.err.println("Error al crear cliente ficticio " + nombre + ": " + ex.getMessage());
-            } catch (SectorNoEncontradoException ex) {
-                System.err.println("Error de sector al crear cliente ficticio " + nombre + ": " + ex.getMessage());
-            } catch (Exception ex) {
-                System.err.println("Error inesperado al crear cliente ficticio " + nombre + ": " + ex.getMessage());
+            posicion += salto;
+            if (posicion >= RANGO_RUT) {
+                posicion -= RANGO_RUT;
             }
         }
+    }
+    
+    // Escribe el CSV completo (cabecera incluida) fila a fila; retorna las filas escritas
+    public int escribirCsv(Writer writer, int cantidad) throws IOException {
+        writer.write(CsvRowEncoder.CABECERA);
+        writer.write(System.lineSeparator());
+        CsvRowEncoder encoder = new CsvRowEncoder();
+        generar(cantidad, cliente -> {
+            encoder.codificar(cliente.getFoto());
+            encoder.escribirEn(writer);
+        });
+        return cantidad;
+    }
         
-        System.out.println("=== GENERACIÓN COMPLETA ===");
+    // Escribe un snapshot binario fila a fila; retorna las filas escritas
+    public int escribirSnapshot(OutputStream salida, int cantidad) throws IOException {
+        SnapshotBinario.Escritor escritor = new SnapshotBinario.Escritor(salida, planes, cantidad);
+        generar(cantidad, cliente -> escritor.agregar(cliente.getFoto()));
+        escritor.terminar();
+        return cantidad;
+    }
+        
+    // Escribe el archivo en el formato que indica su extension (.tvsb o CSV)
+    public void generarArchivo(Path destino, int cantidad) throws IOException {
+        if (CsvManager.esSnapshotBinario(destino.toString())) {
+            AtomicFileHelper.escribirBinario(destino, 0, salida -> escribirSnapshot(salida, cantidad));
+        } else {
+            AtomicFileHelper.escribir(destino, Charset.defaultCharset(),
+                                      AppConstants.TAMANO_BUFFER_ESCRITURA_BYTES, 0,
+                                      writer -> escribirCsv(writer, cantidad));
+        }
     }
     
-    // Genera un RUT ficticio valido
-    private static String generarRutFicticio() {
-        int numeroBase = 10000000 + random.nextInt(90000000);
+    // Uso: DatosFicticiosGenerator <cantidad> <archivo.csv|archivo.tvsb> [semilla] [fecha base AAAA-MM-DD]
+    //        [--sectores=NOMBRE:peso,...] [--planes=TIPO:peso,...] [--estados=ESTADO:peso,...]
+    public static void main(String[] args) throws IOException {
+        List<String> posicionales = new ArrayList<>();
+        Map<String, String> distribuciones = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (arg.startsWith("--") && igual > 2) {
+                distribuciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+            } else {
+                posicionales.add(arg);
+            }
+        }
+        if (posicionales.size() < 2) {
+            salirConUso();
+        }
         
-        int suma = 0;
-        int temp = numeroBase;
-        int[] multiplicadores = {2, 3, 4, 5, 6, 7};
-        int pos = 0;
+        DatosFicticiosGenerator generador;
+        int cantidad;
+        Path destino = new File(posicionales.get(1)).toPath();
+        try {
+            cantidad = Integer.parseInt(posicionales.get(0));
+            long semilla = posicionales.size() > 2 ? Long.parseLong(posicionales.get(2)) : SEMILLA_INICIAL;
+            
+            List<PlanSector> planes = new ArrayList<>();
+            for (Sector sector : DataInitializer.inicializarSectores().values()) {
+                planes.addAll(sector.getPlanesView());
+            }
+            generador = new DatosFicticiosGenerator(planes, semilla);
+            if (posicionales.size() > 3) {
+                generador.setFechaBase(LocalDate.parse(posicionales.get(3)));
+            }
+            for (Map.Entry<String, String> entry : distribuciones.entrySet()) {
+                switch (entry.getKey()) {
+                    case "sectores":
+                        leerPesos(entry.getValue(), generador::setPesoSector);
+                        break;
+                    case "planes":
+                        leerPesos(entry.getValue(), generador::setPesoTipoPlan);
+                        break;
+                    case "estados":
+                        leerPesos(entry.getValue(), generador::setPesoEstado);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opcion desconocida: --" + entry.getKey());
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            LoggerHelper.error(e.getMessage());
+            salirConUso();
+            return;
+        }
         
-        while (temp > 0) {
-            suma += (temp % 10) * multiplicadores[pos % 6];
-            temp /= 10;
-            pos++;
+        long inicio = System.nanoTime();
+        generador.generarArchivo(destino, cantidad);
+        LoggerHelper.success(cantidad + " clientes escritos en " + destino + " ("
+                             + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private static void salirConUso() {
+        LoggerHelper.error("Uso: DatosFicticiosGenerator <cantidad> <archivo.csv|archivo.tvsb> [semilla] [fecha base]"
+                           + " [--sectores=NOMBRE:peso,...] [--planes=TIPO:peso,...] [--estados=ESTADO:peso,...]");
+        System.exit(1);
+    }
+    
+    // Lista "CLAVE:peso,CLAVE:peso"; las claves se pasan a mayusculas como en DataInitializer
+    private static void leerPesos(String lista, BiConsumer<String, Double> destino) {
+        for (String par : lista.split(",")) {
+            int separador = par.lastIndexOf(':');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Peso mal escrito (se espera CLAVE:peso): " + par);
+            }
+            double peso = Double.parseDouble(par.substring(separador + 1).trim());
+            if (peso < 0 || Double.isNaN(peso) || Double.isInfinite(peso)) {
+                throw new IllegalArgumentException("Peso invalido: " + par);
+            }
+            destino.accept(par.substring(0, separador).trim().toUpperCase(), peso);
+        }
+    }
+    
+    // Fechas coherentes con el estado: obtenerEstadoActual calcula el mismo estado en la fecha base
+    private Suscripcion crearSuscripcion(Cliente cliente, PlanSector plan, String estado, SplittableRandom random) {
+        LocalDate vencimiento;
+        boolean pagado = false;
+        switch (estado) {
+            case "ACTIVA":
+                vencimiento = fechaBase.plusDays(1 + random.nextInt(30));
+                pagado = true;
+                break;
+            case "PROXIMA_A_VENCER":
+                vencimiento = fechaBase.plusDays(random.nextInt(14));
+                break;
+            default: // SUSPENDIDA, CANCELADA u otro estado fijo
+                vencimiento = fechaBase.minusDays(1 + random.nextInt(60));
+                break;
         }
         
-        int resto = suma % 11;
-        String dv;
-        if (resto == 0) {
-            dv = "0";
-        } else if (resto == 1) {
-            dv = "K";
-        } else {
-            dv = String.valueOf(11 - resto);
+        Date inicio = java.sql.Date.valueOf(fechaBase.minusDays(random.nextInt(730)));
+        LocalDate ultimoPago = pagado ? fechaBase.minusDays(random.nextInt(15)) : null;
+        return new Suscripcion(inicio, java.sql.Date.valueOf(vencimiento), estado, cliente, plan,
+                               pagado, ultimoPago, vencimiento);
+    }
+    
+    // Peso de cada plan = peso del sector repartido entre sus planes segun el tipo
+    private double[] acumularPlanes(PlanSector[] planesElegibles) {
+        Map<String, Double> tiposPorSector = new HashMap<>();
+        for (PlanSector plan : planesElegibles) {
+            tiposPorSector.merge(plan.getSectorAsociado(), pesoTipo(plan), Double::sum);
         }
         
-        return String.format("%d-%s", numeroBase, dv);
+        List<Double> pesos = new ArrayList<>(planesElegibles.length);
+        for (PlanSector plan : planesElegibles) {
+            double totalTipos = tiposPorSector.get(plan.getSectorAsociado());
+            double pesoSector = pesosSector.getOrDefault(plan.getSectorAsociado(), 1.0);
+            pesos.add(totalTipos > 0 ? pesoSector * pesoTipo(plan) / totalTipos : 0.0);
+        }
+        return acumular(pesos);
     }
     
-    private static Cliente buscarClientePorRut(String rut, SectorService sectorService) {
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        for (Sector sector : sectores) {
-            List<Cliente> clientes = sector.getClientes();
-            for (Cliente cliente : clientes) {
-                if (rut.equals(cliente.getRut())) {
-                    return cliente;
-                }
+    // El tipo es el codigo sin el sufijo "_SECTOR" que agrega DataInitializer
+    private double pesoTipo(PlanSector plan) {
+        String codigo = plan.getCodigoPlan();
+        String sufijo = "_" + plan.getSectorAsociado();
+        String tipo = codigo.endsWith(sufijo) ? codigo.substring(0, codigo.length() - sufijo.length()) : codigo;
+        return pesosTipoPlan.getOrDefault(tipo, 1.0);
+    }
+    
+    private static double[] acumular(Iterable<Double> pesos) {
+        List<Double> lista = new ArrayList<>();
+        pesos.forEach(lista::add);
+        double[] acumulado = new double[lista.size()];
+        double total = 0;
+        for (int i = 0; i < acumulado.length; i++) {
+            total += lista.get(i);
+            acumulado[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalStateException("La distribucion no tiene ningun peso positivo");
+        }
+        return acumulado;
+    }
+    
+    // Busqueda binaria sobre los pesos acumulados
+    private static int elegir(double[] acumulado, SplittableRandom random) {
+        double valor = random.nextDouble() * acumulado[acumulado.length - 1];
+        int bajo = 0;
+        int alto = acumulado.length - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (acumulado[medio] <= valor) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
             }
         }
-        return null;
+        return bajo;
+    }
+    
+    private static long mcd(long a, long b) {
+        while (b != 0) {
+            long resto = a % b;
+            a = b;
+            b = resto;
+        }
+        return a;
     }
 }
\ No newline at end of file
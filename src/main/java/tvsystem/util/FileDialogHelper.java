@@ -16,6 +16,7 @@ public class FileDialogHelper {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Seleccionar archivo de datos del sistema");
         fileChooser.setFileFilter(new FileNameExtensionFilter("Archivos CSV (*.csv)", "csv"));
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Snapshot binario (*.tvsb)", "tvsb"));
         
         String[] opciones = {"Abrir archivo existente", "Crear archivo nuevo", "Cancelar"};
         int opcion = JOptionPane.showOptionDialog(
@@ -38,17 +39,20 @@ public class FileDialogHelper {
         }
     }
     
-    // Muestra dialogo para seleccionar ubicación donde guardar reporte TXT
+    // Muestra dialogo para seleccionar ubicación donde guardar el reporte (TXT, CSV o JSON)
     public static String seleccionarUbicacionReporte(String nombreDefault) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Guardar Reporte de Análisis");
         fileChooser.setFileFilter(new FileNameExtensionFilter("Archivos TXT (*.txt)", "txt"));
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Archivos CSV (*.csv)", "csv"));
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Archivos JSON (*.json)", "json"));
         fileChooser.setSelectedFile(new File(nombreDefault));
         
         int resultado = fileChooser.showSaveDialog(null);
         if (resultado == JFileChooser.APPROVE_OPTION) {
             String rutaArchivo = fileChooser.getSelectedFile().getAbsolutePath();
-            if (!rutaArchivo.endsWith(".txt")) {
+            String minusculas = rutaArchivo.toLowerCase();
+            if (!minusculas.endsWith(".txt") && !minusculas.endsWith(".csv") && !minusculas.endsWith(".json")) {
                 rutaArchivo += ".txt";
             }
             return rutaArchivo;
@@ -94,7 +98,7 @@ public class FileDialogHelper {
         int resultado = fileChooser.showSaveDialog(null);
         if (resultado == JFileChooser.APPROVE_OPTION) {
             String ruta = fileChooser.getSelectedFile().getAbsolutePath();
-            if (!ruta.endsWith(".csv")) {
+            if (!ruta.endsWith(".csv") && !ruta.endsWith(".tvsb")) {
                 ruta += ".csv";
             }
             return ruta;
@@ -0,0 +1,257 @@
+package tvsystem.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Mapa de claves int no negativas a objetos con direccionamiento abierto.
+ * Las claves se guardan en un int[] y los valores en un Object[] paralelo, sin
+ * nodos ni Integer por entrada. Usa sondeo lineal y al borrar desplaza las
+ * entradas siguientes hacia atras, por lo que no deja lapidas.
+ *
+ * No es sincronizado, igual que HashMap.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class IntHashMap<V> {
+    
+    private static final int VACIO = -1;
+    private static final float CARGA_MAXIMA = 0.6f;
+    private static final int CAPACIDAD_MINIMA = 16;
+    
+    private int[] claves;
+    private Object[] valores;
+    private int cantidad;
+    private int umbral;
+    private int mascara;
+    private int modificaciones;
+    
+    private Collection<V> vistaValores;
+    
+    // Constructor
+    public IntHashMap() {
+        this(CAPACIDAD_MINIMA);
+    }
+    
+    // Constructor Sobrecarga
+    public IntHashMap(int cantidadEsperada) {
+        inicializar(capacidadPara(cantidadEsperada));
+    }
+    
+    // -- METODOS --
+    
+    public V get(int clave) {
+        if (clave < 0) {
+            return null;
+        }
+        int i = posicion(clave);
+        while (claves[i] != VACIO) {
+            if (claves[i] == clave) {
+                return valor(i);
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+    
+    public boolean containsKey(int clave) {
+        return get(clave) != null;
+    }
+    
+    // Retorna el valor anterior o null si la clave era nueva
+    public V put(int clave, V valor) {
+        if (clave < 0) {
+            throw new IllegalArgumentException("Clave negativa: " + clave);
+        }
+        if (valor == null) {
+            throw new IllegalArgumentException("Valor nulo para la clave " + clave);
+        }
+        
+        int i = posicion(clave);
+        while (claves[i] != VACIO) {
+            if (claves[i] == clave) {
+                V anterior = valor(i);
+                valores[i] = valor;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        
+        claves[i] = clave;
+        valores[i] = valor;
+        modificaciones++;
+        if (++cantidad > umbral) {
+            redimensionar(claves.length * 2);
+        }
+        return null;
+    }
+    
+    public V remove(int clave) {
+        if (clave < 0) {
+            return null;
+        }
+        int i = posicion(clave);
+        while (claves[i] != VACIO) {
+            if (claves[i] == clave) {
+                V anterior = valor(i);
+                borrarEn(i);
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+    
+    public int size() {
+        return cantidad;
+    }
+    
+    public boolean isEmpty() {
+        return cantidad == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(claves, VACIO);
+        Arrays.fill(valores, null);
+        cantidad = 0;
+        modificaciones++;
+    }
+    
+    public void forEachValue(Consumer<? super V> accion) {
+        int esperadas = modificaciones;
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != VACIO) {
+                accion.accept(valor(i));
+            }
+        }
+        if (esperadas != modificaciones) {
+            throw new ConcurrentModificationException();
+        }
+    }
+    
+    // Vista de los valores (sin copia); refleja los cambios del mapa
+    public Collection<V> values() {
+        if (vistaValores == null) {
+            vistaValores = new AbstractCollection<V>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new IteradorValores();
+                }
+                
+                @Override
+                public int size() {
+                    return cantidad;
+                }
+            };
+        }
+        return vistaValores;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private void inicializar(int capacidad) {
+        claves = new int[capacidad];
+        valores = new Object[capacidad];
+        Arrays.fill(claves, VACIO);
+        mascara = capacidad - 1;
+        umbral = (int) (capacidad * CARGA_MAXIMA);
+    }
+    
+    private static int capacidadPara(int cantidadEsperada) {
+        int necesaria = (int) Math.ceil(Math.max(cantidadEsperada, 1) / CARGA_MAXIMA);
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad < necesaria) {
+            capacidad <<= 1;
+        }
+        return capacidad;
+    }
+    
+    // Los cuerpos de RUT suelen ser consecutivos: mezclar los bits antes de enmascarar
+    private int posicion(int clave) {
+        int h = clave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private V valor(int i) {
+        return (V) valores[i];
+    }
+    
+    private void redimensionar(int capacidad) {
+        int[] clavesAnteriores = claves;
+        Object[] valoresAnteriores = valores;
+        inicializar(capacidad);
+        for (int j = 0; j < clavesAnteriores.length; j++) {
+            int clave = clavesAnteriores[j];
+            if (clave != VACIO) {
+                int i = posicion(clave);
+                while (claves[i] != VACIO) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = clave;
+                valores[i] = valoresAnteriores[j];
+            }
+        }
+    }
+    
+    // Vacia la posicion y mueve hacia atras las entradas del mismo grupo que quedarian inalcanzables
+    private void borrarEn(int libre) {
+        int i = libre;
+        while (true) {
+            i = (i + 1) & mascara;
+            int clave = claves[i];
+            if (clave == VACIO) {
+                break;
+            }
+            int ideal = posicion(clave);
+            // La entrada se puede mover si su posicion ideal no esta entre libre (exclusivo) e i
+            boolean mover = libre <= i ? (ideal <= libre || ideal > i) : (ideal <= libre && ideal > i);
+            if (mover) {
+                claves[libre] = clave;
+                valores[libre] = valores[i];
+                libre = i;
+            }
+        }
+        claves[libre] = VACIO;
+        valores[libre] = null;
+        cantidad--;
+        modificaciones++;
+    }
+    
+    // --- CLASES DE DATOS PARA RECORRIDO ---
+    
+    private class IteradorValores implements Iterator<V> {
+        private final int esperadas = modificaciones;
+        private int siguiente = avanzar(0);
+        
+        @Override
+        public boolean hasNext() {
+            return siguiente < claves.length;
+        }
+        
+        @Override
+        public V next() {
+            if (esperadas != modificaciones) {
+                throw new ConcurrentModificationException();
+            }
+            if (siguiente >= claves.length) {
+                throw new NoSuchElementException();
+            }
+            V valor = valor(siguiente);
+            siguiente = avanzar(siguiente + 1);
+            return valor;
+        }
+        
+        private int avanzar(int desde) {
+            while (desde < claves.length && claves[desde] == VACIO) {
+                desde++;
+            }
+            return desde;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package tvsystem.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Version para varios hilos de IntHashMap, dividida en franjas.
+ * Cada clave cae siempre en la misma franja y cada franja es un IntHashMap con
+ * su propio candado, asi que dos hilos que trabajan con claves de franjas
+ * distintas no se esperan entre si y no hay un candado para todo el mapa.
+ *
+ * candado(clave) entrega el candado de la franja para las operaciones
+ * compuestas (leer, decidir y escribir) sobre una misma clave. Es reentrante,
+ * por lo que dentro de el se puede seguir usando el mapa.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class IntHashMapConcurrente<V> {
+    
+    private static final int BITS_FRANJAS = 5;
+    private static final int FRANJAS = 1 << BITS_FRANJAS;   // 32 franjas
+    
+    private final IntHashMap<V>[] franjas;
+    
+    // Constructor
+    public IntHashMapConcurrente() {
+        this(0);
+    }
+    
+    // Constructor Sobrecarga
+    public IntHashMapConcurrente(int cantidadEsperada) {
+        this.franjas = crearFranjas();
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new IntHashMap<>(cantidadEsperada / FRANJAS);
+        }
+    }
+    
+    // -- METODOS --
+    
+    public V get(int clave) {
+        IntHashMap<V> franja = franja(clave);
+        synchronized (franja) {
+            return franja.get(clave);
+        }
+    }
+    
+    public V put(int clave, V valor) {
+        IntHashMap<V> franja = franja(clave);
+        synchronized (franja) {
+            return franja.put(clave, valor);
+        }
+    }
+    
+    public V remove(int clave) {
+        IntHashMap<V> franja = franja(clave);
+        synchronized (franja) {
+            return franja.remove(clave);
+        }
+    }
+    
+    // Candado de la franja donde cae la clave, para operaciones compuestas sobre ella
+    public Object candado(int clave) {
+        return franja(clave);
+    }
+    
+    // Suma de las franjas; con escrituras en curso es solo aproximada
+    public int size() {
+        int total = 0;
+        for (IntHashMap<V> franja : franjas) {
+            synchronized (franja) {
+                total += franja.size();
+            }
+        }
+        return total;
+    }
+    
+    public void clear() {
+        for (IntHashMap<V> franja : franjas) {
+            synchronized (franja) {
+                franja.clear();
+            }
+        }
+    }
+    
+    // Recorre una franja a la vez; no ve de forma atomica el mapa completo
+    public void forEachValue(Consumer<? super V> accion) {
+        for (IntHashMap<V> franja : franjas) {
+            synchronized (franja) {
+                franja.forEachValue(accion);
+            }
+        }
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Solo se guardan IntHashMap<V> en el arreglo, asi que la conversion es segura
+    @SuppressWarnings("unchecked")
+    private static <V> IntHashMap<V>[] crearFranjas() {
+        return (IntHashMap<V>[]) new IntHashMap<?>[FRANJAS];
+    }
+    
+    // Mezcla los bits igual que un hash multiplicativo: RUT consecutivos quedan en franjas distintas
+    private IntHashMap<V> franja(int clave) {
+        return franjas[(clave * 0x9E3779B9) >>> (32 - BITS_FRANJAS)];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,312 @@
+package tvsystem.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Mapa inmutable de claves int no negativas a objetos (trie de hash con mapa de bits).
+ *
+ * Agregar o quitar una clave no modifica el mapa: retorna uno nuevo que copia
+ * solo los nodos del camino hasta la clave (a lo mas 7 niveles de 32 hijos) y
+ * comparte todo el resto con el anterior. Asi se pueden guardar muchas
+ * versiones del mismo conjunto de datos sin copiarlo completo, y cualquier
+ * hilo puede leer una version mientras otro arma la siguiente.
+ *
+ * Las claves se mezclan con una multiplicacion impar, que es biyectiva en 32
+ * bits: dos claves distintas nunca comparten hash y no hacen falta nodos de
+ * colision.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public final class MapaPersistenteInt<V> implements Iterable<V> {
+    
+    private static final int BITS = 5;
+    private static final int MASCARA = (1 << BITS) - 1;
+    
+    private static final MapaPersistenteInt<?> VACIO = new MapaPersistenteInt<>(null, 0);
+    
+    private final Nodo raiz;
+    private final int cantidad;
+    
+    // Constructor
+    private MapaPersistenteInt(Nodo raiz, int cantidad) {
+        this.raiz = raiz;
+        this.cantidad = cantidad;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public static <V> MapaPersistenteInt<V> vacio() {
+        return (MapaPersistenteInt<V>) VACIO;
+    }
+    
+    // -- METODOS --
+    
+    @SuppressWarnings("unchecked")
+    public V get(int clave) {
+        if (clave < 0 || raiz == null) {
+            return null;
+        }
+        int hash = mezclar(clave);
+        Nodo nodo = raiz;
+        for (int desplazamiento = 0; ; desplazamiento += BITS) {
+            int bit = 1 << ((hash >>> desplazamiento) & MASCARA);
+            if ((nodo.mapaBits & bit) == 0) {
+                return null;
+            }
+            Object hijo = nodo.hijos[nodo.posicion(bit)];
+            if (hijo instanceof Hoja) {
+                Hoja hoja = (Hoja) hijo;
+                return hoja.clave == clave ? (V) hoja.valor : null;
+            }
+            nodo = (Nodo) hijo;
+        }
+    }
+    
+    public boolean containsKey(int clave) {
+        return get(clave) != null;
+    }
+    
+    // Version con la clave asociada al valor; el mapa actual no cambia
+    public MapaPersistenteInt<V> con(int clave, V valor) {
+        if (clave < 0) {
+            throw new IllegalArgumentException("Clave negativa: " + clave);
+        }
+        if (valor == null) {
+            throw new IllegalArgumentException("Valor nulo para la clave " + clave);
+        }
+        Hoja hoja = new Hoja(clave, mezclar(clave), valor);
+        if (raiz == null) {
+            return new MapaPersistenteInt<>(Nodo.conHoja(hoja, 0), 1);
+        }
+        boolean[] agregada = new boolean[1];
+        Nodo nuevaRaiz = raiz.con(hoja, 0, agregada);
+        return new MapaPersistenteInt<>(nuevaRaiz, agregada[0] ? cantidad + 1 : cantidad);
+    }
+    
+    // Version sin la clave; si no estaba retorna este mismo mapa
+    public MapaPersistenteInt<V> sin(int clave) {
+        if (clave < 0 || raiz == null) {
+            return this;
+        }
+        Object resultado = raiz.sin(clave, mezclar(clave), 0);
+        if (resultado == raiz) {
+            return this;
+        }
+        if (resultado == null) {
+            return vacio();
+        }
+        // La raiz siempre es un nodo, aunque le quede una sola hoja
+        Nodo nuevaRaiz = resultado instanceof Hoja ? Nodo.conHoja((Hoja) resultado, 0) : (Nodo) resultado;
+        return new MapaPersistenteInt<>(nuevaRaiz, cantidad - 1);
+    }
+    
+    public int size() {
+        return cantidad;
+    }
+    
+    public boolean isEmpty() {
+        return cantidad == 0;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> accion) {
+        if (raiz != null) {
+            raiz.recorrer((Consumer<Object>) accion);
+        }
+    }
+    
+    // Recorre los valores en orden de hash (no de clave)
+    @Override
+    public Iterator<V> iterator() {
+        return new IteradorValores<>(raiz);
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Los RUT suelen ser consecutivos: se reparten entre los 32 hijos de cada nivel
+    private static int mezclar(int clave) {
+        return clave * 0x9E3779B9;
+    }
+    
+    // --- CLASES DE DATOS PARA EL TRIE ---
+    
+    private static final class Hoja {
+        final int clave;
+        final int hash;
+        final Object valor;
+        
+        Hoja(int clave, int hash, Object valor) {
+            this.clave = clave;
+            this.hash = hash;
+            this.valor = valor;
+        }
+    }
+    
+    // Nodo con un bit por hijo presente; los hijos se guardan compactos en el orden de los bits
+    private static final class Nodo {
+        final int mapaBits;
+        final Object[] hijos;
+        
+        Nodo(int mapaBits, Object[] hijos) {
+            this.mapaBits = mapaBits;
+            this.hijos = hijos;
+        }
+        
+        static Nodo conHoja(Hoja hoja, int desplazamiento) {
+            return new Nodo(1 << ((hoja.hash >>> desplazamiento) & MASCARA), new Object[] { hoja });
+        }
+        
+        int posicion(int bit) {
+            return Integer.bitCount(mapaBits & (bit - 1));
+        }
+        
+        Nodo con(Hoja hoja, int desplazamiento, boolean[] agregada) {
+            int bit = 1 << ((hoja.hash >>> desplazamiento) & MASCARA);
+            int posicion = posicion(bit);
+            
+            if ((mapaBits & bit) == 0) {
+                Object[] nuevos = new Object[hijos.length + 1];
+                System.arraycopy(hijos, 0, nuevos, 0, posicion);
+                nuevos[posicion] = hoja;
+                System.arraycopy(hijos, posicion, nuevos, posicion + 1, hijos.length - posicion);
+                agregada[0] = true;
+                return new Nodo(mapaBits | bit, nuevos);
+            }
+            
+            Object hijo = hijos[posicion];
+            Object reemplazo;
+            if (hijo instanceof Nodo) {
+                reemplazo = ((Nodo) hijo).con(hoja, desplazamiento + BITS, agregada);
+            } else {
+                Hoja existente = (Hoja) hijo;
+                if (existente.clave == hoja.clave) {
+                    if (existente.valor == hoja.valor) {
+                        return this;
+                    }
+                    reemplazo = hoja;
+                } else {
+                    reemplazo = unir(existente, hoja, desplazamiento + BITS);
+                    agregada[0] = true;
+                }
+            }
+            Object[] nuevos = hijos.clone();
+            nuevos[posicion] = reemplazo;
+            return new Nodo(mapaBits, nuevos);
+        }
+        
+        // Retorna este nodo si la clave no estaba, null si quedo vacio o la unica hoja que queda
+        Object sin(int clave, int hash, int desplazamiento) {
+            int bit = 1 << ((hash >>> desplazamiento) & MASCARA);
+            if ((mapaBits & bit) == 0) {
+                return this;
+            }
+            int posicion = posicion(bit);
+            Object hijo = hijos[posicion];
+            Object reemplazo;
+            if (hijo instanceof Nodo) {
+                reemplazo = ((Nodo) hijo).sin(clave, hash, desplazamiento + BITS);
+                if (reemplazo == hijo) {
+                    return this;
+                }
+            } else if (((Hoja) hijo).clave == clave) {
+                reemplazo = null;
+            } else {
+                return this;
+            }
+            
+            if (reemplazo != null) {
+                Object[] nuevos = hijos.clone();
+                nuevos[posicion] = reemplazo;
+                return new Nodo(mapaBits, nuevos);
+            }
+            if (hijos.length == 1) {
+                return null;
+            }
+            // Un nodo que queda con una sola hoja se reemplaza por ella en el padre
+            if (hijos.length == 2 && hijos[1 - posicion] instanceof Hoja) {
+                return hijos[1 - posicion];
+            }
+            Object[] nuevos = new Object[hijos.length - 1];
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            System.arraycopy(hijos, posicion + 1, nuevos, posicion, hijos.length - posicion - 1);
+            return new Nodo(mapaBits & ~bit, nuevos);
+        }
+        
+        void recorrer(Consumer<Object> accion) {
+            for (Object hijo : hijos) {
+                if (hijo instanceof Hoja) {
+                    accion.accept(((Hoja) hijo).valor);
+                } else {
+                    ((Nodo) hijo).recorrer(accion);
+                }
+            }
+        }
+        
+        // Dos hojas que comparten prefijo hasta aqui: se baja hasta el nivel donde se separan
+        private static Nodo unir(Hoja a, Hoja b, int desplazamiento) {
+            int indiceA = (a.hash >>> desplazamiento) & MASCARA;
+            int indiceB = (b.hash >>> desplazamiento) & MASCARA;
+            if (indiceA == indiceB) {
+                return new Nodo(1 << indiceA, new Object[] { unir(a, b, desplazamiento + BITS) });
+            }
+            Object[] hijos = indiceA < indiceB ? new Object[] { a, b } : new Object[] { b, a };
+            return new Nodo((1 << indiceA) | (1 << indiceB), hijos);
+        }
+    }
+    
+    // --- CLASES DE DATOS PARA RECORRIDO ---
+    
+    // Recorrido en profundidad con una pila de posiciones, sin recursion
+    private static final class IteradorValores<V> implements Iterator<V> {
+        private final Deque<Nodo> nodos = new ArrayDeque<>();
+        private final Deque<Integer> posiciones = new ArrayDeque<>();
+        private Hoja siguiente;
+        
+        IteradorValores(Nodo raiz) {
+            if (raiz != null) {
+                nodos.push(raiz);
+                posiciones.push(0);
+            }
+            avanzar();
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return siguiente != null;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (siguiente == null) {
+                throw new NoSuchElementException();
+            }
+            V valor = (V) siguiente.valor;
+            avanzar();
+            return valor;
+        }
+        
+        private void avanzar() {
+            siguiente = null;
+            while (!nodos.isEmpty()) {
+                Nodo nodo = nodos.peek();
+                int posicion = posiciones.pop();
+                if (posicion >= nodo.hijos.length) {
+                    nodos.pop();
+                    continue;
+                }
+                posiciones.push(posicion + 1);
+                Object hijo = nodo.hijos[posicion];
+                if (hijo instanceof Hoja) {
+                    siguiente = (Hoja) hijo;
+                    return;
+                }
+                nodos.push((Nodo) hijo);
+                posiciones.push(0);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package tvsystem.util;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de cliente leida desde un archivo de datos, antes de validarla.
+ * Se usa en la importacion masiva para pasar los datos al servicio por lotes.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class RegistroCliente {
+    private int numeroLinea;
+    private String sector;
+    private String nombre;
+    private String rut;
+    private String domicilio;
+    private String codigoPlan;
+    private String estado;
+    private boolean pagado;
+    private LocalDate proximoVencimiento;
+    private String rutFormateado;
+    private boolean rutPreparado;
+    
+    // Constructor
+    public RegistroCliente(int numeroLinea, String sector, String nombre, String rut,
+                           String domicilio, String codigoPlan) {
+        this.numeroLinea = numeroLinea;
+        this.sector = sector;
+        this.nombre = nombre;
+        this.rut = rut;
+        this.domicilio = domicilio;
+        this.codigoPlan = codigoPlan;
+        this.estado = "ACTIVA";
+        this.pagado = true;
+        this.proximoVencimiento = null;
+    }
+    
+    // -- SETTERS Y GETTERS --
+    
+    public int getNumeroLinea() {
+        return numeroLinea;
+    }
+    
+    public void setNumeroLinea(int numeroLinea) {
+        this.numeroLinea = numeroLinea;
+    }
+    
+    public String getSector() {
+        return sector;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public String getRut() {
+        return rut;
+    }
+    
+    // RUT en formato estandar, o null si no es valido
+    public String getRutFormateado() {
+        prepararRut();
+        return rutFormateado;
+    }
+    
+    public String getDomicilio() {
+        return domicilio;
+    }
+    
+    public String getCodigoPlan() {
+        return codigoPlan;
+    }
+    
+    public String getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+    
+    public boolean isPagado() {
+        return pagado;
+    }
+    
+    public void setPagado(boolean pagado) {
+        this.pagado = pagado;
+    }
+    
+    public LocalDate getProximoVencimiento() {
+        return proximoVencimiento;
+    }
+    
+    public void setProximoVencimiento(LocalDate proximoVencimiento) {
+        this.proximoVencimiento = proximoVencimiento;
+    }
+    
+    // -- METODOS --
+    
+    // Valida y formatea el RUT una sola vez; la carga paralela lo llama desde los hilos de lectura
+    public void prepararRut() {
+        if (!rutPreparado) {
+            long rutParseado = RutValidator.parsearRut(rut);
+            rutFormateado = rutParseado != RutValidator.RUT_INVALIDO ? RutValidator.formatearRutValido(rut) : null;
+            rutPreparado = true;
+        }
+    }
+}
\ No newline at end of file
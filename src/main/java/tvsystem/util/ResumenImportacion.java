@@ -0,0 +1,113 @@
+package tvsystem.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una importacion masiva de clientes.
+ * Reemplaza el log por fila: acumula contadores, algunos ejemplos de filas
+ * rechazadas y el tiempo total para informar filas por segundo.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class ResumenImportacion {
+    
+    private static final int MAX_EJEMPLOS_RECHAZO = 10;
+    
+    private long inicioNanos;
+    private long duracionNanos;
+    private int filasLeidas;
+    private int clientesCargados;
+    private int filasRechazadas;
+    private int ofertasRestauradas;
+    private List<String> ejemplosRechazo;
+    
+    // Constructor
+    public ResumenImportacion() {
+        this.inicioNanos = System.nanoTime();
+        this.ejemplosRechazo = new ArrayList<>();
+    }
+    
+    // -- METODOS --
+    
+    public void registrarFila() {
+        filasLeidas++;
+    }
+    
+    public void registrarFilas(int cantidad) {
+        filasLeidas += cantidad;
+    }
+    
+    public void registrarCargados(int cantidad) {
+        clientesCargados += cantidad;
+    }
+    
+    public void registrarOfertaRestaurada() {
+        ofertasRestauradas++;
+    }
+    
+    // Cuenta la fila rechazada y guarda el motivo solo para las primeras
+    public void registrarRechazo(int numeroLinea, String motivo) {
+        filasRechazadas++;
+        if (ejemplosRechazo.size() < MAX_EJEMPLOS_RECHAZO) {
+            ejemplosRechazo.add("Linea " + numeroLinea + ": " + motivo);
+        }
+    }
+    
+    // Cuenta filas rechazadas de las que ya se guardaron suficientes ejemplos
+    public void registrarRechazosSinDetalle(int cantidad) {
+        filasRechazadas += cantidad;
+    }
+    
+    public void finalizar() {
+        duracionNanos = System.nanoTime() - inicioNanos;
+    }
+    
+    // -- GETTERS --
+    
+    public int getFilasLeidas() {
+        return filasLeidas;
+    }
+    
+    public int getClientesCargados() {
+        return clientesCargados;
+    }
+    
+    public int getFilasRechazadas() {
+        return filasRechazadas;
+    }
+    
+    public int getOfertasRestauradas() {
+        return ofertasRestauradas;
+    }
+    
+    public List<String> getEjemplosRechazo() {
+        return new ArrayList<>(ejemplosRechazo);
+    }
+    
+    public long getDuracionMillis() {
+        return duracionNanos / 1_000_000L;
+    }
+    
+    public double getFilasPorSegundo() {
+        if (duracionNanos <= 0) {
+            return 0.0;
+        }
+        return filasLeidas * 1_000_000_000.0 / duracionNanos;
+    }
+    
+    // Escribe el resumen en el log: una linea de totales y los primeros rechazos
+    public void registrarEnLog(String origen) {
+        LoggerHelper.success(String.format("Datos cargados: %d clientes de %d filas en %d ms (%.0f filas/s) desde %s",
+            clientesCargados, filasLeidas, getDuracionMillis(), getFilasPorSegundo(), origen));
+        if (filasRechazadas > 0) {
+            LoggerHelper.warning("Filas rechazadas: " + filasRechazadas);
+            for (String ejemplo : ejemplosRechazo) {
+                LoggerHelper.warning("  " + ejemplo);
+            }
+        }
+        if (ofertasRestauradas > 0) {
+            LoggerHelper.info("Ofertas restauradas: " + ofertasRestauradas + " planes con descuentos");
+        }
+    }
+}
\ No newline at end of file
@@ -2,88 +2,198 @@ package tvsystem.util;
 
 /**
  * Utilidad para validar RUT chilenos.
+ *
+ * El RUT se recorre una sola vez caracter por caracter, sin expresiones regulares
+ * ni Strings intermedios. parsearRut entrega el resultado como un long
+ * (cuerpo << 4 | digito verificador, con K = 10) que sirve como clave canonica.
+ * formatearRut(String) conserva los digitos tal como se escribieron, incluidos
+ * los ceros a la izquierda; formatearRut(long) entrega la forma sin ceros.
  * 
  * @author Elias Manriquez
  */
 public class RutValidator {
     
+    // Valor de parsearRut para un RUT invalido
+    public static final long RUT_INVALIDO = -1L;
+    
+    // Valor del digito verificador K dentro del long parseado
+    private static final int DV_K = 10;
+    
+    // Cuerpos sobre este limite no caben en el long parseado
+    private static final long MAX_CUERPO = Long.MAX_VALUE >>> 4;
+    
     // Valida un RUT completo en formato "12345678-9" o "12345678-K"
     public static boolean validarRut(String rut) {
-        if (rut == null || rut.trim().isEmpty()) {
-            return false;
+        return parsearRut(rut) != RUT_INVALIDO;
+    }
+    
+    // Separa el RUT en cuerpo y digito verificador ignorando puntos, guiones y espacios.
+    // Retorna cuerpo << 4 | dv (K = 10), o RUT_INVALIDO si no es un RUT valido
+    public static long parsearRut(CharSequence rut) {
+        if (rut == null) {
+            return RUT_INVALIDO;
         }
         
-        // Limpiar el RUT
-        rut = limpiarRut(rut);
+        long cuerpo = 0;
+        int significativos = 0;
+        int dv = -1; // Ultimo caracter significativo visto; pasa al cuerpo si aparece otro despues
         
-        // Verificar longitud minima
-        if (rut.length() < 2) {
-            return false;
+        for (int i = 0, largo = rut.length(); i < largo; i++) {
+            char c = rut.charAt(i);
+            if (esSeparador(c)) {
+                continue;
+            }
+            
+            int valor;
+            if (c >= '0' && c <= '9') {
+                valor = c - '0';
+            } else if (c == 'K' || c == 'k') {
+                valor = DV_K;
+            } else {
+                return RUT_INVALIDO;
+            }
+            
+            if (dv >= 0) {
+                // K solo puede ir al final, y el cuerpo debe caber en el long parseado
+                if (dv == DV_K || cuerpo > (MAX_CUERPO - dv) / 10) {
+                    return RUT_INVALIDO;
+                }
+                cuerpo = cuerpo * 10 + dv;
+            }
+            dv = valor;
+            significativos++;
         }
         
-        // Separar numero y digito verificador
-        String numero = rut.substring(0, rut.length() - 1);
-        char digitoVerificador = rut.charAt(rut.length() - 1);
-        
-        // Verificar que el numero contenga solo dígitos
-        if (!numero.matches("\\d+")) {
-            return false;
+        // Se necesita al menos un digito de cuerpo ademas del verificador
+        if (significativos < 2 || calcularDigitoVerificador(cuerpo) != dv) {
+            return RUT_INVALIDO;
+        }
+        return cuerpo << 4 | dv;
+    }
+    
+    // Clave canonica para indices: el cuerpo del RUT como int, o -1 si el RUT no es valido.
+    // El digito verificador depende del cuerpo, asi que no hace falta guardarlo en la clave
+    public static int claveRut(CharSequence rut) {
+        long rutParseado = parsearRut(rut);
+        if (rutParseado == RUT_INVALIDO || cuerpoRut(rutParseado) > Integer.MAX_VALUE) {
+            return -1;
         }
+        return (int) cuerpoRut(rutParseado);
+    }
         
-        // Calcular digito verificador esperado
-        char dvEsperado = calcularDigitoVerificador(numero);
+    // Cuerpo numerico de un RUT parseado
+    public static long cuerpoRut(long rutParseado) {
+        return rutParseado >>> 4;
+    }
         
-        return digitoVerificador == dvEsperado;
+    // Digito verificador ('0'..'9' o 'K') de un RUT parseado
+    public static char digitoVerificador(long rutParseado) {
+        int dv = (int) (rutParseado & 0xF);
+        return dv == DV_K ? 'K' : (char) ('0' + dv);
     }
     
     // Limpia el RUT removiendo puntos, guiones y espacios, y convierte a mayusculas
     public static String limpiarRut(String rut) {
-        return rut.replaceAll("[.\\-\\s]", "").toUpperCase();
-    }
-    
-    // Calcula el digito verificador para un número de RUT
-    private static char calcularDigitoVerificador(String numero) {
-        int suma = 0;
-        int multiplicador = 2;
-        
-        for (int i = numero.length() - 1; i >= 0; i--) {
-            suma += Character.getNumericValue(numero.charAt(i)) * multiplicador;
-            multiplicador++;
-            if (multiplicador > 7) {
-                multiplicador = 2;
+        StringBuilder limpio = new StringBuilder(rut.length());
+        for (int i = 0; i < rut.length(); i++) {
+            char c = rut.charAt(i);
+            if (!esSeparador(c)) {
+                limpio.append(Character.toUpperCase(c));
             }
         }
-        
-        int resto = suma % 11;
-        int dv = 11 - resto;
-        
-        if (dv == 11) {
-            return '0';
-        } else if (dv == 10) {
-            return 'K';
-        } else {
-            return Character.forDigit(dv, 10);
-        }
+        return limpio.toString();
     }
     
     // Formatea un RUT en el formato estandar "12.345.678-9"
     public static String formatearRut(String rut) {
-        if (!validarRut(rut)) {
+        if (parsearRut(rut) == RUT_INVALIDO) {
             return rut; // Retorna el original si no es válido
         }
+        return formatearRutValido(rut);
+    }
+    
+    // Formatea un RUT ya validado con parsearRut conservando sus digitos tal como vienen,
+    // asi "01.234.567-8" queda igual; solo pone los puntos, el guion y la K en mayuscula
+    public static String formatearRutValido(CharSequence rut) {
+        char[] salida = new char[rut.length() + rut.length() / 3 + 2];
+        int posicion = salida.length;
+        int enGrupo = -1; // -1 hasta escribir el digito verificador
         
-        rut = limpiarRut(rut);
-        String numero = rut.substring(0, rut.length() - 1);
-        char dv = rut.charAt(rut.length() - 1);
+        for (int i = rut.length() - 1; i >= 0; i--) {
+            char c = rut.charAt(i);
+            if (esSeparador(c)) {
+                continue;
+            }
+            if (enGrupo < 0) {
+                salida[--posicion] = Character.toUpperCase(c);
+                salida[--posicion] = '-';
+                enGrupo = 0;
+                continue;
+            }
+            if (enGrupo == 3) {
+                salida[--posicion] = '.';
+                enGrupo = 0;
+            }
+            salida[--posicion] = c;
+            enGrupo++;
+        }
+        return new String(salida, posicion, salida.length - posicion);
+    }
+    
+    // Formatea un RUT ya parseado
+    public static String formatearRut(long rutParseado) {
+        return formatearRut(cuerpoRut(rutParseado), digitoVerificador(rutParseado));
+    }
+    
+    // RUT valido y formateado para un cuerpo dado, calculando su digito verificador
+    public static String generarRut(long cuerpo) {
+        int dv = calcularDigitoVerificador(cuerpo);
+        return formatearRut(cuerpo, dv == DV_K ? 'K' : (char) ('0' + dv));
+    }
+    
+    // Formatea un RUT ya separado en cuerpo y digito verificador, sin volver a validarlo
+    public static String formatearRut(long cuerpo, char digitoVerificador) {
+        char[] salida = new char[28]; // 18 digitos, 5 puntos, guion y verificador
+        int posicion = salida.length;
+        salida[--posicion] = digitoVerificador;
+        salida[--posicion] = '-';
         
-        StringBuilder numeroFormateado = new StringBuilder();
-        for (int i = 0; i < numero.length(); i++) {
-            if (i > 0 && (numero.length() - i) % 3 == 0) {
-                numeroFormateado.append('.');
+        int enGrupo = 0;
+        do {
+            if (enGrupo == 3) {
+                salida[--posicion] = '.';
+                enGrupo = 0;
+            }
+            salida[--posicion] = (char) ('0' + cuerpo % 10);
+            cuerpo /= 10;
+            enGrupo++;
+        } while (cuerpo > 0);
+        
+        return new String(salida, posicion, salida.length - posicion);
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Mismos caracteres que eliminaba el patron "[.\\-\\s]"
+    private static boolean esSeparador(char c) {
+        return c == '.' || c == '-' || c == ' ' || c == '\t' || c == '\n'
+            || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    // Calcula el digito verificador (K = 10) para el cuerpo de un RUT
+    private static int calcularDigitoVerificador(long cuerpo) {
+        int suma = 0;
+        int multiplicador = 2;
+        
+        for (long n = cuerpo; n > 0; n /= 10) {
+            suma += (int) (n % 10) * multiplicador;
+            multiplicador++;
+            if (multiplicador > 7) {
+                multiplicador = 2;
             }
-            numeroFormateado.append(numero.charAt(i));
         }
         
-        return numeroFormateado.toString() + '-' + dv;
+        int dv = 11 - suma % 11;
+        return dv == 11 ? 0 : dv;
     }
 }
\ No newline at end of file
@@ -0,0 +1,451 @@
+package tvsystem.util;
+
+import tvsystem.model.Cliente;
+import tvsystem.model.FotoCliente;
+import tvsystem.model.FotoSuscripcion;
+import tvsystem.model.PlanSector;
+import tvsystem.model.Suscripcion;
+import tvsystem.service.ClienteService;
+import tvsystem.service.PlanService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario compacto (.tvsb) para la foto completa de los datos.
+ *
+ * Estructura: cabecera "TVSB" + version, diccionario de sectores, diccionario de
+ * planes (codigo, sector y oferta) y luego una fila por cliente con el indice del
+ * plan, el RUT como cuerpo entero + digito verificador, nombre, domicilio, estado
+ * (diccionario que se arma al escribir) y fechas como dia epoch. Todos los enteros
+ * se guardan como varint, de modo que una fila tipica ocupa la mitad que en CSV
+ * y se lee sin parsear texto.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class SnapshotBinario {
+    
+    private static final byte[] FIRMA = {'T', 'V', 'S', 'B'};
+    private static final int VERSION = 1;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    
+    // Banderas de cada fila
+    private static final int PAGADO = 1;
+    private static final int CON_INICIO = 1 << 1;
+    private static final int CON_TERMINO = 1 << 2;
+    private static final int CON_VENCIMIENTO = 1 << 3;
+    private static final int CON_ULTIMO_PAGO = 1 << 4;
+    private static final int RUT_TEXTO = 1 << 5;
+    
+    // Dias validos para LocalDate.ofEpochDay
+    private static final long MIN_DIA_EPOCH = LocalDate.MIN.toEpochDay();
+    private static final long MAX_DIA_EPOCH = LocalDate.MAX.toEpochDay();
+    
+    // Lo minimo que ocupa un plan (codigo, sector, oferta y descuento) y un cliente (plan, banderas,
+    // RUT, nombre, domicilio y estado); acota las cantidades leidas antes de reservar memoria
+    private static final int BYTES_MINIMOS_PLAN = 11;
+    private static final int BYTES_MINIMOS_CLIENTE = 6;
+    
+    private SnapshotBinario() {}
+    
+    // -- METODOS --
+    
+    // Escribe la foto completa; retorna la cantidad de clientes escritos
+    public static int escribir(OutputStream destino, List<FotoCliente> clientes, List<PlanSector> planes) throws IOException {
+        Map<String, Integer> indicePlan = indicePlanes(planes);
+        List<FotoCliente> validos = new ArrayList<>(clientes.size());
+        for (FotoCliente cliente : clientes) {
+            FotoSuscripcion suscripcion = cliente.getSuscripcion();
+            if (suscripcion != null && suscripcion.getPlan() != null
+                    && indicePlan.containsKey(suscripcion.getPlan().getCodigoPlan())) {
+                validos.add(cliente);
+            }
+        }
+        
+        Escritor escritor = new Escritor(destino, planes, validos.size());
+        for (FotoCliente cliente : validos) {
+            escritor.agregar(cliente);
+        }
+        escritor.terminar();
+        return validos.size();
+    }
+    
+    // Lee una foto completa y la carga en los servicios
+    public static ResumenImportacion leer(Path archivo, ClienteService clienteService, PlanService planService) throws IOException {
+        ResumenImportacion resumen = new ResumenImportacion();
+        
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot demasiado grande: " + canal.size() + " bytes");
+            }
+            Entrada entrada = new Entrada(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+            
+            for (byte b : FIRMA) {
+                if (entrada.byteSimple() != b) {
+                    throw new IOException("El archivo no es un snapshot de TvSystem");
+                }
+            }
+            int version = entrada.varint();
+            if (version != VERSION) {
+                throw new IOException("Version de snapshot no soportada: " + version);
+            }
+            
+            String[] sectores = new String[entrada.cantidad(1)];
+            for (int i = 0; i < sectores.length; i++) {
+                sectores[i] = entrada.texto();
+            }
+            
+            // Planes del archivo; los que ya no existen en el sistema quedan en null. Las ofertas se
+            // aplican recien cuando el archivo completo se leyo bien, para no dejar planes a medias
+            int cantidadPlanes = entrada.cantidad(BYTES_MINIMOS_PLAN);
+            PlanSector[] planes = new PlanSector[cantidadPlanes];
+            String[] sectorDePlan = new String[cantidadPlanes];
+            boolean[] ofertas = new boolean[cantidadPlanes];
+            double[] descuentos = new double[cantidadPlanes];
+            for (int i = 0; i < cantidadPlanes; i++) {
+                String codigo = entrada.texto();
+                sectorDePlan[i] = sectores[entrada.varint()];
+                ofertas[i] = entrada.byteSimple() != 0;
+                descuentos[i] = entrada.doble();
+                planes[i] = planService.obtenerPlanPorCodigo(codigo);
+            }
+            
+            int cantidad = entrada.cantidad(BYTES_MINIMOS_CLIENTE);
+            List<String> estados = new ArrayList<>();
+            Map<String, List<Cliente>> clientesPorSector = new HashMap<>();
+            
+            for (int fila = 1; fila <= cantidad; fila++) {
+                int indicePlan = entrada.varint();
+                int banderas = entrada.byteSimple();
+                String rut = (banderas & RUT_TEXTO) != 0
+                    ? entrada.texto()
+                    : RutValidator.formatearRut(entrada.varint(), (char) entrada.byteSimple());
+                String nombre = entrada.texto();
+                String domicilio = entrada.texto();
+                
+                int indiceEstado = entrada.varint();
+                if (indiceEstado == estados.size()) {
+                    estados.add(entrada.texto());
+                }
+                String estado = estados.get(indiceEstado);
+                
+                LocalDate inicio = (banderas & CON_INICIO) != 0 ? entrada.dia() : null;
+                LocalDate termino = (banderas & CON_TERMINO) != 0 ? entrada.dia() : null;
+                LocalDate vencimiento = (banderas & CON_VENCIMIENTO) != 0 ? entrada.dia() : null;
+                LocalDate ultimoPago = (banderas & CON_ULTIMO_PAGO) != 0 ? entrada.dia() : null;
+                resumen.registrarFila();
+                
+                PlanSector plan = planes[indicePlan];
+                if (plan == null) {
+                    resumen.registrarRechazo(fila, "Plan no encontrado en el sistema");
+                    continue;
+                }
+                
+                Cliente cliente = new Cliente(nombre, rut, domicilio);
+                Suscripcion suscripcion = new Suscripcion(inicio != null ? java.sql.Date.valueOf(inicio) : null,
+                                                          termino != null ? java.sql.Date.valueOf(termino) : null,
+                                                          estado, cliente, plan);
+                suscripcion.setProximoVencimiento(vencimiento);
+                suscripcion.setPagado((banderas & PAGADO) != 0);
+                suscripcion.setUltimaFechaPago(ultimoPago);
+                cliente.setSuscripcion(suscripcion);
+                clientesPorSector.computeIfAbsent(sectorDePlan[indicePlan], k -> new ArrayList<>()).add(cliente);
+            }
+            
+            for (int i = 0; i < cantidadPlanes; i++) {
+                if (planes[i] != null) {
+                    restaurarOferta(planes[i], ofertas[i], descuentos[i], resumen);
+                }
+            }
+            for (Map.Entry<String, List<Cliente>> entry : clientesPorSector.entrySet()) {
+                clienteService.restaurarClientes(entry.getKey(), entry.getValue(), resumen);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Snapshot incompleto o dañado: " + archivo, e);
+        }
+        
+        resumen.finalizar();
+        return resumen;
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // El archivo es la foto completa: el estado de la oferta se restaura tal cual
+    private static void restaurarOferta(PlanSector plan, boolean oferta, double descuento, ResumenImportacion resumen) {
+        if (oferta) {
+            plan.activarOferta(descuento);
+            resumen.registrarOfertaRestaurada();
+        } else if (plan.getOfertaActiva()) {
+            plan.desactivarOferta();
+        }
+    }
+    
+    // "12.345.678-9" como cuerpo << 8 | digito verificador; -1 si no esta en forma canonica
+    private static long separarRut(String rut) {
+        long rutParseado = RutValidator.parsearRut(rut);
+        if (rutParseado == RutValidator.RUT_INVALIDO || RutValidator.cuerpoRut(rutParseado) > Integer.MAX_VALUE) {
+            return -1;
+        }
+        // Solo si al reconstruirlo queda exactamente igual
+        if (!RutValidator.formatearRut(rutParseado).equals(rut)) {
+            return -1;
+        }
+        return RutValidator.cuerpoRut(rutParseado) << 8 | RutValidator.digitoVerificador(rutParseado);
+    }
+    
+    private static Map<String, Integer> indicePlanes(List<PlanSector> planes) {
+        Map<String, Integer> indice = new HashMap<>();
+        for (PlanSector plan : planes) {
+            indice.put(plan.getCodigoPlan(), indice.size());
+        }
+        return indice;
+    }
+    
+    private static long diaEpoch(java.util.Date fecha) {
+        return new java.sql.Date(fecha.getTime()).toLocalDate().toEpochDay();
+    }
+    
+    // --- CLASES DE DATOS PARA LECTURA Y ESCRITURA ---
+    
+    /**
+     * Escritura fila a fila de una foto cuya cantidad de clientes se conoce de antemano,
+     * para generar archivos grandes sin tener todos los clientes en memoria.
+     */
+    public static class Escritor {
+        private final Salida salida;
+        private final Map<String, Integer> indicePlan;
+        private final Map<String, Integer> estados = new HashMap<>();
+        private final int cantidad;
+        private int escritos;
+        
+        // Escribe cabecera, diccionarios y cantidad de filas
+        public Escritor(OutputStream destino, List<PlanSector> planes, int cantidad) throws IOException {
+            this.salida = new Salida(destino);
+            this.indicePlan = indicePlanes(planes);
+            this.cantidad = cantidad;
+            salida.bytes(FIRMA);
+            salida.varint(VERSION);
+            
+            // Diccionarios de sectores y planes
+            Map<String, Integer> sectores = new HashMap<>();
+            List<String> nombresSector = new ArrayList<>();
+            for (PlanSector plan : planes) {
+                if (sectores.putIfAbsent(plan.getSectorAsociado(), nombresSector.size()) == null) {
+                    nombresSector.add(plan.getSectorAsociado());
+                }
+            }
+            salida.varint(nombresSector.size());
+            for (String sector : nombresSector) {
+                salida.texto(sector);
+            }
+            
+            salida.varint(planes.size());
+            for (PlanSector plan : planes) {
+                salida.texto(plan.getCodigoPlan());
+                salida.varint(sectores.get(plan.getSectorAsociado()));
+                salida.byteSimple(plan.getOfertaActiva() ? 1 : 0);
+                salida.doble(plan.getDescuento());
+            }
+            salida.varint(cantidad);
+        }
+        
+        // Escribe una fila; el plan del cliente debe estar entre los planes de la cabecera
+        public void agregar(FotoCliente cliente) throws IOException {
+            FotoSuscripcion suscripcion = cliente.getSuscripcion();
+            Integer plan = suscripcion != null && suscripcion.getPlan() != null
+                ? indicePlan.get(suscripcion.getPlan().getCodigoPlan()) : null;
+            if (plan == null) {
+                throw new IllegalArgumentException("Cliente sin plan conocido: " + cliente.getRut());
+            }
+            if (escritos == cantidad) {
+                throw new IllegalStateException("Se declararon " + cantidad + " clientes");
+            }
+            long rut = separarRut(cliente.getRut());
+            
+            int banderas = 0;
+            if (suscripcion.isPagado()) banderas |= PAGADO;
+            if (suscripcion.getFechaInicio() != null) banderas |= CON_INICIO;
+            if (suscripcion.getFechaTermino() != null) banderas |= CON_TERMINO;
+            if (suscripcion.getProximoVencimiento() != null) banderas |= CON_VENCIMIENTO;
+            if (suscripcion.getUltimaFechaPago() != null) banderas |= CON_ULTIMO_PAGO;
+            if (rut < 0) banderas |= RUT_TEXTO;
+            
+            salida.varint(plan);
+            salida.byteSimple(banderas);
+            if (rut < 0) {
+                salida.texto(cliente.getRut());
+            } else {
+                salida.varint(rut >>> 8);
+                salida.byteSimple((int) (rut & 0xFF));
+            }
+            salida.texto(cliente.getNombre());
+            salida.texto(cliente.getDomicilio());
+            
+            // El estado se escribe completo la primera vez y luego como indice
+            String estado = suscripcion.getEstado() != null ? suscripcion.getEstado() : "ACTIVA";
+            Integer indiceEstado = estados.get(estado);
+            if (indiceEstado == null) {
+                salida.varint(estados.size());
+                salida.texto(estado);
+                estados.put(estado, estados.size());
+            } else {
+                salida.varint(indiceEstado);
+            }
+            
+            if ((banderas & CON_INICIO) != 0) salida.dia(diaEpoch(suscripcion.getFechaInicio()));
+            if ((banderas & CON_TERMINO) != 0) salida.dia(diaEpoch(suscripcion.getFechaTermino()));
+            if ((banderas & CON_VENCIMIENTO) != 0) salida.dia(suscripcion.getProximoVencimiento().toEpochDay());
+            if ((banderas & CON_ULTIMO_PAGO) != 0) salida.dia(suscripcion.getUltimaFechaPago().toEpochDay());
+            escritos++;
+        }
+        
+        // Vacia el buffer; falla si faltaron filas de las declaradas
+        public void terminar() throws IOException {
+            if (escritos != cantidad) {
+                throw new IOException("Foto incompleta: " + escritos + " de " + cantidad + " clientes");
+            }
+            salida.vaciar();
+        }
+    }
+    
+    // Buffer propio para no pagar la sincronizacion de BufferedOutputStream por cada byte
+    private static class Salida {
+        private final OutputStream destino;
+        private final byte[] buffer = new byte[TAMANO_BUFFER];
+        private int posicion;
+        
+        Salida(OutputStream destino) {
+            this.destino = destino;
+        }
+        
+        void byteSimple(int valor) throws IOException {
+            if (posicion == buffer.length) {
+                vaciar();
+            }
+            buffer[posicion++] = (byte) valor;
+        }
+        
+        void bytes(byte[] datos) throws IOException {
+            if (datos.length > buffer.length - posicion) {
+                vaciar();
+                if (datos.length > buffer.length) {
+                    destino.write(datos);
+                    return;
+                }
+            }
+            System.arraycopy(datos, 0, buffer, posicion, datos.length);
+            posicion += datos.length;
+        }
+        
+        // Entero sin signo en grupos de 7 bits
+        void varint(long valor) throws IOException {
+            while ((valor & ~0x7FL) != 0) {
+                byteSimple((int) ((valor & 0x7F) | 0x80));
+                valor >>>= 7;
+            }
+            byteSimple((int) valor);
+        }
+        
+        // Dia epoch con zigzag para admitir fechas anteriores a 1970
+        void dia(long diaEpoch) throws IOException {
+            varint((diaEpoch << 1) ^ (diaEpoch >> 63));
+        }
+        
+        void doble(double valor) throws IOException {
+            long bits = Double.doubleToLongBits(valor);
+            for (int i = 0; i < 8; i++) {
+                byteSimple((int) (bits >>> (8 * i)));
+            }
+        }
+        
+        void texto(String valor) throws IOException {
+            byte[] datos = (valor != null ? valor : "").getBytes(StandardCharsets.UTF_8);
+            varint(datos.length);
+            bytes(datos);
+        }
+        
+        void vaciar() throws IOException {
+            destino.write(buffer, 0, posicion);
+            posicion = 0;
+        }
+    }
+    
+    private static class Entrada {
+        private final ByteBuffer datos;
+        private byte[] temporal = new byte[256];
+        
+        Entrada(ByteBuffer datos) {
+            this.datos = datos;
+        }
+        
+        int byteSimple() {
+            return datos.get() & 0xFF;
+        }
+        
+        long varlong() throws IOException {
+            long valor = 0;
+            for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+                int b = datos.get();
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if (b >= 0) {
+                    return valor;
+                }
+            }
+            throw new IOException("Entero mal formado en snapshot");
+        }
+        
+        int varint() throws IOException {
+            long valor = varlong();
+            if (valor > Integer.MAX_VALUE) {
+                throw new IOException("Entero fuera de rango en snapshot");
+            }
+            return (int) valor;
+        }
+        
+        LocalDate dia() throws IOException {
+            long zigzag = varlong();
+            long epochDia = (zigzag >>> 1) ^ -(zigzag & 1);
+            if (epochDia < MIN_DIA_EPOCH || epochDia > MAX_DIA_EPOCH) {
+                throw new IOException("Fecha fuera de rango en snapshot");
+            }
+            return LocalDate.ofEpochDay(epochDia);
+        }
+        
+        double doble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits |= (long) (datos.get() & 0xFF) << (8 * i);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+        
+        // Cantidad de elementos que siguen, cada uno de al menos bytesMinimos; se rechaza si es
+        // negativa o si no caben en lo que queda del archivo, antes de reservar arreglos con ella
+        int cantidad(int bytesMinimos) throws IOException {
+            int cantidad = varint();
+            if (cantidad < 0 || cantidad > datos.remaining() / bytesMinimos) {
+                throw new IOException("Cantidad fuera de rango en snapshot: " + cantidad);
+            }
+            return cantidad;
+        }
+        
+        String texto() throws IOException {
+            int largo = cantidad(1);
+            if (largo > temporal.length) {
+                temporal = new byte[Math.max(largo, temporal.length * 2)];
+            }
+            datos.get(temporal, 0, largo);
+            return new String(temporal, 0, largo, StandardCharsets.UTF_8);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package tvsystem.view;
+
+import tvsystem.model.FotoCliente;
+import tvsystem.model.FotoSuscripcion;
+import tvsystem.model.PlanSector;
+import tvsystem.repository.VersionDatos;
+import javax.swing.table.AbstractTableModel;
+import java.util.Comparator;
+
+/**
+ * Modelo de la tabla de clientes que no guarda filas armadas.
+ *
+ * Muestra una vista de una foto de los datos (VersionDatos): un arreglo con
+ * los clientes de la foto ya filtrados y en el orden pedido, y otro paralelo
+ * con el nombre del sector de cada fila, y nada mas. El texto de cada celda se
+ * calcula cuando la tabla la pinta, asi que solo se trabaja con las filas
+ * visibles y la memoria no crece con la cantidad de clientes (dos referencias
+ * por fila). Las vistas se arman en segundo plano (TareaFilasClientes en
+ * MainWindow); una vista que todavia se esta llenando se puede ir mostrando
+ * con extender(), porque los arreglos no cambian de tamaño y las filas ya
+ * entregadas no se vuelven a escribir.
+ *
+ * Todos los metodos se llaman desde el EDT.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class ClientesTableModel extends AbstractTableModel {
+    
+    public static final int COLUMNA_NOMBRE = 0;
+    public static final int COLUMNA_RUT = 1;
+    public static final int COLUMNA_SECTOR = 2;
+    public static final int COLUMNA_PLAN = 3;
+    public static final int COLUMNA_DOMICILIO = 4;
+    public static final int COLUMNA_ESTADO = 5;
+    public static final int COLUMNA_ACCIONES = 6;
+    
+    private static final String[] COLUMNAS = {"Nombre", "RUT", "Sector", "Plan", "Domicilio", "Estado", "Acciones"};
+    private static final FotoCliente[] SIN_FILAS = new FotoCliente[0];
+    private static final String[] SIN_SECTORES = new String[0];
+    
+    private VersionDatos foto;
+    private FotoCliente[] filas = SIN_FILAS;
+    private String[] sectores = SIN_SECTORES;
+    private int cantidad;
+    
+    // -- METODOS --
+    
+    // Reemplaza la vista completa: las primeras 'cantidad' posiciones de filas son las filas y
+    // las de sectores el nombre del sector de cada una
+    public void mostrar(VersionDatos foto, FotoCliente[] filas, String[] sectores, int cantidad) {
+        this.foto = foto;
+        this.filas = filas;
+        this.sectores = sectores;
+        this.cantidad = cantidad;
+        fireTableDataChanged();
+    }
+    
+    // Muestra mas filas de la misma vista, ya escritas en el arreglo por quien la llena
+    public void extender(int nuevaCantidad) {
+        if (nuevaCantidad <= cantidad) {
+            return;
+        }
+        int inicio = cantidad;
+        cantidad = nuevaCantidad;
+        fireTableRowsInserted(inicio, nuevaCantidad - 1);
+    }
+    
+    public void limpiar() {
+        mostrar(null, SIN_FILAS, SIN_SECTORES, 0);
+    }
+    
+    // Cliente tal como estaba en la foto
+    public FotoCliente getCliente(int fila) {
+        return filas[fila];
+    }
+    
+    @Override
+    public int getRowCount() {
+        return cantidad;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+    
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        return String.class;
+    }
+    
+    // Solo la columna de acciones es editable
+    @Override
+    public boolean isCellEditable(int fila, int columna) {
+        return columna == COLUMNA_ACCIONES;
+    }
+    
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        FotoCliente cliente = filas[fila];
+        switch (columna) {
+            case COLUMNA_NOMBRE:
+                return cliente.getNombre();
+            case COLUMNA_RUT:
+                return cliente.getRut();
+            case COLUMNA_SECTOR:
+                return sectores[fila];
+            case COLUMNA_PLAN:
+                PlanSector plan = foto.planDe(cliente);
+                return plan != null ? plan.getNombrePlan() : "Sin plan";
+            case COLUMNA_DOMICILIO:
+                return cliente.getDomicilio();
+            case COLUMNA_ESTADO:
+                return textoEstado(cliente);
+            case COLUMNA_ACCIONES:
+                // Mostrar boton "Registrar Pago" si está próxima a vencer
+                return "Próxima a Vencer".equals(textoEstado(cliente)) ? "Registrar Pago" : "";
+            default:
+                return null;
+        }
+    }
+    
+    // Texto del estado guardado de la suscripcion; se deja al dia antes de armar la vista
+    public static String textoEstado(FotoCliente cliente) {
+        FotoSuscripcion suscripcion = cliente.getSuscripcion();
+        if (suscripcion == null) {
+            return "Cancelado";
+        }
+        
+        // Sin vencimiento solo se respeta una suspension manual
+        String estadoActual = suscripcion.getEstado();
+        if (suscripcion.getProximoVencimiento() == null && !"SUSPENDIDA".equalsIgnoreCase(estadoActual)) {
+            estadoActual = "CANCELADA";
+        }
+        
+        switch (estadoActual) {
+            case "ACTIVA":
+                return "Activo";
+            case "SUSPENDIDA":
+                return "Suspendido";
+            case "CANCELADA":
+                return "Cancelado";
+            case "PROXIMA_A_VENCER":
+                return "Próxima a Vencer";
+            default:
+                return "Cancelado";
+        }
+    }
+    
+    // Tipo de plan para el filtro "Plan"
+    public static String tipoPlan(PlanSector plan) {
+        if (plan == null) {
+            return "Sin plan";
+        }
+        String planLower = plan.getNombrePlan().toLowerCase();
+        if (planLower.contains("premium")) {
+            return "Premium";
+        } else if (planLower.contains("basico") || planLower.contains("básico")) {
+            return "Básico";
+        } else if (planLower.contains("familiar")) {
+            return "Familiar";
+        }
+        return "Otros";
+    }
+    
+    // Si el cliente de la foto pasa el filtro elegido ("Todos" o sin valor deja pasar a todos)
+    public static boolean pasaFiltro(FotoCliente cliente, String nombreSector, VersionDatos foto,
+                                     String tipoFiltro, String valorFiltro) {
+        if (tipoFiltro == null || "Todos".equals(tipoFiltro) || valorFiltro == null) {
+            return true;
+        }
+        switch (tipoFiltro) {
+            case "Sector":
+                return nombreSector.equals(valorFiltro);
+            case "Plan":
+                return tipoPlan(foto.planDe(cliente)).equals(valorFiltro);
+            case "Estado":
+                return textoEstado(cliente).equals(valorFiltro);
+            default:
+                return true;
+        }
+    }
+    
+    // Orden de las filas por nombre, RUT o plan, sin distinguir mayusculas; "Sector" se ordena
+    // por grupos al armar la vista y no necesita comparador
+    public static Comparator<FotoCliente> comparador(String criterioOrden, VersionDatos foto) {
+        switch (criterioOrden) {
+            case "RUT":
+                return (a, b) -> a.getRut().compareToIgnoreCase(b.getRut());
+            case "Plan":
+                return (a, b) -> nombrePlan(foto, a).compareToIgnoreCase(nombrePlan(foto, b));
+            default:
+                return (a, b) -> a.getNombre().compareToIgnoreCase(b.getNombre());
+        }
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    private static String nombrePlan(VersionDatos foto, FotoCliente cliente) {
+        PlanSector plan = foto.planDe(cliente);
+        return plan != null ? plan.getNombrePlan() : "Sin plan";
+    }
+}
\ No newline at end of file
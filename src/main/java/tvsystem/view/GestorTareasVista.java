@@ -0,0 +1,109 @@
+package tvsystem.view;
+
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ejecuta las tareas de la ventana principal y muestra su avance.
+ *
+ * Cada tarea puede ir en un canal con nombre ("clientes", "sectores", ...):
+ * al lanzar una nueva en el mismo canal se cancela la anterior, porque su
+ * resultado ya no sirve (por ejemplo, el filtro cambio otra vez). Las tareas
+ * sin canal corren hasta terminar. La barra de estado muestra la ultima
+ * tarea lanzada que sigue en curso. Todos los metodos se llaman desde el EDT.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public class GestorTareasVista {
+    
+    private final Map<String, TareaVista<?, ?>> porCanal = new HashMap<>();
+    private final Set<TareaVista<?, ?>> enCurso = new LinkedHashSet<>();
+    
+    private final JPanel barraEstado;
+    private final JProgressBar progreso;
+    private final JLabel etiqueta;
+    
+    // Constructor
+    public GestorTareasVista() {
+        progreso = new JProgressBar(0, 100);
+        progreso.setStringPainted(true);
+        etiqueta = new JLabel(" ");
+        barraEstado = new JPanel(new BorderLayout(10, 0));
+        barraEstado.setBorder(BorderFactory.createEmptyBorder(2, 10, 2, 10));
+        barraEstado.add(etiqueta, BorderLayout.CENTER);
+        barraEstado.add(progreso, BorderLayout.EAST);
+        barraEstado.setVisible(false);
+    }
+    
+    // -- METODOS --
+    
+    // Panel con la descripcion y el avance de la tarea en curso (para el borde inferior de la ventana)
+    public JComponent getBarraEstado() {
+        return barraEstado;
+    }
+    
+    // Lanza la tarea reemplazando a la que estuviera en curso en el mismo canal
+    public <T extends TareaVista<?, ?>> T reemplazar(String canal, T tarea) {
+        TareaVista<?, ?> anterior = porCanal.put(canal, tarea);
+        if (anterior != null && !anterior.isDone()) {
+            anterior.cancel(false);
+        }
+        tarea.addPropertyChangeListener(e -> {
+            if ("state".equals(e.getPropertyName()) && tarea.isDone()) {
+                porCanal.remove(canal, tarea);
+            }
+        });
+        return ejecutar(tarea);
+    }
+    
+    // Lanza la tarea sin cancelar ninguna otra
+    public <T extends TareaVista<?, ?>> T ejecutar(T tarea) {
+        enCurso.add(tarea);
+        tarea.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                mostrar();
+            } else if ("state".equals(e.getPropertyName()) && tarea.isDone()) {
+                enCurso.remove(tarea);
+                mostrar();
+            }
+        });
+        mostrar();
+        tarea.execute();
+        return tarea;
+    }
+    
+    // Cancela todas las tareas con canal (al cerrar la ventana o recrear las vistas)
+    public void cancelarTodas() {
+        for (TareaVista<?, ?> tarea : porCanal.values()) {
+            tarea.cancel(false);
+        }
+        porCanal.clear();
+    }
+    
+    // --- METODOS PRIVADOS ---
+    
+    // Una tarea cancelada puede seguir corriendo hasta su proxima revision; no se muestra
+    private void mostrar() {
+        TareaVista<?, ?> actual = null;
+        for (TareaVista<?, ?> tarea : enCurso) {
+            if (!tarea.isCancelled()) {
+                actual = tarea;
+            }
+        }
+        if (actual == null) {
+            barraEstado.setVisible(false);
+            return;
+        }
+        int avance = actual.getProgress();
+        etiqueta.setText(actual.getDescripcion() + "...");
+        // Sin avance informado todavia se muestra como indeterminada
+        progreso.setIndeterminate(avance == 0);
+        progreso.setValue(avance);
+        progreso.setString(avance == 0 ? "" : avance + "%");
+        barraEstado.setVisible(true);
+    }
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package tvsystem.view;
 
 import tvsystem.service.*;
 import tvsystem.model.*;
+import tvsystem.repository.VersionDatos;
 import tvsystem.util.CsvManager;
 import tvsystem.util.LoggerHelper;
 import tvsystem.util.FileDialogHelper;
@@ -14,8 +15,11 @@ import tvsystem.exception.SuscripcionInvalidaException;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Ventana principal de la interfaz grafica del sistema.
@@ -28,8 +32,12 @@ public class MainWindow extends JFrame {
     private ClienteService clienteService;
     private PlanService planService;
     private CaptacionService captacionService;
+    private GuardadoService guardadoService;
     private ReportService reportService;
     
+    // Calculos de tablas, cuadricula y reportes fuera del hilo de eventos
+    private final GestorTareasVista tareas = new GestorTareasVista();
+    
     // Componentes de la interfaz
     private JTabbedPane tabbedPane;
     private JPanel chartPanel;
@@ -45,11 +53,13 @@ public class MainWindow extends JFrame {
     public MainWindow(SectorService sectorService, 
                      ClienteService clienteService,
                      PlanService planService,
-                     CaptacionService captacionService) {
+                     CaptacionService captacionService,
+                     GuardadoService guardadoService) {
         this.sectorService = sectorService;
         this.clienteService = clienteService;
         this.planService = planService;
         this.captacionService = captacionService;
+        this.guardadoService = guardadoService;
         this.reportService = new ReportService(sectorService, clienteService, planService);
         
         initComponents();
@@ -68,43 +78,57 @@ public class MainWindow extends JFrame {
         });
     }
     
-    // Maneja el cierre de la ventana con confirmación de guardado
+    // Maneja el cierre de la ventana con confirmación de guardado; espera los guardados en segundo plano.
+    // Con bitacora cada cambio ya quedo en disco y "No" no descartaria nada, asi que no se pregunta
     private void manejarCierreVentana() {
         try {
             if (CsvManager.tieneArchivoSeleccionado()) {
-                int opcion = JOptionPane.showConfirmDialog(
-                    this,
-                    "¿Desea guardar los cambios antes de salir?\n\nArchivo: " + 
-                    new java.io.File(CsvManager.getArchivoActual()).getName(),
-                    "Guardar cambios",
-                    JOptionPane.YES_NO_CANCEL_OPTION,
-                    JOptionPane.QUESTION_MESSAGE
-                );
+                int opcion = JOptionPane.NO_OPTION;
+                if (CsvManager.getBitacora() == null) {
+                    opcion = JOptionPane.showConfirmDialog(
+                        this,
+                        "¿Desea guardar los cambios antes de salir?\n\nArchivo: " + 
+                        new java.io.File(CsvManager.getArchivoActual()).getName(),
+                        "Guardar cambios",
+                        JOptionPane.YES_NO_CANCEL_OPTION,
+                        JOptionPane.QUESTION_MESSAGE
+                    );
+                }
                 
                 if (opcion == JOptionPane.CANCEL_OPTION) {
                     return; // Cuando el usuario cancela
                 }
                 
                 if (opcion == JOptionPane.YES_OPTION) {
-                    boolean guardado = CsvManager.guardarDatos(sectorService, clienteService, planService);
-                    if (guardado) {
-                        LoggerHelper.info("Datos guardados correctamente antes de salir.");
-                    } else {
-                        int confirmar = JOptionPane.showConfirmDialog(
-                            this,
-                            "Error al guardar. ¿Desea salir sin guardar?",
-                            "Error de Guardado",
-                            JOptionPane.YES_NO_OPTION,
-                            JOptionPane.WARNING_MESSAGE
-                        );
-                        if (confirmar != JOptionPane.YES_OPTION) {
-                            return; // Cuando el usuario cancela
-                        }
+                    guardadoService.guardarAhora(null);
+                }
+                
+                // Tambien se terminan los guardados ya pedidos por otras operaciones
+                boolean pendientes = opcion == JOptionPane.YES_OPTION || guardadoService.hayCambiosPendientes();
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                boolean guardado = guardadoService.vaciar(AppConstants.ESPERA_MAXIMA_GUARDADO_MS);
+                setCursor(Cursor.getDefaultCursor());
+                
+                if (guardado && opcion == JOptionPane.YES_OPTION) {
+                    LoggerHelper.info("Datos guardados correctamente antes de salir.");
+                } else if (!guardado && pendientes) {
+                    int confirmar = JOptionPane.showConfirmDialog(
+                        this,
+                        "Error al guardar. ¿Desea salir sin guardar?",
+                        "Error de Guardado",
+                        JOptionPane.YES_NO_OPTION,
+                        JOptionPane.WARNING_MESSAGE
+                    );
+                    if (confirmar != JOptionPane.YES_OPTION) {
+                        return; // Cuando el usuario cancela
                     }
                 }
             }
             
             LoggerHelper.info("Cerrando Sistema de Gestión Televisiva...");
+            tareas.cancelarTodas();
+            guardadoService.cerrar();
+            CsvManager.cerrarBitacora();
             dispose();
             System.exit(0);
             
@@ -148,6 +172,9 @@ public class MainWindow extends JFrame {
             
             mainPanel.add(tabbedPane, BorderLayout.CENTER);
             
+            // Barra de avance de las tareas en segundo plano
+            mainPanel.add(tareas.getBarraEstado(), BorderLayout.SOUTH);
+            
             add(mainPanel);
             
             // Mostrar estadisticas iniciales en consola
@@ -202,12 +229,16 @@ public class MainWindow extends JFrame {
         
         btnGuardar.addActionListener(e -> {
             if (CsvManager.tieneArchivoSeleccionado()) {
-                boolean guardado = CsvManager.guardarDatos(sectorService, clienteService, planService);
-                if (guardado) {
-                    JOptionPane.showMessageDialog(this, "Datos guardados correctamente");
-                } else {
-                    JOptionPane.showMessageDialog(this, "Error al guardar los datos");
-                }
+                // Se escribe en el hilo de guardado; el aviso vuelve a la interfaz cuando termina
+                btnGuardar.setEnabled(false);
+                guardadoService.guardarAhora(guardado -> SwingUtilities.invokeLater(() -> {
+                    btnGuardar.setEnabled(true);
+                    if (guardado) {
+                        JOptionPane.showMessageDialog(this, "Datos guardados correctamente");
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Error al guardar los datos");
+                    }
+                }));
             } else {
                 JOptionPane.showMessageDialog(this, "No hay archivo seleccionado para guardar");
             }
@@ -271,7 +302,7 @@ public class MainWindow extends JFrame {
         panel.setPreferredSize(new Dimension(400, 160));
         
         // Calcular estadisticas avanzadas
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
+        Collection<Sector> sectores = sectorService.obtenerSectoresView();
         int totalSectores = sectores.size();
         int totalClientes = clienteService.contarClientesTotales();
         
@@ -345,26 +376,10 @@ public class MainWindow extends JFrame {
         return panel;
     }
     
-    // Calcula los ingresos totales de un sector
+    // Ingresos de un sector desde los contadores del repositorio, sin recorrer sus clientes
     private double calcularIngresosSector(Sector sector) {
         if (sector == null) return 0.0;
-        
-        double ingresos = 0.0;
-        try {
-            List<Cliente> clientes = sector.getClientes();
-            if (clientes != null) {
-                for (Cliente cliente : clientes) {
-                    if (cliente != null && cliente.getSuscripcion() != null 
-                        && cliente.getSuscripcion().getPlan() != null
-                        && "ACTIVA".equalsIgnoreCase(cliente.getSuscripcion().getEstado())) {
-                        ingresos += cliente.getSuscripcion().getPlan().calcularPrecioFinal();
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error calculando ingresos del sector " + sector.getNombre() + ": " + e.getMessage());
-        }
-        return ingresos;
+        return clienteService.calcularIngresosSector(sector.getNombre());
     }
     
     private JPanel createSectoresDebilesPanel() {
@@ -438,101 +453,110 @@ public class MainWindow extends JFrame {
         ultimoUmbralAplicado = -1;
     }
     
-    // Actualiza la cuadrícula de sectores con datos frescos y filtro visual
+    // Actualiza la cuadrícula de sectores con datos frescos y filtro visual; los conteos se
+    // calculan en segundo plano y los botones se arman al terminar
     private void actualizarSectoresGrid(int umbralCritico) {
         if (sectoresGridPanel == null) {
             LoggerHelper.warning("sectoresGridPanel es null, no se puede actualizar aún");
             return;
         }
         
-        sectoresGridPanel.removeAll();
-        
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        
-        for (Sector sector : sectores) {
-            // Agregar informacion del sector
-            int clientes = sector.contarClientes();
-            double ingresos = calcularIngresosSector(sector);
-            
-            // Crear boton personalizado con bolita si tiene ingresos
-            JButton btnSector;
-            if (ingresos > 0) {
-                final Color colorSector = obtenerColorSector(sector.getNombre());
-                btnSector = new JButton() {
-                    @Override
-                    protected void paintComponent(Graphics g) {
-                        super.paintComponent(g);
-                        
-                        // Dibujar la bolita en la esquina superior derecha
-                        Graphics2D g2d = (Graphics2D) g.create();
-                        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                        
-                        int bolitaSize = 8;
-                        int margen = 5;
-                        int x = getWidth() - bolitaSize - margen;
-                        int y = margen;
-                        
-                        g2d.setColor(colorSector);
-                        g2d.fillOval(x, y, bolitaSize, bolitaSize);
-                        g2d.setColor(Color.BLACK);
-                        g2d.drawOval(x, y, bolitaSize, bolitaSize);
-                        
-                        g2d.dispose();
-                    }
-                };
-            } else {
-                btnSector = new JButton();
+        JPanel destino = sectoresGridPanel;
+        tareas.reemplazar("sectores", new TareaVista<List<ResumenSectorGrid>, Void>("Actualizando sectores") {
+            @Override
+            protected List<ResumenSectorGrid> calcular() {
+                Collection<Sector> sectores = sectorService.obtenerSectoresView();
+                List<ResumenSectorGrid> resumenes = new ArrayList<>(sectores.size());
+                for (Sector sector : sectores) {
+                    revisarCancelacion();
+                    resumenes.add(new ResumenSectorGrid(sector, sector.contarClientes(), calcularIngresosSector(sector)));
+                    avanzar(resumenes.size(), sectores.size());
+                }
+                return resumenes;
             }
             
-            btnSector.setPreferredSize(new Dimension(150, 50));
+            @Override
+            protected void terminar(List<ResumenSectorGrid> resumenes) {
+                destino.removeAll();
+                for (ResumenSectorGrid resumen : resumenes) {
+                    destino.add(crearBotonSector(resumen.sector, resumen.clientes, resumen.ingresos, umbralCritico));
+                }
+                destino.revalidate();
+                destino.repaint();
+            }
+        });
+    }
             
-            btnSector.setText("<html><center>" + sector.getNombre() + 
-                             "<br><small>" + clientes + " clientes</small>" +
-                             "<br><small>$" + String.format("%.0f", ingresos) + "</small></center></html>");
+    // Boton de la cuadricula con la bolita de color si tiene ingresos y en rojo si esta bajo el umbral
+    private JButton crearBotonSector(Sector sector, int clientes, double ingresos, int umbralCritico) {
+        // Crear boton personalizado con bolita si tiene ingresos
+        JButton btnSector;
+        if (ingresos > 0) {
+            final Color colorSector = obtenerColorSector(sector.getNombre());
+            btnSector = new JButton() {
+                @Override
+                protected void paintComponent(Graphics g) {
+                    super.paintComponent(g);
             
-            // Aplicar color critico si el sector está por debajo del umbral
-            if (umbralCritico > 0 && clientes < umbralCritico) {
-                btnSector.setBackground(new Color(255, 205, 210)); // Rojo pastel
-                btnSector.setOpaque(true);
-                btnSector.setBorderPainted(true);
-                btnSector.setBorder(BorderFactory.createLineBorder(new Color(244, 67, 54), 2));
-            } else {
-                // Color normal
-                btnSector.setBackground(UIManager.getColor("Button.background"));
-                btnSector.setOpaque(false);
-                btnSector.setBorderPainted(true);
-                btnSector.setBorder(UIManager.getBorder("Button.border"));
-            }
+                    // Dibujar la bolita en la esquina superior derecha
+                    Graphics2D g2d = (Graphics2D) g.create();
+                    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             
-            // Accion al hacer clic - mostrar ventana del sector
-            btnSector.addActionListener(e -> {
-                SectorDetailDialog dialog = new SectorDetailDialog(
-                    this, sector, clienteService, planService);
-                dialog.setVisible(true);
-                // Actualizar despues de cerrar el diálogo
-                actualizarTodasLasVistas();
-            });
+                    int bolitaSize = 8;
+                    int margen = 5;
+                    int x = getWidth() - bolitaSize - margen;
+                    int y = margen;
             
-            sectoresGridPanel.add(btnSector);
+                    g2d.setColor(colorSector);
+                    g2d.fillOval(x, y, bolitaSize, bolitaSize);
+                    g2d.setColor(Color.BLACK);
+                    g2d.drawOval(x, y, bolitaSize, bolitaSize);
+                    
+                    g2d.dispose();
+                }
+            };
+        } else {
+            btnSector = new JButton();
         }
         
-        sectoresGridPanel.revalidate();
-        sectoresGridPanel.revalidate();
-        sectoresGridPanel.repaint();
+        btnSector.setPreferredSize(new Dimension(150, 50));
+        
+        btnSector.setText("<html><center>" + sector.getNombre() + 
+                         "<br><small>" + clientes + " clientes</small>" +
+                         "<br><small>$" + String.format("%.0f", ingresos) + "</small></center></html>");
+        
+        // Aplicar color critico si el sector está por debajo del umbral
+        if (umbralCritico > 0 && clientes < umbralCritico) {
+            btnSector.setBackground(new Color(255, 205, 210)); // Rojo pastel
+            btnSector.setOpaque(true);
+            btnSector.setBorderPainted(true);
+            btnSector.setBorder(BorderFactory.createLineBorder(new Color(244, 67, 54), 2));
+        } else {
+            // Color normal
+            btnSector.setBackground(UIManager.getColor("Button.background"));
+            btnSector.setOpaque(false);
+            btnSector.setBorderPainted(true);
+            btnSector.setBorder(UIManager.getBorder("Button.border"));
+        }
+        
+        // Accion al hacer clic - mostrar ventana del sector
+        btnSector.addActionListener(e -> {
+            SectorDetailDialog dialog = new SectorDetailDialog(
+                this, sector, clienteService, planService);
+            dialog.setVisible(true);
+            // Actualizar despues de cerrar el diálogo
+            actualizarTodasLasVistas();
+        });
+        
+        return btnSector;
     }
     
     // Crea el panel de gestion de clientes
     private JPanel createClientesPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         
-        // Crear modelo de tabla
-        String[] columnas = {"Nombre", "RUT", "Sector", "Plan", "Domicilio", "Estado", "Acciones"};
-        javax.swing.table.DefaultTableModel tableModel = new javax.swing.table.DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 6; // Solo la columna de acciones es editable
-            }
-        };
+        // Crear modelo de tabla; las celdas se calculan al pintarlas desde una foto de los datos
+        ClientesTableModel tableModel = new ClientesTableModel();
         
         // Crear tabla con el modelo
         JTable clientesTable = new JTable(tableModel);
@@ -555,10 +579,10 @@ public class MainWindow extends JFrame {
                 int row = clientesTable.rowAtPoint(e.getPoint());
                 int col = clientesTable.columnAtPoint(e.getPoint());
                 
-                if (row >= 0 && col == 6) { // Columna de acciones
-                    String accion = (String) tableModel.getValueAt(row, 6);
+                if (row >= 0 && col == ClientesTableModel.COLUMNA_ACCIONES) {
+                    String accion = (String) tableModel.getValueAt(row, ClientesTableModel.COLUMNA_ACCIONES);
                     if ("Registrar Pago".equals(accion)) {
-                        String rutCliente = (String) tableModel.getValueAt(row, 1);
+                        String rutCliente = (String) tableModel.getValueAt(row, ClientesTableModel.COLUMNA_RUT);
                         registrarPagoCliente(rutCliente);
                         // Actualizar tabla después del pago
                         actualizarTablaClientes(tableModel);
@@ -579,7 +603,7 @@ public class MainWindow extends JFrame {
     }
     
     // Crea el panel superior de clientes con acciones principales y filtros funcionales
-    private JPanel createClientesTopPanel(javax.swing.table.DefaultTableModel tableModel, JTable clientesTable) {
+    private JPanel createClientesTopPanel(ClientesTableModel tableModel, JTable clientesTable) {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         panel.setBorder(BorderFactory.createTitledBorder("Acciones"));
         
@@ -649,7 +673,7 @@ public class MainWindow extends JFrame {
     }
     
     // Crea el panel de lista de clientes con tabla moderna
-    private JPanel createClientesListPanel(javax.swing.table.DefaultTableModel tableModel, JTable clientesTable) {
+    private JPanel createClientesListPanel(ClientesTableModel tableModel, JTable clientesTable) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createTitledBorder("Lista de Clientes"));
         
@@ -675,7 +699,7 @@ public class MainWindow extends JFrame {
         btnVerDetalles.addActionListener(e -> {
             int selectedRow = clientesTable.getSelectedRow();
             if (selectedRow != -1) {
-                String rut = (String) tableModel.getValueAt(selectedRow, 1);
+                String rut = (String) tableModel.getValueAt(selectedRow, ClientesTableModel.COLUMNA_RUT);
                 Cliente cliente = buscarClientePorRut(rut);
                 if (cliente != null) {
                     ClienteDetailDialog dialog = new ClienteDetailDialog(
@@ -689,7 +713,7 @@ public class MainWindow extends JFrame {
         btnEditar.addActionListener(e -> {
             int selectedRow = clientesTable.getSelectedRow();
             if (selectedRow != -1) {
-                String rut = (String) tableModel.getValueAt(selectedRow, 1);
+                String rut = (String) tableModel.getValueAt(selectedRow, ClientesTableModel.COLUMNA_RUT);
                 Cliente cliente = buscarClientePorRut(rut);
                 if (cliente != null) {
                     mostrarDialogoEditarCliente(cliente);
@@ -700,8 +724,8 @@ public class MainWindow extends JFrame {
         btnEliminar.addActionListener(e -> {
             int selectedRow = clientesTable.getSelectedRow();
             if (selectedRow != -1) {
-                String nombre = (String) tableModel.getValueAt(selectedRow, 0);
-                String rut = (String) tableModel.getValueAt(selectedRow, 1);
+                String nombre = (String) tableModel.getValueAt(selectedRow, ClientesTableModel.COLUMNA_NOMBRE);
+                String rut = (String) tableModel.getValueAt(selectedRow, ClientesTableModel.COLUMNA_RUT);
                 
                 int confirm = JOptionPane.showConfirmDialog(this,
                     "¿Está seguro de eliminar al cliente " + nombre + "?",
@@ -735,56 +759,20 @@ public class MainWindow extends JFrame {
     }
     
     // Actualiza la tabla de clientes con todos los datos
-    private void actualizarTablaClientes(javax.swing.table.DefaultTableModel tableModel) {
-        tableModel.setRowCount(0);
-        
-        // Obtener todos los clientes de todos los sectores
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        for (Sector sector : sectores) {
-            List<Cliente> clientes = sector.getClientes();
-            for (Cliente cliente : clientes) {
-                String estado = obtenerEstadoCliente(cliente);
-                String accion = "";
-                
-                // Mostrar boton "Registrar Pago" si está próxima a vencer
-                if ("Próxima a Vencer".equals(estado)) {
-                    accion = "Registrar Pago";
-                }
-                
-                Object[] fila = {
-                    cliente.getNombre(),
-                    cliente.getRut(),
-                    sector.getNombre(),
-                    cliente.getSuscripcion() != null && cliente.getSuscripcion().getPlan() != null ? 
-                        cliente.getSuscripcion().getPlan().getNombrePlan() : "Sin plan",
-                    cliente.getDomicilio(),
-                    estado,
-                    accion
-                };
-                tableModel.addRow(fila);
-            }
-        }
+    private void actualizarTablaClientes(ClientesTableModel tableModel) {
+        aplicarFiltroYOrden(tableModel, null, null, null);
     }
     
-    // Busca un cliente por su RUT en todos los sectores
+    // Busca un cliente por su RUT usando el indice del repositorio
     private Cliente buscarClientePorRut(String rut) {
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        for (Sector sector : sectores) {
-            List<Cliente> clientes = sector.getClientes();
-            for (Cliente cliente : clientes) {
-                if (cliente.getRut().equals(rut)) {
-                    return cliente;
-                }
-            }
-        }
-        return null;
+        return clienteService.obtenerClientePorRut(rut);
     }
     
     // Actualiza los valores disponibles para filtrar segu  n el tipo seleccionado
     private void actualizarValoresFiltro(JComboBox<String> cmbValorFiltro, String tipoFiltro) {
         cmbValorFiltro.removeAllItems();
         
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
+        Collection<Sector> sectores = sectorService.obtenerSectoresView();
         java.util.Set<String> valoresUnicos = new java.util.HashSet<>();
         
         switch (tipoFiltro) {
@@ -794,26 +782,19 @@ public class MainWindow extends JFrame {
                 }
                 break;
             case "Plan":
-                for (Sector sector : sectores) {
-                    for (Cliente cliente : sector.getClientes()) {
-                        if (cliente.getSuscripcion() != null && cliente.getSuscripcion().getPlan() != null) {
-                            String nombrePlan = cliente.getSuscripcion().getPlan().getNombrePlan().toLowerCase();
-                            // Agrupar por tipo de plan
-                            if (nombrePlan.contains("premium")) {
-                                valoresUnicos.add("Premium");
-                            } else if (nombrePlan.contains("basico") || nombrePlan.contains("básico")) {
-                                valoresUnicos.add("Básico");
-                            } else if (nombrePlan.contains("familiar")) {
-                                valoresUnicos.add("Familiar");
-                            } else {
-                                // Para planes que no encajen en las categorías principales
-                                valoresUnicos.add("Otros");
-                            }
-                        } else {
-                            valoresUnicos.add("Sin plan");
-                        }
+                // Tipos de los planes con clientes, desde los conteos por plan de la foto
+                VersionDatos foto = sectorService.obtenerFoto();
+                int conPlan = 0;
+                for (PlanSector plan : foto.getPlanes()) {
+                    int clientes = foto.contarClientesPorPlan(plan.getCodigoPlan());
+                    if (clientes > 0) {
+                        valoresUnicos.add(ClientesTableModel.tipoPlan(plan));
+                        conPlan += clientes;
                     }
                 }
+                if (conPlan < foto.contarClientes()) {
+                    valoresUnicos.add("Sin plan");
+                }
                 break;
             case "Estado":
                 valoresUnicos.add("Activo");
@@ -829,96 +810,15 @@ public class MainWindow extends JFrame {
     }
     
     // Aplica el filtro seleccionado a la tabla
-    private void aplicarFiltro(javax.swing.table.DefaultTableModel tableModel, String tipoFiltro, String valorFiltro) {
+    private void aplicarFiltro(ClientesTableModel tableModel, String tipoFiltro, String valorFiltro) {
         aplicarFiltroYOrden(tableModel, tipoFiltro, valorFiltro, null);
     }
     
-    // Aplica filtro y ordenamiento a la tabla
-    private void aplicarFiltroYOrden(javax.swing.table.DefaultTableModel tableModel, String tipoFiltro, String valorFiltro, String criterioOrden) {
-        tableModel.setRowCount(0);
-        java.util.List<Object[]> datosFiltrados = new java.util.ArrayList<>();
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
-        
-        for (Sector sector : sectores) {
-            List<Cliente> clientes = sector.getClientes();
-            for (Cliente cliente : clientes) {
-                // Preparar datos de la fila
-                String nombreCliente = cliente.getNombre();
-                String rutCliente = cliente.getRut();
-                String nombreSector = sector.getNombre();
-                String nombrePlan = cliente.getSuscripcion() != null && cliente.getSuscripcion().getPlan() != null ? 
-                    cliente.getSuscripcion().getPlan().getNombrePlan() : "Sin plan";
-                String domicilio = cliente.getDomicilio();
-                String estado = obtenerEstadoCliente(cliente);
-                
-                // Determinar el tipo de plan para filtrado
-                String tipoPlan = "Sin plan";
-                if (cliente.getSuscripcion() != null && cliente.getSuscripcion().getPlan() != null) {
-                    String planLower = cliente.getSuscripcion().getPlan().getNombrePlan().toLowerCase();
-                    if (planLower.contains("premium")) {
-                        tipoPlan = "Premium";
-                    } else if (planLower.contains("basico") || planLower.contains("básico")) {
-                        tipoPlan = "Básico";
-                    } else if (planLower.contains("familiar")) {
-                        tipoPlan = "Familiar";
-                    } else {
-                        tipoPlan = "Otros";
-                    }
-                }
-                
-                // Aplicar filtro
-                boolean incluir = true;
-                if (tipoFiltro != null && !"Todos".equals(tipoFiltro) && valorFiltro != null) {
-                    switch (tipoFiltro) {
-                        case "Sector":
-                            incluir = nombreSector.equals(valorFiltro);
-                            break;
-                        case "Plan":
-                            incluir = tipoPlan.equals(valorFiltro);
-                            break;
-                        case "Estado":
-                            incluir = estado.equals(valorFiltro);
-                            break;
-                    }
-                }
-                
-                if (incluir) {
-                    Object[] fila = {nombreCliente, rutCliente, nombreSector, nombrePlan, domicilio, estado};
-                    datosFiltrados.add(fila);
-                }
-            }
-        }
-        
-        // Aplicar ordenamiento si se especifica
-        if (criterioOrden != null) {
-            datosFiltrados.sort((fila1, fila2) -> {
-                String valor1 = "", valor2 = "";
-                switch (criterioOrden) {
-                    case "Nombre":
-                        valor1 = (String) fila1[0];
-                        valor2 = (String) fila2[0];
-                        break;
-                    case "RUT":
-                        valor1 = (String) fila1[1];
-                        valor2 = (String) fila2[1];
-                        break;
-                    case "Sector":
-                        valor1 = (String) fila1[2];
-                        valor2 = (String) fila2[2];
-                        break;
-                    case "Plan":
-                        valor1 = (String) fila1[3];
-                        valor2 = (String) fila2[3];
-                        break;
-                }
-                return valor1.compareToIgnoreCase(valor2);
-            });
-        }
-        
-        // Agregar filas filtradas y ordenadas a la tabla
-        for (Object[] fila : datosFiltrados) {
-            tableModel.addRow(fila);
-        }
+    // Aplica filtro y ordenamiento a la tabla; la vista se arma en segundo plano desde una foto
+    // de los datos y se muestra por tramos. Un nuevo filtro u orden cancela la carga anterior.
+    private void aplicarFiltroYOrden(ClientesTableModel tableModel, String tipoFiltro, String valorFiltro, String criterioOrden) {
+        tableModel.limpiar();
+        tareas.reemplazar("clientes", new TareaFilasClientes(tableModel, tipoFiltro, valorFiltro, criterioOrden));
     }
     
     
@@ -958,7 +858,7 @@ public class MainWindow extends JFrame {
         panel.add(new JLabel("Sector:"), gbc);
         gbc.gridx = 1;
         JComboBox<String> cmbSector = new JComboBox<>();
-        for (Sector sector : sectorService.obtenerTodosLosSectores()) {
+        for (Sector sector : sectorService.obtenerSectoresView()) {
             cmbSector.addItem(sector.getNombre());
         }
         panel.add(cmbSector, gbc);
@@ -1051,9 +951,8 @@ public class MainWindow extends JFrame {
         cmbPlan.removeAllItems();
         
         // Buscar el sector por nombre
-        List<Sector> sectores = sectorService.obtenerTodosLosSectores();
         Sector sectorEncontrado = null;
-        for (Sector sector : sectores) {
+        for (Sector sector : sectorService.obtenerSectoresView()) {
             if (sector.getNombre().equals(nombreSector)) {
                 sectorEncontrado = sector;
                 break;
@@ -1062,8 +961,8 @@ public class MainWindow extends JFrame {
         
         if (sectorEncontrado != null) {
             // Obtener planes especificos del sector
-            Map<String, PlanSector> planesDelSector = sectorEncontrado.getPlanesDisponibles();
-            for (PlanSector plan : planesDelSector.values()) {
+            Collection<PlanSector> planesDelSector = sectorEncontrado.getPlanesView();
+            for (PlanSector plan : planesDelSector) {
                 cmbPlan.addItem(plan.getCodigoPlan() + " - " + plan.getNombrePlan());
             }
             
@@ -1079,7 +978,7 @@ public class MainWindow extends JFrame {
     private void mostrarEstadisticasIniciales() {
         LoggerHelper.info("=== SISTEMA DE GESTIÓN TELEVISIVA ===");
         LoggerHelper.info("Sistema inicializado correctamente.");
-        LoggerHelper.info("Total de sectores: " + sectorService.obtenerTodosLosSectores().size());
+        LoggerHelper.info("Total de sectores: " + sectorService.obtenerSectoresView().size());
         LoggerHelper.info("Total de clientes: " + clienteService.contarClientesTotales());
         LoggerHelper.info("Total de planes: " + planService.obtenerTodosLosPlanes().size());
         LoggerHelper.success("¡Bienvenido al sistema!");
@@ -1164,8 +1063,10 @@ public class MainWindow extends JFrame {
                 }
                 
                 // Actualizar el cliente
-                cliente.setNombre(nombre);
-                cliente.setDomicilio(domicilio);
+                if (!clienteService.actualizarDatosCliente(cliente.getRut(), nombre, domicilio)) {
+                    JOptionPane.showMessageDialog(dialog, "No se pudo actualizar el cliente");
+                    return;
+                }
                 
                 JOptionPane.showMessageDialog(dialog, "Cliente actualizado exitosamente");
                 dialog.dispose();
@@ -1200,7 +1101,7 @@ public class MainWindow extends JFrame {
                 Graphics2D g2d = (Graphics2D) g.create();
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
-                List<Sector> sectores = sectorService.obtenerTodosLosSectores();
+                Collection<Sector> sectores = sectorService.obtenerSectoresView();
                 int totalClientes = clienteService.contarClientesTotales();
                 
                 if (totalClientes == 0) {
@@ -1249,7 +1150,7 @@ public class MainWindow extends JFrame {
                 Graphics2D g2d = (Graphics2D) g.create();
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
-                List<Sector> sectores = sectorService.obtenerTodosLosSectores();
+                Collection<Sector> sectores = sectorService.obtenerSectoresView();
                 
                 if (sectores.isEmpty()) {
                     g2d.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 12));
@@ -1315,32 +1216,9 @@ public class MainWindow extends JFrame {
         return coloresGraficos[indiceColor];
     }
     
-    // Determina el estado correcto de un cliente basado en su suscripcion
-    private String obtenerEstadoCliente(Cliente cliente) {
-        if (cliente.getSuscripcion() == null) {
-            return "Cancelado";
-        }
-
-        String estadoActual = cliente.getSuscripcion().obtenerEstadoActual();
-        
-        switch (estadoActual) {
-            case "ACTIVA":
-                return "Activo";
-            case "SUSPENDIDA":
-                return "Suspendido";
-            case "CANCELADA":
-                return "Cancelado";
-            case "PROXIMA_A_VENCER":
-                return "Próxima a Vencer";
-            default:
-                return "Cancelado";
-        }
-    }
-    
     private void registrarPagoCliente(String rutCliente) {
         Cliente cliente = buscarClientePorRut(rutCliente);
-        if (cliente != null && cliente.getSuscripcion() != null) {
-            cliente.getSuscripcion().registrarPago();
+        if (cliente != null && clienteService.registrarPago(rutCliente)) {
             
             JOptionPane.showMessageDialog(this,
                 "Pago registrado exitosamente para " + cliente.getNombre() + "\n" +
@@ -1373,7 +1251,7 @@ public class MainWindow extends JFrame {
 
     private void actualizarTablaClientesActiva() {
         Component panelClientes = tabbedPane.getComponentAt(1);
-        javax.swing.table.DefaultTableModel tableModel = encontrarTableModelEnPanel(panelClientes);
+        ClientesTableModel tableModel = encontrarTableModelEnPanel(panelClientes);
         
         if (tableModel != null) {
             actualizarTablaClientes(tableModel);
@@ -1383,18 +1261,18 @@ public class MainWindow extends JFrame {
         }
     }
     
-    private javax.swing.table.DefaultTableModel encontrarTableModelEnPanel(Component component) {
+    private ClientesTableModel encontrarTableModelEnPanel(Component component) {
         if (component instanceof JTable) {
             JTable table = (JTable) component;
-            if (table.getModel() instanceof javax.swing.table.DefaultTableModel) {
-                return (javax.swing.table.DefaultTableModel) table.getModel();
+            if (table.getModel() instanceof ClientesTableModel) {
+                return (ClientesTableModel) table.getModel();
             }
         }
         
         if (component instanceof Container) {
             Container container = (Container) component;
             for (Component child : container.getComponents()) {
-                javax.swing.table.DefaultTableModel result = encontrarTableModelEnPanel(child);
+                ClientesTableModel result = encontrarTableModelEnPanel(child);
                 if (result != null) {
                     return result;
                 }
@@ -1477,53 +1355,85 @@ public class MainWindow extends JFrame {
         }
     }
 
+    // Busca los sectores en segundo plano, confirma en el EDT y aplica la campaña en segundo plano
     private void aplicarDescuentoAutomaticoConResumen(int umbral) {
-        try {
-            List<Sector> sectoresParaCaptacion = captacionService.identificarSectoresParaCaptacion(umbral);
-            
-            if (sectoresParaCaptacion.isEmpty()) {
-                JOptionPane.showMessageDialog(this, 
-                    "No se encontraron sectores que requieran captación con umbral de " + umbral + " clientes.", 
-                    "Descuento Automático", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                return;
+        tareas.reemplazar("descuento", new TareaVista<List<Sector>, Void>("Buscando sectores para captación") {
+            @Override
+            protected List<Sector> calcular() {
+                return captacionService.identificarSectoresParaCaptacion(umbral);
             }
             
-            // Mostrar información de descuentos escalonados
-            String mensaje = String.format(
-                "Se aplicarán descuentos escalonados a %d sectores:\n\n" +
-                "• Sectores muy críticos (0-33%% del umbral): 30%% descuento\n" +
-                "• Sectores críticos (34-66%% del umbral): 20%% descuento\n" +
-                "• Sectores moderados (67-99%% del umbral): 15%% descuento\n\n" +
-                "Umbral utilizado: %d clientes\n¿Continuar?",
-                sectoresParaCaptacion.size(), umbral
-            );
-            
-            // Confirmar aplicacion de descuentos
-            int confirmacion = JOptionPane.showConfirmDialog(this,
-                mensaje,
-                "Confirmar Descuento Escalonado",
-                JOptionPane.YES_NO_OPTION);
-                
-            if (confirmacion != JOptionPane.YES_OPTION) {
-                return;
+            @Override
+            protected void terminar(List<Sector> sectoresParaCaptacion) {
+                confirmarDescuento(sectoresParaCaptacion, umbral);
             }
             
-            // Aplicar descuentos con el umbral personalizado
-            captacionService.ejecutarCampanaCaptacionConUmbral(umbral);
+            @Override
+            protected void fallar(Exception e) {
+                mostrarErrorDescuento(e);
+            }
+        });
+    }
             
-            // Mostrar ventana de resumen
-            mostrarResumenDescuentos(sectoresParaCaptacion, umbral);
+    private void confirmarDescuento(List<Sector> sectoresParaCaptacion, int umbral) {
+        if (sectoresParaCaptacion.isEmpty()) {
+            JOptionPane.showMessageDialog(this, 
+                "No se encontraron sectores que requieran captación con umbral de " + umbral + " clientes.", 
+                "Descuento Automático", 
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
             
-            // Actualizar la vista
-            actualizarSectoresGrid(-1);
+        // Mostrar información de descuentos escalonados
+        String mensaje = String.format(
+            "Se aplicarán descuentos escalonados a %d sectores:\n\n" +
+            "• Sectores muy críticos (0-33%% del umbral): 30%% descuento\n" +
+            "• Sectores críticos (34-66%% del umbral): 20%% descuento\n" +
+            "• Sectores moderados (67-99%% del umbral): 15%% descuento\n\n" +
+            "Umbral utilizado: %d clientes\n¿Continuar?",
+            sectoresParaCaptacion.size(), umbral
+        );
             
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error al aplicar descuentos: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
+        // Confirmar aplicacion de descuentos
+        int confirmacion = JOptionPane.showConfirmDialog(this,
+            mensaje,
+            "Confirmar Descuento Escalonado",
+            JOptionPane.YES_NO_OPTION);
+        
+        if (confirmacion != JOptionPane.YES_OPTION) {
+            return;
         }
+        
+        // La campaña ya confirmada no se cancela aunque se pida otra busqueda
+        tareas.ejecutar(new TareaVista<Void, Void>("Aplicando descuentos") {
+            @Override
+            protected Void calcular() {
+                // Aplicar descuentos con el umbral personalizado
+                captacionService.ejecutarCampanaCaptacionConUmbral(umbral);
+                return null;
+            }
+            
+            @Override
+            protected void terminar(Void resultado) {
+                // Mostrar ventana de resumen
+                mostrarResumenDescuentos(sectoresParaCaptacion, umbral);
+                
+                // Actualizar la vista
+                actualizarSectoresGrid(-1);
+            }
+            
+            @Override
+            protected void fallar(Exception e) {
+                mostrarErrorDescuento(e);
+            }
+        });
+    }
+    
+    private void mostrarErrorDescuento(Exception e) {
+        JOptionPane.showMessageDialog(this,
+            "Error al aplicar descuentos: " + e.getMessage(),
+            "Error",
+            JOptionPane.ERROR_MESSAGE);
     }
     
     // Muestra ventana de resumen con los sectores a los que se aplico el descuento
@@ -1609,28 +1519,177 @@ public class MainWindow extends JFrame {
         dialog.setVisible(true);
     }
     
-    // Genera y exporta un reporte completo
+    // Genera y exporta un reporte completo; el formato sale de la extension elegida. Se escribe en
+    // segundo plano desde una foto de los datos, asi que la ventana sigue respondiendo
     private void generarReporteAnalisis() {
         String rutaArchivo = FileDialogHelper.seleccionarUbicacionReporte(AppConstants.NOMBRE_REPORTE_DEFAULT);
         
         if (rutaArchivo != null) {
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(rutaArchivo))) {
-                reportService.generarReporteCompleto(writer);
+            int opcion = JOptionPane.showConfirmDialog(this, AppConstants.MSG_DETALLE_CLIENTES_REPORTE,
+                AppConstants.TITULO_REPORTE, JOptionPane.YES_NO_OPTION);
+            boolean detalleClientes = opcion == JOptionPane.YES_OPTION;
+            
+            tareas.ejecutar(new TareaVista<Void, Void>("Generando reporte") {
+                @Override
+                protected Void calcular() throws java.io.IOException {
+                    clienteService.actualizarEstadosPorVencimiento();
+                    new ReporteExportador(reportService, sectorService).exportar(
+                        new java.io.File(rutaArchivo).toPath(),
+                        ReporteExportador.Formato.segunRuta(rutaArchivo),
+                        detalleClientes);
+                    return null;
+                }
                 
-                FileDialogHelper.mostrarInformacion(
-                    AppConstants.MSG_REPORTE_GENERADO + "\\n" + rutaArchivo, 
-                    AppConstants.TITULO_REPORTE);
+                @Override
+                protected void terminar(Void resultado) {
+                    FileDialogHelper.mostrarInformacion(
+                        AppConstants.MSG_REPORTE_GENERADO + "\\n" + rutaArchivo, 
+                        AppConstants.TITULO_REPORTE);
                     
-                LoggerHelper.success("Reporte generado en: " + rutaArchivo);
+                    LoggerHelper.success("Reporte generado en: " + rutaArchivo);
+                }
                     
-            } catch (java.io.IOException e) {
-                FileDialogHelper.mostrarError(
-                    AppConstants.MSG_ERROR_REPORTE + "\\n" + e.getMessage(), 
-                    AppConstants.TITULO_ERROR);
-                LoggerHelper.error("Error al generar reporte", e);
-            }
+                @Override
+                protected void fallar(Exception e) {
+                    FileDialogHelper.mostrarError(
+                        AppConstants.MSG_ERROR_REPORTE + "\\n" + e.getMessage(), 
+                        AppConstants.TITULO_ERROR);
+                    LoggerHelper.error("Error al generar reporte", e);
+                }
+            });
         } else {
             LoggerHelper.info("Generación de reporte cancelada");
         }
     }
+    
+    // --- TAREAS EN SEGUNDO PLANO ---
+    
+    // Arma la vista de la tabla de clientes (filtrada y ordenada): solo un arreglo con los clientes
+    // de la foto y otro con el sector de cada fila. Sin orden, o por sector, la tabla la va
+    // mostrando a medida que se llena.
+    private class TareaFilasClientes extends TareaVista<Integer, Integer> {
+        private final ClientesTableModel tableModel;
+        private final String tipoFiltro;
+        private final String valorFiltro;
+        private final String criterioOrden;
+        
+        // Los escribe el calculo antes de la primera entrega; publish los hace visibles en el EDT
+        private VersionDatos foto;
+        private FotoCliente[] filas;
+        private String[] sectoresFilas;
+        private boolean mostrada;
+        
+        TareaFilasClientes(ClientesTableModel tableModel, String tipoFiltro,
+                           String valorFiltro, String criterioOrden) {
+            super("Cargando clientes");
+            this.tableModel = tableModel;
+            this.tipoFiltro = tipoFiltro;
+            this.valorFiltro = valorFiltro;
+            this.criterioOrden = criterioOrden;
+        }
+        
+        @Override
+        protected Integer calcular() {
+            clienteService.actualizarEstadosPorVencimiento();
+            revisarCancelacion();
+            
+            foto = sectorService.obtenerFoto();
+            int total = foto.contarClientes();
+            filas = new FotoCliente[total];
+            sectoresFilas = new String[total];
+            
+            // Por sector basta recorrer los sectores ordenados (el orden es estable dentro de cada uno)
+            List<VersionDatos.VersionSector> sectores = foto.getSectores();
+            boolean porSector = "Sector".equals(criterioOrden);
+            if (porSector) {
+                sectores = new ArrayList<>(sectores);
+                sectores.sort(Comparator.comparing(VersionDatos.VersionSector::getNombre, String.CASE_INSENSITIVE_ORDER));
+            }
+            boolean porTramos = criterioOrden == null || porSector;
+            
+            int cantidad = 0;
+            int revisados = 0;
+            int tramo = AppConstants.TAMANO_TRAMO_TABLA;
+            for (VersionDatos.VersionSector sector : sectores) {
+                for (FotoCliente cliente : sector.getClientes()) {
+                    if (ClientesTableModel.pasaFiltro(cliente, sector.getNombre(), foto, tipoFiltro, valorFiltro)) {
+                        sectoresFilas[cantidad] = sector.getNombre();
+                        filas[cantidad++] = cliente;
+                    }
+                    if (++revisados % tramo == 0) {
+                        revisarCancelacion();
+                        if (porTramos) {
+                            publish(cantidad);
+                        }
+                        // Si falta ordenar, el recorrido es la primera mitad del avance
+                        avanzar(revisados, porTramos ? total : 2L * total);
+                    }
+                }
+            }
+            
+            if (!porTramos) {
+                revisarCancelacion();
+                ordenar(cantidad);
+            }
+            return cantidad;
+        }
+        
+        @Override
+        protected void recibir(List<Integer> tramo) {
+            mostrarHasta(tramo.get(tramo.size() - 1));
+        }
+        
+        @Override
+        protected void terminar(Integer cantidad) {
+            mostrarHasta(cantidad);
+        }
+        
+        private void mostrarHasta(int cantidad) {
+            if (mostrada) {
+                tableModel.extender(cantidad);
+            } else {
+                tableModel.mostrar(foto, filas, sectoresFilas, cantidad);
+                mostrada = true;
+            }
+        }
+        
+        // Orden estable, como el de la lista que se usaba antes; se ordenan pares cliente-sector
+        // para que el sector de cada fila siga a su cliente
+        private void ordenar(int cantidad) {
+            FilaOrden[] orden = new FilaOrden[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                orden[i] = new FilaOrden(filas[i], sectoresFilas[i]);
+            }
+            Comparator<FotoCliente> comparador = ClientesTableModel.comparador(criterioOrden, foto);
+            Arrays.parallelSort(orden, (a, b) -> comparador.compare(a.cliente, b.cliente));
+            for (int i = 0; i < cantidad; i++) {
+                filas[i] = orden[i].cliente;
+                sectoresFilas[i] = orden[i].sector;
+            }
+        }
+    }
+    
+    // Cliente y nombre de su sector mientras se ordena la vista de la tabla
+    private static final class FilaOrden {
+        final FotoCliente cliente;
+        final String sector;
+        
+        FilaOrden(FotoCliente cliente, String sector) {
+            this.cliente = cliente;
+            this.sector = sector;
+        }
+    }
+    
+    // Datos de un boton de la cuadricula de sectores
+    private static final class ResumenSectorGrid {
+        final Sector sector;
+        final int clientes;
+        final double ingresos;
+        
+        ResumenSectorGrid(Sector sector, int clientes, double ingresos) {
+            this.sector = sector;
+            this.clientes = clientes;
+            this.ingresos = ingresos;
+        }
+    }
 }
\ No newline at end of file
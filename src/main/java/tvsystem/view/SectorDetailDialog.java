@@ -5,7 +5,7 @@ import tvsystem.service.*;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.List;
+import java.util.Collection;
 
 /**
  * Dialogo para mostrar detalles completos de un sector
@@ -83,8 +83,7 @@ public class SectorDetailDialog extends JDialog {
         };
         
         // Llenar tabla con clientes del sector
-        List<Cliente> clientes = sector.getClientes();
-        for (Cliente cliente : clientes) {
+        for (Cliente cliente : sector.getClientesView()) {
             Object[] fila = {
                 cliente.getRut(),
                 cliente.getNombre(),
@@ -198,7 +197,7 @@ public class SectorDetailDialog extends JDialog {
         JPanel panel = new JPanel(new GridLayout(3, 2, 20, 10));
         panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
-        List<Cliente> clientes = sector.getClientes();
+        Collection<Cliente> clientes = sector.getClientesView();
         
         // Calcular estadisticas
         int totalClientes = clientes.size();
@@ -274,8 +273,7 @@ public class SectorDetailDialog extends JDialog {
         model.setRowCount(0);
         
         // Volver a cargar datos
-        List<Cliente> clientes = sector.getClientes();
-        for (Cliente cliente : clientes) {
+        for (Cliente cliente : sector.getClientesView()) {
             Object[] fila = {
                 cliente.getRut(),
                 cliente.getNombre(),
@@ -0,0 +1,92 @@
+package tvsystem.view;
+
+import tvsystem.util.LoggerHelper;
+import javax.swing.SwingWorker;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Trabajo de la interfaz que se calcula fuera del hilo de eventos (EDT).
+ *
+ * calcular() corre en un hilo de SwingWorker y puede publicar resultados
+ * parciales en tramos con publish(); recibir() los entrega en el EDT en el
+ * mismo orden. terminar() y fallar() tambien corren en el EDT. Una tarea
+ * cancelada (porque otra la reemplazo) no entrega nada mas: el calculo debe
+ * revisar revisarCancelacion() entre tramos para dejar de trabajar pronto.
+ * Se ejecutan con GestorTareasVista, que muestra el avance.
+ *
+ * @author Maximiliano Rodriguez
+ */
+public abstract class TareaVista<T, V> extends SwingWorker<T, V> {
+    
+    private final String descripcion;
+    
+    // Constructor
+    protected TareaVista(String descripcion) {
+        this.descripcion = descripcion;
+    }
+    
+    // -- METODOS --
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    // Trabajo en segundo plano; no debe tocar componentes Swing
+    protected abstract T calcular() throws Exception;
+    
+    // Tramo de resultados parciales, en el EDT
+    protected void recibir(List<V> tramo) {
+    }
+    
+    // Resultado final, en el EDT; no se llama si la tarea se cancelo
+    protected void terminar(T resultado) {
+    }
+    
+    // Error del calculo, en el EDT
+    protected void fallar(Exception e) {
+        LoggerHelper.error("Error en " + descripcion + ": " + e.getMessage());
+    }
+    
+    // Corta el calculo si la tarea fue reemplazada
+    protected final void revisarCancelacion() {
+        if (isCancelled()) {
+            throw new CancellationException(descripcion + " cancelada");
+        }
+    }
+    
+    // Avance de 0 a 100 para la barra de progreso
+    protected final void avanzar(long hechos, long total) {
+        setProgress(total <= 0 ? 100 : (int) Math.min(100, hechos * 100 / total));
+    }
+    
+    @Override
+    protected final T doInBackground() throws Exception {
+        return calcular();
+    }
+    
+    @Override
+    protected final void process(List<V> tramo) {
+        if (!isCancelled()) {
+            recibir(tramo);
+        }
+    }
+    
+    @Override
+    protected final void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            terminar(get());
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (!(causa instanceof CancellationException)) {
+                fallar(causa instanceof Exception ? (Exception) causa : e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file